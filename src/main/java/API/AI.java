@@ -3,51 +3,24 @@ package API;
 import API.Trie;
 import javafx.util.Pair;
 import util.Quadruple;
-import util.TrieNode;
-import util.Triple;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
-import static API.Board.*;
 import static util.FunctionHelper.*;
 
 /**
  * A class that implements an [efficient] Scrabble solver algorithm.
  *
+ * Each CPU strategy comes in two forms. One takes a {@link PlayerView} and returns the {@link Decision} for a
+ * {@link GameEngine} to carry out; the other takes and returns the board, hand and bag themselves, drawing from
+ * the front of the bag it is given.
+ *
  * Created by sujay on 7/27/17.
  */
 public class AI {
 
-    private static List<Pair<Integer, Integer>> generateVerticalNeighbors(int r, int c)
-    {
-        List<Pair<Integer, Integer>> s = new ArrayList<>();
-        if (r > 0)
-        {
-            s.add(new Pair<>(r - 1, c));
-        }
-        if (r < 14)
-        {
-            s.add(new Pair<>(r + 1, c));
-        }
-        return s;
-    }
-
-    private static List<Pair<Integer, Integer>> generateHorizontalNeighbors(int r, int c)
-    {
-        List<Pair<Integer, Integer>> s = new ArrayList<>();
-        if (c > 0)
-        {
-            s.add(new Pair<>(r, c - 1));
-        }
-        if (c < 14)
-        {
-            s.add(new Pair<>(r, c + 1));
-        }
-        return s;
-    }
-
     /**
      * Returns the state of the Scrabble board after the CPU plays the highest possible scoring word from his position.
      *
@@ -66,286 +39,556 @@ public class AI {
     public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
             Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input)
     {
+        return CPUMove(input, SearchBudget.unlimited());
+    }
 
-        List<List<Character>> boardBeforeCPUMove = input.getA();
-        List<Character> cpuHand = input.getB();
-        Queue<Character> tilesRemaining = input.getC();
-        Trie trie = input.getD();
-
-        boolean isFirstTurn = forEachBoardSquareAsList((r, c) -> boardBeforeCPUMove.get(r).get(c) == ' ').stream().allMatch(x -> x);
-
-        Set<Pair<Integer, Integer>> anchorSquares;
-
-        if(!isFirstTurn){
-            anchorSquares = forEachBoardSquareAsList((r, c) -> {
-                boolean validAnchorSquare = (boardBeforeCPUMove.get(r).get(c) == ' ');
-                List<Pair<Integer, Integer>> neighbors = generateVerticalNeighbors(r, c);
-                neighbors.addAll(generateHorizontalNeighbors(r, c));
-                validAnchorSquare = validAnchorSquare && neighbors.stream().anyMatch((pair) ->
-                        boardBeforeCPUMove.get(pair.getKey()).get(pair.getValue()) != ' ');
-                if (validAnchorSquare)
-                    return new Pair<>(r,c);
-                return null;
-            }).stream().filter(Objects::nonNull).collect(Collectors.toSet());
-        }
-        else
-        {
-            anchorSquares = new HashSet<>(Arrays.asList(new Pair<>(7,7)));
-        }
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the highest scoring word it finds within the
+     * provided budget. Anchors are searched most promising first, and when the budget runs out the best move
+     * found so far is played; budget.wasExhausted() tells afterwards whether that happened.
+     *
+     * The client should assume that in all cases when no move is found with the CPU hand,
+     * the CPU defaults to swapping tiles if the bagSize is greater than or equal to 7, else pass the turn.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget)
+    {
+        return play(input, CPUMove(view(input), budget));
+    }
 
-        List<List<Character>> copyOfMainModel = forEachBoardSquareAsNestedList((r, c) -> boardBeforeCPUMove.get(r).get(c));
-        List<List<Character>> transposeOfMainModel = forEachBoardSquareAsNestedList((r, c) -> boardBeforeCPUMove.get(c).get(r));
-        List<Character> copyOfCPUHand = cpuHand.stream().map(x->x).collect(Collectors.toList());
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the move of highest equity it finds within the
+     * provided budget: the score of the move plus the value of the tiles it leaves in the CPU hand. If exchanging
+     * some of the hand for a better leave is worth more than the best move, and the bag holds enough tiles, the CPU
+     * exchanges instead. Once the bag is empty no tiles are drawn again, so leaves are ignored and the highest
+     * scoring move is played.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget,
+            LeaveTable leaves)
+    {
+        return play(input, CPUMove(view(input), budget, leaves));
+    }
 
-        HashSet<Character>[][] verticalCrossCheckSets = computeCrossCheckSets(copyOfMainModel, trie);
-        HashSet<Character>[][] horizontalCrossCheckSetsForTransposeOfBoard = computeCrossCheckSets(transposeOfMainModel, trie);
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the move of highest equity it finds within the
+     * provided budget, looking the position up in cache first. Positions seen before, with the same rack,
+     * lexicon and leave table, are answered without searching.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search, if one is needed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param cache the cache of best moves to consult and fill
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget,
+            LeaveTable leaves, MoveCache cache)
+    {
+        return play(input, CPUMove(view(input), budget, leaves, cache));
+    }
 
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the move of highest equity, reusing what ponderer
+     * found while the opponent was thinking. See {@link Ponderer}.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search of what the opponent's move changed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param ponderer the ponderer that was started on the board before the opponent's move
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget,
+            LeaveTable leaves, Ponderer ponderer)
+    {
+        return play(input, CPUMove(view(input), budget, leaves, ponderer));
+    }
 
-        Set<Pair<Integer, Integer>> transposedAnchorSquares =
-                anchorSquares.stream().map(x -> new Pair<>(x.getValue(), x.getKey())).collect(Collectors.toSet());
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the move of highest equity, looked up in book
+     * when the board is empty and searched for otherwise. See {@link OpeningBook}.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search, if one is needed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param book the opening book built with the lexicon of input's trie
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget,
+            LeaveTable leaves, OpeningBook book)
+    {
+        return play(input, CPUMove(view(input), budget, leaves, book));
+    }
 
-        Triple<List<List<Character>>, String, Integer> bestCPUPlay = new Triple<>(null, "", Integer.MIN_VALUE);
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the candidate with the best score less the
+     * opponent's expected reply, found by {@link TwoPlySearch} over racks sampled from the tiles it cannot see.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn,
+     *              the trie containing the dictionary of valid words
+     * @param leaves the values of rack leaves used to choose candidates, or null to choose by score
+     * @param candidates the number of candidate moves to look ahead from
+     * @param racks the number of opponent racks to sample
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUTwoPlyMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, LeaveTable leaves,
+            int candidates, int racks)
+    {
+        return play(input, CPUTwoPlyMove(view(input), leaves, candidates, racks));
+    }
 
-        anchorSquares.forEach(square -> computeBestHorizontalPlayAtAnchor(copyOfMainModel, copyOfCPUHand, anchorSquares, square, verticalCrossCheckSets, trie, false, bestCPUPlay));
-        transposedAnchorSquares.forEach(square -> computeBestHorizontalPlayAtAnchor(transposeOfMainModel, copyOfCPUHand, transposedAnchorSquares, square, horizontalCrossCheckSetsForTransposeOfBoard, trie, true, bestCPUPlay));
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the best move of the endgame, found by
+     * {@link EndgameSolver}. With the bag empty, the player's rack is exactly the tiles the CPU cannot see.
+     * Neither player is taken to have made a scoreless turn just before.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn, which must be empty,
+     *              the trie containing the dictionary of valid words
+     * @param budget the time and/or node budget for the search
+     * @param solver the solver to search with, built with input's trie and kept from one turn to the next
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUEndgameMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, SearchBudget budget,
+            EndgameSolver solver)
+    {
+        return play(input, CPUEndgameMove(view(input), budget, solver));
+    }
 
-        List<List<Character>> bestScoringBoard = bestCPUPlay.getA();
-        List<Character> newCPUHand = cpuHand.stream().map(x->x).collect(Collectors.toList());
-        Queue<Character> newTilesRemaining = new ArrayDeque<>(tilesRemaining.stream().map(x->x).collect(Collectors.toList()));
+    /**
+     * Returns the state of the Scrabble board after the CPU plays the move with the best expected outcome over
+     * the draws that could follow it, found by {@link PreEndgameAnalyzer}.
+     *
+     * @param input the scrabble board before the AI takes its turn,
+     *              the cpu hand before the turn,
+     *              the tile bag before the turn, holding from 1 to PreEndgameAnalyzer.MAX_BAG_SIZE tiles,
+     *              the trie containing the dictionary of valid words
+     * @param candidates the number of candidate moves to consider
+     * @param timeLimitMillis the time the analysis may take, in milliseconds
+     * @param analyzer the analyzer to search with, built with input's trie and kept from one turn to the next
+     * @return the scrabble board after the AI takes its turn,
+     *              the cpu hand after the turn,
+     *              the tile bag after the turn,
+     *              a pair of the string played and the score yielded by that string
+     */
+    public static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> CPUPreEndgameMove(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, int candidates,
+            long timeLimitMillis, PreEndgameAnalyzer analyzer)
+    {
+        return play(input, CPUPreEndgameMove(view(input), candidates, timeLimitMillis, analyzer));
+    }
 
-        if (bestScoringBoard == null)
-        {
-            if (tilesRemaining.size() >= 7)
-            {
-                // Attempt swap by randomly drawing 7 tiles, and adding the 7 former tiles back into the bag.
-                newCPUHand.clear();
-                for (int i = 0; i < 7; i++)
-                {
-                    newCPUHand.add(newTilesRemaining.poll());
-                    newTilesRemaining.add(cpuHand.get(i));
-                }
-                // Shuffle the bag of tiles.
-                ArrayList<Character> temp = new ArrayList<>(newTilesRemaining);
-                Collections.shuffle(temp);
-                newTilesRemaining = new ArrayDeque<>(temp);
-            }
-            return new Quadruple<>(copyOfMainModel, newCPUHand, newTilesRemaining, new Pair<>("", 0));
-        }
+    /**
+     * Returns what the CPU does with the turn when it plays the highest scoring word it finds within the provided
+     * budget, swapping its whole hand when it finds none and the bag holds at least 7 tiles, and passing otherwise.
+     *
+     * @param view what the CPU can see of the game
+     * @param budget the time and/or node budget for the search
+     * @return the decision
+     */
+    public static Decision CPUMove(PlayerView view, SearchBudget budget)
+    {
+        return CPUMove(view, budget, (LeaveTable) null);
+    }
 
-        // Get all pairs in which the board after the move differs from the board before the move.
-        List<Pair<Integer, Integer>> attempted_changed_coords = getCoordinatesListForBoard().stream().filter(x -> {
-            int r = x.getKey();
-            int c = x.getValue();
-            return bestScoringBoard.get(r).get(c) != boardBeforeCPUMove.get(r).get(c);
-        }).collect(Collectors.toList());
+    /**
+     * Returns what the CPU does with the turn when it plays, or exchanges for, the highest equity it finds within
+     * the provided budget. See {@link #CPUMove(Quadruple, SearchBudget, LeaveTable)}.
+     *
+     * @param view what the CPU can see of the game
+     * @param budget the time and/or node budget for the search
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @return the decision
+     */
+    public static Decision CPUMove(PlayerView view, SearchBudget budget, LeaveTable leaves)
+    {
+        MoveGenerator generator = new MoveGenerator(view.getTrie());
+        generator.setBoard(view.getBoard());
+        LeaveTable applicable = view.getBagSize() == 0 ? null : leaves;
+        Move best = generator.search(view.getHand(), 1, budget, applicable).getBestMove();
+        return decide(best, chooseExchange(view, best, applicable));
+    }
 
-        attempted_changed_coords.forEach(x -> newCPUHand.remove((Character)bestScoringBoard.get(x.getKey()).get(x.getValue())));
+    /**
+     * Returns what the CPU does with the turn when it plays, or exchanges for, the highest equity, looking the
+     * position up in cache first. See {@link #CPUMove(Quadruple, SearchBudget, LeaveTable, MoveCache)}.
+     *
+     * @param view what the CPU can see of the game
+     * @param budget the time and/or node budget for the search, if one is needed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param cache the cache of best moves to consult and fill
+     * @return the decision
+     */
+    public static Decision CPUMove(PlayerView view, SearchBudget budget, LeaveTable leaves, MoveCache cache)
+    {
+        LeaveTable applicable = view.getBagSize() == 0 ? null : leaves;
+        Move best = cache.bestMove(view.getBoard(), view.getHand(), view.getTrie(), budget, applicable);
+        return decide(best, chooseExchange(view, best, applicable));
+    }
 
-        int score = bestCPUPlay.getC();
+    /**
+     * Returns what the CPU does with the turn when it plays, or exchanges for, the highest equity, reusing what
+     * ponderer found while the opponent was thinking. See {@link Ponderer}.
+     *
+     * @param view what the CPU can see of the game
+     * @param budget the time and/or node budget for the search of what the opponent's move changed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param ponderer the ponderer that was started on the board before the opponent's move
+     * @return the decision
+     */
+    public static Decision CPUMove(PlayerView view, SearchBudget budget, LeaveTable leaves, Ponderer ponderer)
+    {
+        LeaveTable applicable = view.getBagSize() == 0 ? null : leaves;
+        Move best = ponderer.bestMove(view.getBoard(), view.getHand(), budget, applicable);
+        return decide(best, chooseExchange(view, best, applicable));
+    }
 
-        for (int k = newCPUHand.size(); k < 7; k++)
+    /**
+     * Returns what the CPU does with the turn when it plays, or exchanges for, the highest equity, looked up in
+     * book when the board is empty and searched for otherwise. See {@link OpeningBook}.
+     *
+     * @param view what the CPU can see of the game
+     * @param budget the time and/or node budget for the search, if one is needed
+     * @param leaves the values of rack leaves, or null to play the highest scoring move
+     * @param book the opening book built with the lexicon of the view's trie
+     * @return the decision
+     */
+    public static Decision CPUMove(PlayerView view, SearchBudget budget, LeaveTable leaves, OpeningBook book)
+    {
+        LeaveTable applicable = view.getBagSize() == 0 ? null : leaves;
+        if (!book.covers(view.getBoard(), view.getHand(), applicable))
         {
-            Character c = newTilesRemaining.poll();
-            if (c != null)
-            {
-                newCPUHand.add(c);
-            }
+            return CPUMove(view, budget, leaves);
         }
+        Move best = book.bestMove(view.getHand(), applicable);
+        return decide(best, chooseExchange(view, best, applicable));
+    }
 
-        return new Quadruple<>(bestScoringBoard, newCPUHand, newTilesRemaining, new Pair<>(bestCPUPlay.getB(), score));
+    /**
+     * Returns what the CPU does with the turn when it plays the candidate with the best score less the
+     * opponent's expected reply, found by {@link TwoPlySearch} over racks sampled from the tiles it cannot see.
+     *
+     * @param view what the CPU can see of the game
+     * @param leaves the values of rack leaves used to choose candidates, or null to choose by score
+     * @param candidates the number of candidate moves to look ahead from
+     * @param racks the number of opponent racks to sample
+     * @return the decision
+     */
+    public static Decision CPUTwoPlyMove(PlayerView view, LeaveTable leaves, int candidates, int racks)
+    {
+        LeaveTable applicable = view.getBagSize() == 0 ? null : leaves;
+        List<SimulatedMove> ranked = new TwoPlySearch(view.getTrie(), applicable).search(view.getBoard(),
+                view.getHand(), view.getUnseen(), candidates, racks, System.nanoTime());
+        Move best = ranked.isEmpty() ? null : ranked.get(0).getMove();
+        return decide(best, chooseExchange(view, best, applicable));
     }
 
     /**
-     * Computes the best horizontal play at the provided anchor and
-     * @param boardBeforeCPUMove the state of the board before the cpu makes its move.
-     * @param cpuHand the list of characters in the cpu's hand
-     * @param anchors the set of all anchor squares for this board
-     * @param square the particular square we're looking at right now
-     * @param verticalCrossCheckSets the vertical cross check sets for this board
-     * @param trie the trie representing every word in the accepted dictionary
-     * @param transposed true if the board provided is a transpose of the actual model, false otherwise
-     * @param bestCPUPlay a mutable instance of a triple containing
-     *                    (best possible board state after move,
-     *                    string, score for play)
+     * Returns what the CPU does with the turn when it plays the best move of the endgame, found by
+     * {@link EndgameSolver}. With the bag empty, the player's rack is exactly the tiles the CPU cannot see.
+     * A solver keeps its transposition table between turns, so the later turns of an endgame reuse the work of the
+     * earlier ones.
+     *
+     * @param view what the CPU can see of the game, with the bag empty
+     * @param budget the time and/or node budget for the search
+     * @param solver the solver to search with, built with the view's trie and kept from one turn to the next
+     * @return the decision
      */
-    private static void computeBestHorizontalPlayAtAnchor(List<List<Character>> boardBeforeCPUMove,
-                                                   List<Character> cpuHand,
-                                                   Set<Pair<Integer, Integer>> anchors,
-                                                   Pair<Integer, Integer> square,
-                                                   HashSet<Character>[][] verticalCrossCheckSets,
-                                                   Trie trie,
-                                                   boolean transposed,
-                                                   Triple<List<List<Character>>, String, Integer> bestCPUPlay) {
-        int col = square.getValue();
-        List<List<Character>> mutableBoard =
-                forEachBoardSquareAsNestedList((r, c) -> boardBeforeCPUMove.get(r).get(c));
-
-        OptionalInt left_exclusive = IntStream.iterate(col - 1, i -> i - 1)
-                .limit(col)
-                .filter(c -> boardBeforeCPUMove.get(square.getKey()).get(c) != ' '
-                        || anchors.contains(new Pair<>(square.getKey(), c)))
-                .findFirst();
-        int k = left_exclusive.isPresent() ? col - left_exclusive.getAsInt() - 1: col;
-        if (k == 0)
+    public static Decision CPUEndgameMove(PlayerView view, SearchBudget budget, EndgameSolver solver)
+    {
+        if (view.getBagSize() != 0)
         {
-            if (col == 0)
-            {
-                ExtendRight(boardBeforeCPUMove, mutableBoard, square, "", cpuHand,
-                        trie.getRoot(), verticalCrossCheckSets, trie, transposed, bestCPUPlay);
-            }
-            else if (boardBeforeCPUMove.get(square.getKey()).get(col - 1) != ' ')
-            {
-                String prefix = buildHorizontalWordForCoordinate(boardBeforeCPUMove,
-                        new Pair<>(square.getKey(), col - 1)).getKey();
-
-                ExtendRight(boardBeforeCPUMove, mutableBoard, square, prefix, cpuHand,
-                        trie.getNodeForPrefix(prefix), verticalCrossCheckSets, trie, transposed, bestCPUPlay);
-            }
+            throw new IllegalArgumentException("the bag is not empty");
         }
-        LeftPart(boardBeforeCPUMove, mutableBoard, square,"", cpuHand,
-                trie.getRoot(), verticalCrossCheckSets, k, k, trie, transposed, bestCPUPlay);
+        List<Character> playerHand = view.getUnseen().toList();
+        EndgameResult result = solver.solve(view.getBoard(), view.getHand(), playerHand, view.getScorelessTurns(),
+                view.getOpponentScorelessTurns(), budget);
+        return decide(result.getBestMove(), null);
     }
 
     /**
-     * A helper method for the recursive backtracking AI algorithm.
-     * @param boardBeforeMove the scrabble board before the move
-     * @param board a mutable board that represents the current state of the backtracking search
-     * @param square the anchor square
-     * @param partialWord the partial word formed so far
-     * @param tilesRemainingInRack the tiles remaining in the CPU's hand
-     * @param N the trienode currently representing the partial word
-     * @param crossCheckSets the vertical cross check sets for the provided scrabble board (boardBeforeMove)
-     * @param limit parameter for leftwards expansion
-     * @param maxLimit maximum value of parameter for leftwards expansion
-     * @param trie the trie representing the dictionary
-     * @param transposed whether the board is currently a transposition of the actual model of the scrabble board
-     * @param bestCPUPlay a mutable triple containing information about the cpu's best play
+     * Returns what the CPU does with the turn when it plays the move with the best expected outcome over the
+     * draws that could follow it, found by {@link PreEndgameAnalyzer}. The analyzer's endgame solvers keep their
+     * tables between turns, as the solver of {@link #CPUEndgameMove(PlayerView, SearchBudget, EndgameSolver)} does.
+     *
+     * @param view what the CPU can see of the game, with from 1 to PreEndgameAnalyzer.MAX_BAG_SIZE tiles in the bag
+     * @param candidates the number of candidate moves to consider
+     * @param timeLimitMillis the time the analysis may take, in milliseconds
+     * @param analyzer the analyzer to search with, built with the view's trie and kept from one turn to the next
+     * @return the decision
      */
-    private static void LeftPart(List<List<Character>> boardBeforeMove, List<List<Character>> board, Pair<Integer, Integer> square, String partialWord, List<Character> tilesRemainingInRack, TrieNode N, HashSet<Character>[][] crossCheckSets, int limit, int maxLimit, Trie trie, boolean transposed, Triple<List<List<Character>>, String, Integer> bestCPUPlay)
+    public static Decision CPUPreEndgameMove(PlayerView view, int candidates, long timeLimitMillis,
+                                             PreEndgameAnalyzer analyzer)
     {
-        ExtendRight(boardBeforeMove, board, square, partialWord, tilesRemainingInRack, N, crossCheckSets, trie, transposed, bestCPUPlay);
-        if (limit > 0)
-        {
-            N.getOutgoingEdges().keySet().forEach(c -> {
-                if (tilesRemainingInRack.contains((Character)c))
-                {
-                    for (int i = square.getValue() - maxLimit; i < square.getValue(); i++)
-                    {
-                        board.get(square.getKey()).set(i, board.get(square.getKey()).get(i + 1));
-                    }
-                    board.get(square.getKey()).set(square.getValue() - 1, c);
-                    tilesRemainingInRack.remove((Character)c);
-                    LeftPart(boardBeforeMove, board, square, partialWord + c, tilesRemainingInRack, N.getOutgoingEdges().get(c), crossCheckSets, limit - 1, maxLimit, trie, transposed, bestCPUPlay);
-                    tilesRemainingInRack.add(c);
-                    for (int i = square.getValue() - 1; i > square.getValue() - maxLimit; i--)
-                    {
-                        board.get(square.getKey()).set(i, board.get(square.getKey()).get(i - 1));
-                    }
-                    board.get(square.getKey()).set(square.getValue() - maxLimit,' ');
-                }
-            });
-        }
+        List<SimulatedMove> analysis = analyzer.analyze(view.getBoard(), view.getHand(), view.getUnseen().toList(),
+                view.getBagSize(), view.getOpponentScorelessTurns(), candidates, timeLimitMillis, System.nanoTime());
+        Move best = analysis.isEmpty() ? null : analysis.get(0).getMove();
+        return decide(best, chooseExchange(view, best, null));
     }
 
+    /**
+     * Returns what the player holding input's hand can see of input.
+     */
+    private static PlayerView view(Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input)
+    {
+        return new PlayerView(input.getA(), input.getB(), input.getC().size(),
+                UnseenTiles.of(input.getA(), input.getB()), 0, 0, input.getD());
+    }
 
     /**
-     * A helper method for the recursive backtracking AI algorithm. Extends the left part created by leftPart(...)
+     * Returns the decision to make exchange if it is not null, else to play bestCPUPlay, or to pass if that is
+     * null too.
+     */
+    private static Decision decide(Move bestCPUPlay, Exchange exchange)
+    {
+        return exchange != null ? Decision.exchange(exchange.getThrown())
+                : bestCPUPlay != null ? Decision.play(bestCPUPlay) : Decision.pass();
+    }
+
+    /**
+     * Returns the exchange the CPU should make instead of playing bestCPUPlay, or null to play it (or pass).
      *
-     * @param boardBeforeCPUMove   the scrabble board before the move
-     * @param board a mutable board that represents the current state of the backtracking search
-     * @param square the current square to fill in
-     * @param partialWord the partial word formed so far
-     * @param tilesRemainingInRack tiles remaining in CPU's hand
-     * @param N the trie node corresponding to partialWord
-     * @param crossCheckSets the vertical cross-check sets for this board (boardBeforeCPUMove)
-     * @param trie the trie representing the dictionary
-     * @param transposed whether the board is currently a transposition of the actual model of the scrabble board
-     * @param bestCPUPlay a mutable triple containing information about the cpu's best play
+     * Exchanges need at least 7 tiles in the bag. Without a leave table, the CPU swaps its whole hand when it has
+     * no move. With one, it weighs the best of the 127 exchanges from a full hand against the equity of its best
+     * move, and exchanges if that keeps a leave worth more.
      */
-    private static void ExtendRight(List<List<Character>> boardBeforeCPUMove, List<List<Character>> board, Pair<Integer, Integer> square, String partialWord, List<Character> tilesRemainingInRack, TrieNode N, HashSet<Character>[][] crossCheckSets, Trie trie, boolean transposed, Triple<List<List<Character>>, String, Integer> bestCPUPlay)
+    private static Exchange chooseExchange(PlayerView view, Move bestCPUPlay, LeaveTable leaves)
     {
-        if (square.getValue() >= 15)
-            return;
-        if (board.get(square.getKey()).get(square.getValue()) == ' ')
+        List<Character> cpuHand = view.getHand();
+        if (view.getBagSize() < 7 || cpuHand.isEmpty())
         {
-            if (N.isWord())
-            {
-                LegalMove(boardBeforeCPUMove, board, partialWord, trie, transposed, bestCPUPlay);
-            }
-            N.getOutgoingEdges().keySet().forEach(c -> {
-                if (tilesRemainingInRack.contains(c) && crossCheckSets[square.getKey()][square.getValue()].contains(c))
-                {
-                    tilesRemainingInRack.remove((Character)c);
-                    board.get(square.getKey()).set(square.getValue(), c);
-                    ExtendRight(boardBeforeCPUMove, board, new Pair<>(square.getKey(), square.getValue() + 1), partialWord + c, tilesRemainingInRack, N.getOutgoingEdges().get(c), crossCheckSets, trie, transposed, bestCPUPlay);
-                    board.get(square.getKey()).set(square.getValue(), ' ');
-                    tilesRemainingInRack.add(c);
-                }
-            });
+            return null;
         }
-        else
+        if (leaves == null)
         {
-            if (N.getOutgoingEdges().containsKey(board.get(square.getKey()).get(square.getValue())))
-            {
-                ExtendRight(boardBeforeCPUMove, board, new Pair<>(square.getKey(), square.getValue() + 1), partialWord + board.get(square.getKey()).get(square.getValue()), tilesRemainingInRack, N.getOutgoingEdges().get(board.get(square.getKey()).get(square.getValue())), crossCheckSets, trie, transposed, bestCPUPlay);
-            }
+            return bestCPUPlay == null ? Exchange.all(cpuHand) : null;
+        }
+        Exchange exchange = Exchange.best(cpuHand, leaves);
+        if (bestCPUPlay == null)
+        {
+            return exchange;
         }
+        int[] leave = new int[26];
+        cpuHand.forEach(tile -> leave[tile - 'A']++);
+        bestCPUPlay.getTilesPlaced().forEach(tile -> leave[tile - 'A']--);
+        int playEquity = bestCPUPlay.getScore() * LeaveTable.SCALE + leaves.value(leave);
+        return exchange.getLeaveValue() > playEquity ? exchange : null;
     }
 
     /**
-     *
-     * @param mModel the board before the CPU move
-     * @param b         the state of the board (possibly transposed!) after identifying a legal move
-     * @param partialWord the word to consider as a possible legal move
-     * @param trie  the trie representing the dictionary
-     * @param transposed whether this board is transposed
-     * @param bestCPUPlay the best CPU play identified up until this point in time
+     * Carries decision out on input: throws the tiles back if it is an exchange, else plays its move, or passes.
+     * The CPU hand is refilled from the front of the bag afterwards.
      */
-    private static void LegalMove( List<List<Character>> mModel,
-                            List<List<Character>> b, String partialWord,
-                           Trie trie,
-                           boolean transposed,
-                           Triple<List<List<Character>>, String, Integer> bestCPUPlay) {
-
-        List<List<Character>> mainModel = transposed ? forEachBoardSquareAsNestedList((r, c) -> mModel.get(c).get(r)) : mModel;
-        List<List<Character>> board = transposed ? forEachBoardSquareAsNestedList((r, c) -> b.get(c).get(r)) : b;
-
-        // Get all pairs in which board differs from mainModel.
-        List<Pair<Integer, Integer>> changed_coords_by_cpu = getCoordinatesListForBoard().stream().filter(x -> {
-            int r = x.getKey();
-            int c = x.getValue();
-            return board.get(r).get(c) != mainModel.get(r).get(c);
-        }).collect(Collectors.toList());
-
-        if (!validMove(mainModel, board, trie)) {
-            return;
-        }
+    private static Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> play(
+            Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Trie> input, Decision decision)
+    {
 
-        int score;
-        if (transposed)
-        {
-            score = scoreVertical(mainModel, board, changed_coords_by_cpu.get(0));
-            score += changed_coords_by_cpu.stream().map(p -> scoreHorizontal(mainModel, board, p)).reduce((x, y) -> x+y).get();
-        }
-        else
+        List<List<Character>> boardBeforeCPUMove = input.getA();
+        List<Character> cpuHand = input.getB();
+        Queue<Character> tilesRemaining = input.getC();
+
+        if (decision.getTurn() == GameEngine.Turn.EXCHANGE)
         {
-            score = scoreHorizontal(mainModel, board, changed_coords_by_cpu.get(0));
-            score += changed_coords_by_cpu.stream().map(p -> scoreVertical(mainModel, board, p)).reduce((x, y) -> x+y).get();
+            // Draw as many tiles as are thrown, then return each thrown tile to a uniformly random place in the bag.
+            // The bag is already in random order, so it stays in random order without being shuffled again.
+            List<Character> thrown = decision.getThrown();
+            List<Character> newCPUHand = new ArrayList<>(cpuHand);
+            thrown.forEach(newCPUHand::remove);
+            Character[] bag = tilesRemaining.toArray(new Character[tilesRemaining.size()]);
+            Random random = ThreadLocalRandom.current();
+            for (int i = thrown.size() - 1; i >= 0; i--)
+            {
+                newCPUHand.add(bag[i]);
+                bag[i] = thrown.get(i);
+                int j = i + random.nextInt(bag.length - i);
+                Character t = bag[i];
+                bag[i] = bag[j];
+                bag[j] = t;
+            }
+            return new Quadruple<>(forEachBoardSquareAsNestedList((r, c) -> boardBeforeCPUMove.get(r).get(c)),
+                    newCPUHand, new ArrayDeque<>(Arrays.asList(bag)), new Pair<>("", 0));
         }
 
-        if (changed_coords_by_cpu.size() == 7)
+        List<Character> newCPUHand = new ArrayList<>(cpuHand);
+        Queue<Character> newTilesRemaining = new ArrayDeque<>(tilesRemaining);
+        Move bestCPUPlay = decision.getMove();
+
+        if (bestCPUPlay == null)
         {
-            score += 50;
+            return new Quadruple<>(forEachBoardSquareAsNestedList((r, c) -> boardBeforeCPUMove.get(r).get(c)),
+                    newCPUHand, newTilesRemaining, new Pair<>("", 0));
         }
 
-        if (score > bestCPUPlay.getC())
+        List<List<Character>> bestScoringBoard = bestCPUPlay.applyTo(boardBeforeCPUMove);
+        bestCPUPlay.getTilesPlaced().forEach(tile -> newCPUHand.remove(tile));
+
+        int score = bestCPUPlay.getScore();
+
+        for (int k = newCPUHand.size(); k < 7; k++)
         {
-            bestCPUPlay.setA(forEachBoardSquareAsNestedList((r, c) -> board.get(r).get(c)));
-            bestCPUPlay.setB(partialWord.concat(""));
-            bestCPUPlay.setC(score);
+            Character c = newTilesRemaining.poll();
+            if (c != null)
+            {
+                newCPUHand.add(c);
+            }
         }
+
+        return new Quadruple<>(bestScoringBoard, newCPUHand, newTilesRemaining, new Pair<>(bestCPUPlay.getWord(), score));
     }
 
-}
 
+    /**
+     * Returns the n highest scoring moves the provided hand can play on the provided board, best first.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @param n the number of moves to return
+     * @return at most n moves, in descending order of score
+     */
+    public static List<Move> topMoves(List<List<Character>> board, List<Character> hand, Trie trie, int n)
+    {
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        return generator.topMoves(hand, n);
+    }
 
+    /**
+     * Returns the n highest scoring moves the provided hand can play on the provided board that are found
+     * before the budget runs out, best first, along with whether the search completed.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @param n the number of moves to return
+     * @param budget the time and/or node budget for the search
+     * @return the best moves found, with whether the search completed
+     */
+    public static SearchResult search(List<List<Character>> board, List<Character> hand, Trie trie, int n, SearchBudget budget)
+    {
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        return generator.search(hand, n, budget);
+    }
+
+    /**
+     * Simulates the best candidate moves the provided hand can play on the provided board against random racks
+     * drawn from the tiles the hand's owner cannot see, best first. See {@link Simulator}.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @param candidates the number of candidate moves to simulate
+     * @param maxIterations the most iterations to run
+     * @return the simulated candidates, in descending order of mean spread
+     */
+    public static List<SimulatedMove> simulate(List<List<Character>> board, List<Character> hand, Trie trie,
+                                               int candidates, int maxIterations)
+    {
+        return simulate(board, hand, trie, UnseenTiles.of(board, hand), candidates, maxIterations);
+    }
+
+    /**
+     * Simulates the best candidate moves the provided hand can play on the provided board against opponent racks
+     * sampled from a tracker of the unseen tiles, which may hold an inferred opponent leave, best first.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @param unseen the tiles the hand's owner cannot see
+     * @param candidates the number of candidate moves to simulate
+     * @param maxIterations the most iterations to run
+     * @return the simulated candidates, in descending order of mean spread
+     */
+    public static List<SimulatedMove> simulate(List<List<Character>> board, List<Character> hand, Trie trie,
+                                               UnseenTiles unseen, int candidates, int maxIterations)
+    {
+        return new Simulator(trie, LeaveTable.standard()).simulate(board, hand, unseen, candidates, maxIterations,
+                System.nanoTime());
+    }
+
+    /**
+     * Passes every legal move the provided hand can play on the provided board to consumer, as it is found.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @param consumer the callback receiving each move with its placement and score
+     */
+    public static void generateMoves(List<List<Character>> board, List<Character> hand, Trie trie, MoveConsumer consumer)
+    {
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        generator.generate(hand, consumer);
+    }
+
+    /**
+     * Returns a lazy stream of the legal moves the provided hand can play on the provided board.
+     *
+     * Moves are searched for only as the stream pulls them, so short-circuiting operations such as
+     * anyMatch or findFirst stop the search as soon as they have their answer.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param trie the trie containing the dictionary of valid words
+     * @return a sequential stream of every legal move; call parallel() to split the search by anchor
+     */
+    public static Stream<Move> streamMoves(List<List<Character>> board, List<Character> hand, Trie trie)
+    {
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        return generator.stream(hand);
+    }
+}
@@ -0,0 +1,111 @@
+package API;
+
+import javafx.util.Pair;
+import util.TopKHeap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the best moves for many positions at once, in parallel on a pool of worker threads of its own.
+ *
+ * Every worker keeps one generator, whose board, cross-check tables and rack counts are overwritten by each
+ * position it takes, and one heap for the moves it finds, so a batch allocates little beyond its results.
+ * Positions are read in place: boards are not copied or wrapped on the way in. All workers share one trie
+ * and one leave table, which are only read.
+ */
+public class BatchAnalyzer implements AutoCloseable {
+
+    private final LeaveTable leaves;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The scratch space of each worker thread.
+     */
+    private final ThreadLocal<MoveGenerator> generators;
+    private final ThreadLocal<TopKHeap<Move>> heaps = new ThreadLocal<>();
+
+    /**
+     * Constructs an analyzer with a worker for each available processor.
+     * @param trie the trie containing the dictionary of valid words
+     * @param leaves the values of rack leaves to rank moves by, or null to rank by score
+     */
+    public BatchAnalyzer(Trie trie, LeaveTable leaves)
+    {
+        this(trie, leaves, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an analyzer.
+     * @param trie the trie containing the dictionary of valid words
+     * @param leaves the values of rack leaves to rank moves by, or null to rank by score
+     * @param threads the number of worker threads
+     */
+    public BatchAnalyzer(Trie trie, LeaveTable leaves, int threads)
+    {
+        this.leaves = leaves;
+        this.pool = new ForkJoinPool(threads);
+        this.generators = ThreadLocal.withInitial(() -> new MoveGenerator(trie));
+    }
+
+    /**
+     * Returns the n best moves for each position, best first, in the order of the positions.
+     *
+     * @param positions pairs of a scrabble board and the tiles in the rack to play on it
+     * @param n the number of moves to return for each position
+     * @return for each position, at most n moves in descending order of equity, or of score with no leave table
+     */
+    public List<List<Move>> analyze(List<Pair<List<List<Character>>, List<Character>>> positions, int n)
+    {
+        // Each task writes only its own slot, and get() makes every write visible here.
+        List<List<Move>> results = new ArrayList<>(Collections.nCopies(positions.size(), null));
+        try
+        {
+            pool.submit(() -> IntStream.range(0, positions.size()).parallel().forEach(i -> {
+                Pair<List<List<Character>>, List<Character>> position = positions.get(i);
+                results.set(i, analyze(position.getKey(), position.getValue(), n));
+            })).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while analyzing", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("analysis failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Shuts down the worker threads. Batches already running are finished.
+     */
+    @Override
+    public void close()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the n best moves for hand on board, using the calling worker's scratch space.
+     */
+    private List<Move> analyze(List<List<Character>> board, List<Character> hand, int n)
+    {
+        MoveGenerator generator = generators.get();
+        TopKHeap<Move> heap = heaps.get();
+        if (heap == null || heap.capacity() != n)
+        {
+            heap = new TopKHeap<>(n);
+            heaps.set(heap);
+        }
+        generator.setBoard(board);
+        generator.search(hand, heap, SearchBudget.unlimited(), leaves);
+        return heap.toSortedList();
+    }
+}
@@ -43,6 +43,28 @@ public class Board {
                     Arrays.asList(" ","DW"," "," "," ","TL"," "," ", " ", "TL", " ", " ", " ", "DW", " "),
                     Arrays.asList("TW"," "," ","DL"," "," "," ","TW", " ", " ", " ", "DL", " ", " ", "TW"));
 
+    /**
+     * The letter multiplier of each square on the board, derived from specialTiles.
+     */
+    static final int[][] letterMultipliers = new int[15][15];
+
+    /**
+     * The word multiplier of each square on the board, derived from specialTiles.
+     */
+    static final int[][] wordMultipliers = new int[15][15];
+
+    static
+    {
+        for (int r = 0; r < 15; r++)
+        {
+            for (int c = 0; c < 15; c++)
+            {
+                String special = specialTiles.get(r).get(c);
+                letterMultipliers[r][c] = special.equals("DL") ? 2 : special.equals("TL") ? 3 : 1;
+                wordMultipliers[r][c] = special.equals("DW") ? 2 : special.equals("TW") ? 3 : 1;
+            }
+        }
+    }
 
     /**
      * Returns if the board state in boardAfterAttemptedMove is a valid play off of boardBeforeMove
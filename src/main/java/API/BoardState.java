@@ -0,0 +1,191 @@
+package API;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable scrabble board that shares structure with the boards it was made from.
+ *
+ * The board is an array of 15 immutable rows. Playing a move on it makes a new board holding new copies of
+ * only the rows the move placed tiles in, and the same row objects as before for every other row: a play
+ * across copies one row of 15 squares and the array of row references, and a play down copies one row per
+ * tile placed. A history of boards is then a few rows per turn rather than a full board per turn, and any
+ * number of threads may read any board of it while the game goes on, since nothing in it ever changes.
+ *
+ * A board state is a {@link List} of rows, like every other board in this code base, so it can be passed
+ * anywhere a board is read. Any attempt to change it throws {@link UnsupportedOperationException}.
+ */
+public final class BoardState extends AbstractList<List<Character>> implements RandomAccess {
+
+    /**
+     * The board with no tiles on it.
+     */
+    public static final BoardState EMPTY;
+
+    static
+    {
+        Row empty = new Row(new char[]{' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' '});
+        Row[] rows = new Row[15];
+        for (int r = 0; r < 15; r++)
+        {
+            rows[r] = empty;
+        }
+        EMPTY = new BoardState(rows);
+    }
+
+    private final Row[] rows;
+
+    /**
+     * One row of the board, never written to after it is made.
+     */
+    private static final class Row extends AbstractList<Character> implements RandomAccess {
+
+        private final char[] squares;
+
+        Row(char[] squares)
+        {
+            this.squares = squares;
+        }
+
+        @Override
+        public Character get(int c)
+        {
+            return squares[c];
+        }
+
+        @Override
+        public int size()
+        {
+            return 15;
+        }
+    }
+
+    private BoardState(Row[] rows)
+    {
+        this.rows = rows;
+    }
+
+    /**
+     * Returns board as a board state: board itself if it already is one, and a copy of it otherwise.
+     *
+     * @param board the scrabble board
+     * @return the board state
+     */
+    public static BoardState of(List<List<Character>> board)
+    {
+        return board instanceof BoardState ? (BoardState) board : EMPTY.with(board);
+    }
+
+    /**
+     * Returns the board after move, sharing every row the move places no tile in.
+     *
+     * @param move a move generated for this board
+     * @return the board after the move
+     */
+    public BoardState play(Move move)
+    {
+        Row[] after = rows.clone();
+        String word = move.getWord();
+        if (move.isHorizontal())
+        {
+            char[] squares = rows[move.getRow()].squares.clone();
+            word.getChars(0, word.length(), squares, move.getCol());
+            after[move.getRow()] = new Row(squares);
+        }
+        else
+        {
+            for (int i = 0; i < word.length(); i++)
+            {
+                int r = move.getRow() + i;
+                if (rows[r].squares[move.getCol()] != word.charAt(i))
+                {
+                    char[] squares = rows[r].squares.clone();
+                    squares[move.getCol()] = word.charAt(i);
+                    after[r] = new Row(squares);
+                }
+            }
+        }
+        return new BoardState(after);
+    }
+
+    /**
+     * Returns a board state holding the letters of board, sharing every row of this board whose letters it
+     * has unchanged. Comparing against the board before a move so keeps only the rows the move changed.
+     *
+     * @param board the scrabble board
+     * @return the board state
+     */
+    public BoardState with(List<List<Character>> board)
+    {
+        if (board instanceof BoardState)
+        {
+            return (BoardState) board;
+        }
+        Row[] after = rows.clone();
+        boolean changed = false;
+        for (int r = 0; r < 15; r++)
+        {
+            List<Character> row = board.get(r);
+            char[] squares = rows[r].squares;
+            for (int c = 0; c < 15; c++)
+            {
+                if (row.get(c) != squares[c])
+                {
+                    squares = new char[15];
+                    for (int k = 0; k < 15; k++)
+                    {
+                        squares[k] = row.get(k);
+                    }
+                    after[r] = new Row(squares);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed ? new BoardState(after) : this;
+    }
+
+    /**
+     * Returns the letter on square (r, c), or ' ' if it is empty.
+     *
+     * @param r the row
+     * @param c the column
+     * @return the letter
+     */
+    public char charAt(int r, int c)
+    {
+        return rows[r].squares[c];
+    }
+
+    /**
+     * Returns the number of rows this board shares with other, which is 15 for boards holding the same rows.
+     *
+     * @param other another board state
+     * @return the rows they share
+     */
+    public int sharedRows(BoardState other)
+    {
+        int shared = 0;
+        for (int r = 0; r < 15; r++)
+        {
+            if (rows[r] == other.rows[r])
+            {
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    @Override
+    public List<Character> get(int r)
+    {
+        return rows[r];
+    }
+
+    @Override
+    public int size()
+    {
+        return 15;
+    }
+}
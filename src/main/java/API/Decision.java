@@ -0,0 +1,107 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a strategy decides to do with its turn: play a move, throw some tiles back into the bag, or pass. The
+ * {@link GameEngine} carries the decision out, drawing any tiles it calls for from its own bag.
+ */
+public final class Decision {
+
+    private static final Decision PASS = new Decision(GameEngine.Turn.PASS, null, Collections.emptyList());
+
+    /**
+     * The kind of turn decided on.
+     */
+    private final GameEngine.Turn turn;
+
+    /**
+     * The move to play, or null unless the turn is a play.
+     */
+    private final Move move;
+
+    /**
+     * The tiles to throw back, empty unless the turn is an exchange.
+     */
+    private final List<Character> thrown;
+
+    private Decision(GameEngine.Turn turn, Move move, List<Character> thrown)
+    {
+        this.turn = turn;
+        this.move = move;
+        this.thrown = thrown;
+    }
+
+    /**
+     * Returns the decision to play move.
+     * @param move the move to play, generated for the board the strategy was shown
+     * @return the decision
+     */
+    public static Decision play(Move move)
+    {
+        if (move == null)
+        {
+            throw new IllegalArgumentException("no move to play");
+        }
+        return new Decision(GameEngine.Turn.PLAY, move, Collections.emptyList());
+    }
+
+    /**
+     * Returns the decision to throw tiles back into the bag.
+     * @param thrown the tiles to throw back, from the rack the strategy was shown
+     * @return the decision
+     */
+    public static Decision exchange(List<Character> thrown)
+    {
+        if (thrown.isEmpty())
+        {
+            throw new IllegalArgumentException("no tiles to exchange");
+        }
+        return new Decision(GameEngine.Turn.EXCHANGE, null, Collections.unmodifiableList(new ArrayList<>(thrown)));
+    }
+
+    /**
+     * Returns the decision to pass.
+     * @return the decision
+     */
+    public static Decision pass()
+    {
+        return PASS;
+    }
+
+    /**
+     * Returns the kind of turn decided on.
+     * @return PLAY, EXCHANGE or PASS
+     */
+    public GameEngine.Turn getTurn()
+    {
+        return turn;
+    }
+
+    /**
+     * Returns the move to play.
+     * @return move, or null if the turn is not a play
+     */
+    public Move getMove()
+    {
+        return move;
+    }
+
+    /**
+     * Returns the tiles to throw back into the bag.
+     * @return a read-only list of the tiles, empty if the turn is not an exchange
+     */
+    public List<Character> getThrown()
+    {
+        return thrown;
+    }
+
+    @Override
+    public String toString()
+    {
+        return turn == GameEngine.Turn.PLAY ? "PLAY " + move : turn == GameEngine.Turn.EXCHANGE ? "EXCHANGE " + thrown
+                : "PASS";
+    }
+}
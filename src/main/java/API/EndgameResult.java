@@ -0,0 +1,107 @@
+package API;
+
+/**
+ * The outcome of an endgame search: the move to play, the spread it leads to, and how the search went.
+ */
+public class EndgameResult {
+
+    /**
+     * The move to play, or null to pass.
+     */
+    private final Move bestMove;
+
+    /**
+     * The spread from here to the end of the game with best play by both sides, from the mover's point of view.
+     */
+    private final int value;
+
+    /**
+     * The depth, in plies, of the deepest search that completed.
+     */
+    private final int depth;
+
+    /**
+     * True if the search saw every line through to the end of the game, so that value is exact.
+     */
+    private final boolean solved;
+
+    /**
+     * The number of positions searched and the wall-clock time taken.
+     */
+    private final long nodes, elapsedNanos;
+
+    /**
+     * Constructs an endgame result.
+     * @param bestMove the move to play, or null to pass
+     * @param value the spread from here to the end of the game, from the mover's point of view
+     * @param depth the depth of the deepest search that completed, in plies
+     * @param solved true if value is exact
+     * @param nodes the number of positions searched
+     * @param elapsedNanos the time the search took, in nanoseconds
+     */
+    public EndgameResult(Move bestMove, int value, int depth, boolean solved, long nodes, long elapsedNanos)
+    {
+        this.bestMove = bestMove;
+        this.value = value;
+        this.depth = depth;
+        this.solved = solved;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the move to play, or null to pass.
+     * @return bestMove
+     */
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Returns the spread from here to the end of the game with best play, from the mover's point of view.
+     * @return value
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the depth, in plies, of the deepest search that completed.
+     * @return depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns true if the search saw through to the end of the game, so that getValue() is exact.
+     * @return solved
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns the number of positions searched.
+     * @return nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the time the search took, in nanoseconds.
+     * @return elapsedNanos
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of positions searched per second.
+     * @return the node rate
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,489 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A perfect-information solver for the endgame, when the bag is empty and each player can deduce the other's rack.
+ *
+ * Positions are searched by negamax with alpha-beta pruning, deepening one ply at a time until either every line
+ * reaches the end of the game or the budget runs out, in which case the move of the deepest completed search is
+ * returned. A line that is cut off by the depth limit is scored by the tiles left on each rack.
+ *
+ * The game ends as in the Controller: when a player plays out, scoring twice the value of the other rack, or when
+ * a player makes a third scoreless turn in a row. Positions are cached in a fixed-size transposition table keyed
+ * by Zobrist hashes of the board, both racks, the side to move and the scoreless turn counts. Moves are tried
+ * best first: the move cached for the position, then plays that go out, then by score, with passing last.
+ * The table is kept from one solve to the next, so endgames that share positions share their work.
+ *
+ * A solver is not thread safe; use one per thread.
+ */
+public class EndgameSolver {
+
+    /**
+     * The deepest search attempted, in plies.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * The depth recorded for a table entry whose value is exact to the end of the game.
+     */
+    private static final int SOLVED_DEPTH = Byte.MAX_VALUE;
+
+    /**
+     * The scoreless turns in a row that end the game.
+     */
+    private static final int MAX_SCORELESS_TURNS = 3;
+
+    /**
+     * The kinds of table entry: an exact value, a lower bound or an upper bound.
+     */
+    private static final byte EXACT = 0, LOWER = 1, UPPER = 2;
+
+    private static final int INFINITY = 1 << 20;
+
+    /**
+     * Stands for a pass in the transposition table.
+     */
+    private static final Move PASS = new Move(0, 0, true, "", 0, 0);
+
+    /**
+     * Zobrist codes for the number of each letter on each rack, the side to move and the scoreless turn counts.
+     */
+    private static final long[][][] RACK_KEYS = new long[2][26][8];
+    private static final long[][] SCORELESS_KEYS = new long[2][MAX_SCORELESS_TURNS];
+    private static final long SIDE_KEY;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(0xE5D6A3EL);
+        for (long[][] player : RACK_KEYS)
+        {
+            for (long[] letter : player)
+            {
+                for (int i = 0; i < letter.length; i++)
+                {
+                    letter[i] = random.nextLong();
+                }
+            }
+        }
+        for (long[] player : SCORELESS_KEYS)
+        {
+            for (int i = 0; i < player.length; i++)
+            {
+                player[i] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    /**
+     * The transposition table, indexed by the low bits of the position hash.
+     */
+    private final long[] tableKeys;
+    private final int[] tableValues;
+    private final byte[] tableDepths, tableFlags;
+    private final Move[] tableMoves;
+    private final int tableMask;
+
+    /**
+     * The generator holding the board of the position being searched. Moves are played on it on the way down
+     * and taken back on the way up.
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * The moves and rack of each ply, reused from search to search.
+     */
+    private final List<List<Move>> moveLists = new ArrayList<>();
+    private final List<List<Character>> rackLists = new ArrayList<>();
+
+    /**
+     * The state of the search in progress: the racks, the scoreless turn counts, the position hash, the budget,
+     * the number of nodes searched, and whether the current subtree was cut off by the depth limit anywhere.
+     */
+    private final int[][] racks = new int[2][26];
+    private final int[] scoreless = new int[2];
+    private long hash, nodes;
+    private SearchBudget budget;
+    private boolean aborted, cutOff;
+    private Move rootBest;
+
+    /**
+     * Constructs a solver with a transposition table of 2^20 entries.
+     * @param trie the trie containing the dictionary of valid words
+     */
+    public EndgameSolver(Trie trie)
+    {
+        this(trie, 20);
+    }
+
+    /**
+     * Constructs a solver.
+     * @param trie the trie containing the dictionary of valid words
+     * @param tableBits the log2 of the number of transposition table entries
+     */
+    public EndgameSolver(Trie trie, int tableBits)
+    {
+        if (tableBits < 1 || tableBits > 28)
+        {
+            throw new IllegalArgumentException("tableBits must be between 1 and 28: " + tableBits);
+        }
+        this.generator = new MoveGenerator(trie);
+        int size = 1 << tableBits;
+        tableMask = size - 1;
+        tableKeys = new long[size];
+        tableValues = new int[size];
+        tableDepths = new byte[size];
+        tableFlags = new byte[size];
+        tableMoves = new Move[size];
+        for (int i = 0; i <= MAX_DEPTH; i++)
+        {
+            moveLists.add(new ArrayList<>());
+            rackLists.add(new ArrayList<>(7));
+        }
+    }
+
+    /**
+     * Finds the best move for the player to move in an endgame in which neither player has just made a scoreless
+     * turn.
+     *
+     * @param board the scrabble board
+     * @param hand the rack of the player to move
+     * @param opponentHand the rack of the other player
+     * @param budget the budget for the search
+     * @return the move to play and its value, from the deepest search completed within the budget
+     */
+    public EndgameResult solve(List<List<Character>> board, List<Character> hand, List<Character> opponentHand,
+                               SearchBudget budget)
+    {
+        return solve(board, hand, opponentHand, 0, 0, budget);
+    }
+
+    /**
+     * Finds the best move for the player to move in an endgame. A player whose run of scoreless turns is one short
+     * of ending the game ends it by passing.
+     *
+     * @param board the scrabble board
+     * @param hand the rack of the player to move
+     * @param opponentHand the rack of the other player
+     * @param scorelessTurns the scoreless turns in a row the player to move has taken
+     * @param opponentScorelessTurns the scoreless turns in a row the other player has taken
+     * @param budget the budget for the search
+     * @return the move to play and its value, from the deepest search completed within the budget
+     * @throws IllegalArgumentException if either run of scoreless turns has already ended the game
+     */
+    public EndgameResult solve(List<List<Character>> board, List<Character> hand, List<Character> opponentHand,
+                               int scorelessTurns, int opponentScorelessTurns, SearchBudget budget)
+    {
+        if (scorelessTurns < 0 || scorelessTurns >= MAX_SCORELESS_TURNS
+                || opponentScorelessTurns < 0 || opponentScorelessTurns >= MAX_SCORELESS_TURNS)
+        {
+            throw new IllegalArgumentException("scoreless turns must be from 0 to " + (MAX_SCORELESS_TURNS - 1)
+                    + ": " + scorelessTurns + ", " + opponentScorelessTurns);
+        }
+        long startTime = System.nanoTime();
+        generator.setBoard(board);
+        hash = MoveCache.boardHash(board);
+        loadRack(0, hand);
+        loadRack(1, opponentHand);
+        scoreless[0] = scorelessTurns;
+        scoreless[1] = opponentScorelessTurns;
+        hash ^= SCORELESS_KEYS[0][scorelessTurns] ^ SCORELESS_KEYS[1][opponentScorelessTurns];
+        nodes = 0;
+        aborted = false;
+        this.budget = budget;
+        budget.start();
+
+        Move best = null;
+        int value = 0, depth = 0;
+        boolean solved = false;
+        for (int d = 1; d <= MAX_DEPTH && !solved; d++)
+        {
+            cutOff = false;
+            rootBest = null;
+            int v = negamax(0, d, -INFINITY, INFINITY, 0);
+            if (aborted)
+            {
+                break;
+            }
+            best = rootBest == PASS ? null : rootBest;
+            value = v;
+            depth = d;
+            solved = !cutOff;
+        }
+        if (depth == 0)
+        {
+            // Not even one ply fit in the budget: fall back to the highest scoring move.
+            best = generator.search(hand, 1, SearchBudget.unlimited()).getBestMove();
+            value = best == null ? 0 : best.getScore();
+        }
+        this.budget = null;
+        return new EndgameResult(best, value, depth, solved, nodes, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Empties the transposition table.
+     */
+    public void clear()
+    {
+        Arrays.fill(tableKeys, 0);
+        Arrays.fill(tableMoves, null);
+    }
+
+    /**
+     * Returns the value of the position at ply for the player side, who is to move, searching depth plies.
+     */
+    private int negamax(int ply, int depth, int alpha, int beta, int side)
+    {
+        if (budget.isExhausted(nodes))
+        {
+            aborted = true;
+            return 0;
+        }
+        nodes++;
+
+        int slot = (int) hash & tableMask;
+        Move tableMove = null;
+        boolean usedEstimate = false;
+        if (tableKeys[slot] == hash && tableMoves[slot] != null)
+        {
+            tableMove = tableMoves[slot];
+            // At the root the table only orders moves, so that a best move is always found.
+            if (tableDepths[slot] >= depth && ply > 0)
+            {
+                int stored = tableValues[slot];
+                usedEstimate = tableDepths[slot] != SOLVED_DEPTH;
+                if (tableFlags[slot] == EXACT)
+                {
+                    cutOff |= usedEstimate;
+                    return stored;
+                }
+                if (tableFlags[slot] == LOWER)
+                {
+                    alpha = Math.max(alpha, stored);
+                }
+                else
+                {
+                    beta = Math.min(beta, stored);
+                }
+                if (alpha >= beta)
+                {
+                    cutOff |= usedEstimate;
+                    return stored;
+                }
+            }
+        }
+        if (depth == 0)
+        {
+            return leaf(side);
+        }
+
+        List<Move> moves = orderedMoves(ply, side, tableMove);
+        boolean outerCutOff = cutOff;
+        cutOff = usedEstimate;
+        int alphaOriginal = alpha;
+        int best = -INFINITY;
+        Move bestMove = null;
+        for (Move move : moves)
+        {
+            int value = move == PASS ? pass(ply, depth, alpha, beta, side) : play(ply, depth, alpha, beta, side, move);
+            if (aborted)
+            {
+                return 0;
+            }
+            if (value > best)
+            {
+                best = value;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta)
+            {
+                break;
+            }
+        }
+
+        tableKeys[slot] = hash;
+        tableValues[slot] = best;
+        tableDepths[slot] = (byte) (cutOff ? depth : SOLVED_DEPTH);
+        tableFlags[slot] = best <= alphaOriginal ? UPPER : best >= beta ? LOWER : EXACT;
+        tableMoves[slot] = bestMove;
+        cutOff |= outerCutOff;
+        if (ply == 0)
+        {
+            rootBest = bestMove;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the estimated value for side, to move, of a position at the depth limit: the tiles each player is
+     * left holding. Leaves are scored without setting up their board, since the board does not enter into it.
+     */
+    private int leaf(int side)
+    {
+        nodes++;
+        cutOff = true;
+        return rackValue(1 - side) - rackValue(side);
+    }
+
+    /**
+     * Returns the value for side of playing move, and restores the position afterwards.
+     */
+    private int play(int ply, int depth, int alpha, int beta, int side, Move move)
+    {
+        long savedHash = hash;
+        int savedScoreless = scoreless[side];
+        String word = move.getWord();
+        int start = move.isHorizontal() ? move.getCol() : move.getRow();
+        for (int i = 0; i < word.length(); i++)
+        {
+            if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+            {
+                char ch = word.charAt(i);
+                int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+                int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+                hash ^= MoveCache.squareKey(r, c, ch);
+                setCount(side, ch - 'A', racks[side][ch - 'A'] - 1);
+            }
+        }
+        setScoreless(side, 0);
+        hash ^= SIDE_KEY;
+
+        int value;
+        if (rackSize(side) == 0)
+        {
+            value = move.getScore() + 2 * rackValue(1 - side);
+        }
+        else if (depth == 1)
+        {
+            value = move.getScore() - leaf(1 - side);
+        }
+        else
+        {
+            generator.play(move);
+            value = move.getScore() - negamax(ply + 1, depth - 1, -beta, -alpha, 1 - side);
+            generator.unplay(move);
+        }
+
+        for (int i = 0; i < word.length(); i++)
+        {
+            if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+            {
+                racks[side][word.charAt(i) - 'A']++;
+            }
+        }
+        scoreless[side] = savedScoreless;
+        hash = savedHash;
+        return value;
+    }
+
+    /**
+     * Returns the value for side of passing, and restores the position afterwards.
+     */
+    private int pass(int ply, int depth, int alpha, int beta, int side)
+    {
+        if (scoreless[side] + 1 == MAX_SCORELESS_TURNS)
+        {
+            return 0;
+        }
+        if (depth == 1)
+        {
+            return -leaf(1 - side);
+        }
+        long savedHash = hash;
+        setScoreless(side, scoreless[side] + 1);
+        hash ^= SIDE_KEY;
+        int value = -negamax(ply + 1, depth - 1, -beta, -alpha, 1 - side);
+        scoreless[side]--;
+        hash = savedHash;
+        return value;
+    }
+
+    /**
+     * Returns the moves of side at ply, the table move first, then plays that go out, then by descending score,
+     * and then a pass.
+     */
+    private List<Move> orderedMoves(int ply, int side, Move tableMove)
+    {
+        List<Character> rack = rackLists.get(ply);
+        rack.clear();
+        for (int l = 0; l < 26; l++)
+        {
+            for (int i = 0; i < racks[side][l]; i++)
+            {
+                rack.add((char) ('A' + l));
+            }
+        }
+        int size = rack.size();
+        List<Move> moves = moveLists.get(ply);
+        moves.clear();
+        generator.generate(rack, (r, c, horizontal, line, start, end, placedMask, score) ->
+                moves.add(MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score)));
+        moves.sort((a, b) -> {
+            if (a.equals(tableMove) != b.equals(tableMove))
+            {
+                return a.equals(tableMove) ? -1 : 1;
+            }
+            boolean aOut = a.getTileCount() == size, bOut = b.getTileCount() == size;
+            if (aOut != bOut)
+            {
+                return aOut ? -1 : 1;
+            }
+            return b.getScore() - a.getScore();
+        });
+        moves.add(tableMove == PASS ? 0 : moves.size(), PASS);
+        return moves;
+    }
+
+    private void loadRack(int player, List<Character> hand)
+    {
+        Arrays.fill(racks[player], 0);
+        for (Character ch : hand)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                racks[player][ch - 'A']++;
+            }
+        }
+        for (int l = 0; l < 26; l++)
+        {
+            hash ^= RACK_KEYS[player][l][Math.min(racks[player][l], 7)];
+        }
+    }
+
+    private void setCount(int player, int letter, int count)
+    {
+        hash ^= RACK_KEYS[player][letter][Math.min(racks[player][letter], 7)] ^ RACK_KEYS[player][letter][Math.min(count, 7)];
+        racks[player][letter] = count;
+    }
+
+    private void setScoreless(int player, int count)
+    {
+        hash ^= SCORELESS_KEYS[player][scoreless[player]] ^ SCORELESS_KEYS[player][count];
+        scoreless[player] = count;
+    }
+
+    private int rackSize(int player)
+    {
+        int size = 0;
+        for (int count : racks[player])
+        {
+            size += count;
+        }
+        return size;
+    }
+
+    private int rackValue(int player)
+    {
+        int value = 0;
+        for (int l = 0; l < 26; l++)
+        {
+            value += racks[player][l] * Tile.scoreCharacter((char) ('A' + l));
+        }
+        return value;
+    }
+}
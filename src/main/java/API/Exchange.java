@@ -0,0 +1,137 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A choice of tiles to exchange: which tiles of a hand are kept and which are thrown back into the bag.
+ */
+public class Exchange {
+
+    /**
+     * The hand the exchange is made from.
+     */
+    private final List<Character> hand;
+
+    /**
+     * A bitmask over the indices of hand marking the tiles kept.
+     */
+    private final int keepMask;
+
+    /**
+     * The value of the kept tiles, in leave table units.
+     */
+    private final int leaveValue;
+
+    private Exchange(List<Character> hand, int keepMask, int leaveValue)
+    {
+        this.hand = hand;
+        this.keepMask = keepMask;
+        this.leaveValue = leaveValue;
+    }
+
+    /**
+     * Returns the exchange from hand that keeps the most valuable leave, among all 2^n - 1 ways of throwing back
+     * at least one of its n tiles. Subsets are visited in Gray code order, so that each differs from the last by
+     * one tile and the leave counts are updated in place; the search allocates nothing but its result.
+     *
+     * @param hand the tiles in the hand, at most 7
+     * @param leaves the values of rack leaves
+     * @return the best exchange, or null if hand is empty
+     */
+    public static Exchange best(List<Character> hand, LeaveTable leaves)
+    {
+        int n = hand.size();
+        if (n == 0)
+        {
+            return null;
+        }
+        if (n > 7)
+        {
+            throw new IllegalArgumentException("a hand holds at most 7 tiles: " + n);
+        }
+        int[] counts = new int[26];
+        int[] letters = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            letters[i] = hand.get(i) - 'A';
+        }
+        // Gray code g(i) = i ^ (i >> 1) over i < 2^n visits every keep mask. Keeping the whole hand is stepped
+        // through, to keep the counts in step, but is not an exchange.
+        int all = (1 << n) - 1;
+        int bestMask = 0, bestValue = leaves.value(counts);
+        int mask = 0;
+        for (int i = 1; i <= all; i++)
+        {
+            int gray = i ^ (i >> 1);
+            int bit = Integer.numberOfTrailingZeros(gray ^ mask);
+            mask = gray;
+            int letter = letters[bit];
+            if (letter >= 0 && letter < 26)
+            {
+                counts[letter] += (mask & (1 << bit)) != 0 ? 1 : -1;
+            }
+            if (mask == all)
+            {
+                continue;
+            }
+            int value = leaves.value(counts);
+            if (value > bestValue)
+            {
+                bestValue = value;
+                bestMask = mask;
+            }
+        }
+        return new Exchange(hand, bestMask, bestValue);
+    }
+
+    /**
+     * Returns the exchange of every tile in hand.
+     *
+     * @param hand the tiles in the hand
+     * @return the exchange keeping nothing
+     */
+    public static Exchange all(List<Character> hand)
+    {
+        return new Exchange(hand, 0, 0);
+    }
+
+    /**
+     * Returns the tiles kept, in the order of the hand.
+     * @return the kept tiles
+     */
+    public List<Character> getKept()
+    {
+        return select(true);
+    }
+
+    /**
+     * Returns the tiles thrown back into the bag, in the order of the hand.
+     * @return the thrown tiles
+     */
+    public List<Character> getThrown()
+    {
+        return select(false);
+    }
+
+    /**
+     * Returns the value of the tiles kept, in leave table units (see {@link LeaveTable#SCALE}).
+     * @return leaveValue
+     */
+    public int getLeaveValue() {
+        return leaveValue;
+    }
+
+    private List<Character> select(boolean kept)
+    {
+        List<Character> tiles = new ArrayList<>();
+        for (int i = 0; i < hand.size(); i++)
+        {
+            if (((keepMask & (1 << i)) != 0) == kept)
+            {
+                tiles.add(hand.get(i));
+            }
+        }
+        return tiles;
+    }
+}
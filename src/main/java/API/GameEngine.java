@@ -0,0 +1,388 @@
+package API;
+
+import javafx.util.Pair;
+
+import java.util.*;
+import java.util.function.Function;
+
+
+/**
+ * The rules of a two player game of Scrabble, with no user interface: the board, the bag, both racks, the
+ * scores, whose turn it is, and when and how the game ends.
+ *
+ * Players take turns, starting with {@link #PLAYER}. On a turn the player to move plays tiles, exchanges tiles
+ * with the bag (only while it holds at least 7), or passes, and then draws back up to 7 tiles. A turn that
+ * scores nothing counts towards that player's run of scoreless turns; the game ends when a player's run reaches
+ * {@link #MAX_SCORELESS_TURNS}, or when a player has emptied their rack and the bag is empty. A player who goes
+ * out is awarded twice the face value of the tiles left on the other player's rack.
+ *
+ * Boards handed out by the engine are never changed afterwards: every move makes a new {@link BoardState},
+ * sharing the rows the move did not touch. After every turn the engine also publishes a {@link GameState}, an
+ * immutable snapshot linked to the ones before it, which other threads may read while the game goes on. The
+ * engine itself is not thread safe: turns must be taken on one thread at a time.
+ */
+public class GameEngine {
+
+    /**
+     * The indices of the two players.
+     */
+    public static final int PLAYER = 0, CPU = 1;
+
+    /**
+     * The number of consecutive scoreless turns by one player that ends the game.
+     */
+    public static final int MAX_SCORELESS_TURNS = 3;
+
+    /**
+     * What the player to move did on the last turn.
+     */
+    public enum Turn { PLAY, EXCHANGE, PASS }
+
+    private final Trie trie;
+
+    private BoardState board;
+
+    private final TileBag bag;
+
+    private final List<List<Character>> hands = Arrays.asList(new ArrayList<>(), new ArrayList<>());
+
+    private final int[] scores = new int[2], scorelessTurns = new int[2];
+
+    /**
+     * The tiles each player cannot see, kept up to date as tiles are played and drawn rather than worked out from
+     * the bag.
+     */
+    private final UnseenTiles[] unseen = { new UnseenTiles(), new UnseenTiles() };
+
+    private int playerToMove = PLAYER;
+
+    private Turn lastTurn;
+
+    private boolean over;
+
+    /**
+     * The state after the last turn, published for readers on other threads.
+     */
+    private volatile GameState state;
+
+    /**
+     * Constructs a game with a full bag, and deals both racks.
+     * @param trie the trie containing the dictionary of valid words
+     */
+    public GameEngine(Trie trie)
+    {
+        this(trie, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a game whose bag draws with random, and deals both racks. A seeded source replays the same game
+     * for the same moves.
+     *
+     * @param trie the trie containing the dictionary of valid words
+     * @param random the source of randomness for the bag
+     */
+    public GameEngine(Trie trie, SplittableRandom random)
+    {
+        this.trie = trie;
+        this.board = BoardState.EMPTY;
+        this.bag = new TileBag(random);
+        for (int i = 0; i < 7; i++)
+        {
+            hands.get(PLAYER).add(bag.draw());
+            hands.get(CPU).add(bag.draw());
+        }
+        unseen[PLAYER].removeAll(hands.get(PLAYER));
+        unseen[CPU].removeAll(hands.get(CPU));
+        this.state = new GameState(board, hands, scores, scorelessTurns, playerToMove, bag.size(), null,
+                Collections.emptyList(), false, null);
+    }
+
+    /**
+     * Plays the move that turns the current board into after for the player to move.
+     *
+     * @param after the board with the player's tiles placed on it
+     * @return the score of the move
+     * @throws IllegalArgumentException if the move is not valid or uses tiles the player does not hold
+     */
+    public int play(List<List<Character>> after)
+    {
+        checkNotOver();
+        if (!Board.validMove(board, after, trie))
+        {
+            throw new IllegalArgumentException("not a valid play");
+        }
+        List<Character> placed = new ArrayList<>();
+        for (int r = 0; r < 15; r++)
+        {
+            for (int c = 0; c < 15; c++)
+            {
+                if (board.get(r).get(c) != after.get(r).get(c))
+                {
+                    placed.add(after.get(r).get(c));
+                }
+            }
+        }
+        return place(board.with(after), placed, Board.scoreMove(board, after));
+    }
+
+    /**
+     * Plays move, which must have been generated for the current board, for the player to move. Unlike
+     * {@link #play(List)} the move is trusted to be valid, which is what lets games run at the speed of the
+     * move generator.
+     *
+     * @param move the move to play
+     * @return the score of the move
+     * @throws IllegalArgumentException if the move uses tiles the player does not hold
+     */
+    public int play(Move move)
+    {
+        checkNotOver();
+        return place(board.play(move), move.getTilesPlaced(), move.getScore());
+    }
+
+    /**
+     * Throws tiles back into the bag for the player to move, who draws as many first.
+     *
+     * @param tiles the tiles to throw back, from the player's rack
+     * @throws IllegalArgumentException if the player does not hold the tiles
+     * @throws IllegalStateException if the bag holds fewer than 7 tiles
+     */
+    public void exchange(List<Character> tiles)
+    {
+        checkNotOver();
+        if (bag.size() < 7)
+        {
+            throw new IllegalStateException("cannot exchange with fewer than 7 tiles in the bag");
+        }
+        if (tiles.isEmpty())
+        {
+            throw new IllegalArgumentException("no tiles to exchange");
+        }
+        List<Character> hand = hands.get(playerToMove);
+        List<Character> kept = without(hand, tiles);
+        int had = kept.size();
+        bag.refill(kept, hand.size());
+        bag.addAll(tiles);
+        unseen[playerToMove].removeAll(kept.subList(had, kept.size()));
+        unseen[playerToMove].addAll(tiles);
+        hand.clear();
+        hand.addAll(kept);
+        endTurn(Turn.EXCHANGE, 0, tiles);
+    }
+
+    /**
+     * Passes the turn of the player to move.
+     */
+    public void pass()
+    {
+        checkNotOver();
+        endTurn(Turn.PASS, 0);
+    }
+
+    /**
+     * Lets a strategy take the turn of the player to move. The strategy is shown the board, the player's rack, the
+     * number of tiles in the bag, the tiles the player cannot see and both runs of scoreless turns, and the engine
+     * carries out the play, exchange or pass it decides on, drawing from its own bag.
+     *
+     * @param strategy a move function, such as one of the methods of AI that return a Decision
+     * @return the word played and its score, or an empty word and zero if nothing was played
+     * @throws IllegalArgumentException if the decision uses tiles the player does not hold
+     * @throws IllegalStateException if the decision is an exchange and the bag holds fewer than 7 tiles
+     */
+    public Pair<String, Integer> play(Function<PlayerView, Decision> strategy)
+    {
+        checkNotOver();
+        Decision decision = strategy.apply(new PlayerView(board, hands.get(playerToMove), bag.size(),
+                unseen[playerToMove], scorelessTurns[playerToMove], scorelessTurns[1 - playerToMove], trie));
+        switch (decision.getTurn())
+        {
+            case PLAY:
+                return new Pair<>(decision.getMove().getWord(), play(decision.getMove()));
+            case EXCHANGE:
+                exchange(decision.getThrown());
+                break;
+            default:
+                pass();
+        }
+        return new Pair<>("", 0);
+    }
+
+    /**
+     * Returns the current board, which the engine will not change.
+     * @return board
+     */
+    public BoardState getBoard()
+    {
+        return board;
+    }
+
+    /**
+     * Returns the state of the game after the last turn. Unlike the other getters this may be called from any
+     * thread, during a turn or not, and sees either the state before the turn or the state after it.
+     *
+     * @return state
+     */
+    public GameState getState()
+    {
+        return state;
+    }
+
+    /**
+     * Returns the rack of player.
+     * @param player PLAYER or CPU
+     * @return a read-only view of the player's tiles, in the order drawn
+     */
+    public List<Character> getHand(int player)
+    {
+        return Collections.unmodifiableList(hands.get(player));
+    }
+
+    /**
+     * Returns a position holding this game's board, both racks, a copy of the bag, whose turn it is and both runs
+     * of scoreless turns, for a search to make and take back moves on without touching the game. Its scores start
+     * at zero; its runs of scoreless turns do not, so it ends when the game would.
+     *
+     * @return the position
+     * @throws IllegalStateException if the game is over
+     */
+    public Position toPosition()
+    {
+        checkNotOver();
+        return new Position(trie, board, hands, bag.copy(), playerToMove, scorelessTurns);
+    }
+
+    /**
+     * Returns the number of tiles in the bag. Which tiles they are is not given out.
+     * @return the bag size
+     */
+    public int getBagSize()
+    {
+        return bag.size();
+    }
+
+    /**
+     * Returns the score of player, including the bonus for going out once the game is over.
+     * @param player PLAYER or CPU
+     * @return the score
+     */
+    public int getScore(int player)
+    {
+        return scores[player];
+    }
+
+    /**
+     * Returns the number of scoreless turns player has taken in a row.
+     * @param player PLAYER or CPU
+     * @return the run of scoreless turns
+     */
+    public int getScorelessTurns(int player)
+    {
+        return scorelessTurns[player];
+    }
+
+    /**
+     * Returns the player whose turn it is.
+     * @return PLAYER or CPU
+     */
+    public int getPlayerToMove()
+    {
+        return playerToMove;
+    }
+
+    /**
+     * Returns what was done on the last turn, or null if no turn has been taken.
+     * @return lastTurn
+     */
+    public Turn getLastTurn()
+    {
+        return lastTurn;
+    }
+
+    /**
+     * Returns true once the game has ended.
+     * @return over
+     */
+    public boolean isOver()
+    {
+        return over;
+    }
+
+    /**
+     * Writes the tiles of a play to the board, takes them from the rack of the player to move, and ends the turn.
+     */
+    private int place(BoardState after, List<Character> placed, int score)
+    {
+        List<Character> hand = hands.get(playerToMove);
+        List<Character> kept = without(hand, placed);
+        board = after;
+        hand.clear();
+        hand.addAll(kept);
+        unseen[1 - playerToMove].removeAll(placed);
+        endTurn(Turn.PLAY, score);
+        return score;
+    }
+
+    private void endTurn(Turn turn, int score)
+    {
+        endTurn(turn, score, Collections.emptyList());
+    }
+
+    /**
+     * Scores the turn, refills the rack of the player who took it, and either passes the turn on or ends the game.
+     */
+    private void endTurn(Turn turn, int score, List<Character> exchanged)
+    {
+        int p = playerToMove;
+        List<Character> hand = hands.get(p);
+        int had = hand.size();
+        bag.refill(hand, 7);
+        unseen[p].removeAll(hand.subList(had, hand.size()));
+        scores[p] += score;
+        scorelessTurns[p] = score == 0 ? scorelessTurns[p] + 1 : 0;
+        lastTurn = turn;
+        if (hand.isEmpty())
+        {
+            int other = 1 - p;
+            for (Character tile : hands.get(other))
+            {
+                scores[p] += 2 * Tile.scoreCharacter(tile);
+            }
+            over = true;
+        }
+        else if (scorelessTurns[p] >= MAX_SCORELESS_TURNS)
+        {
+            over = true;
+        }
+        else
+        {
+            playerToMove = 1 - p;
+        }
+        state = new GameState(board, hands, scores, scorelessTurns, playerToMove, bag.size(), turn, exchanged, over,
+                state);
+    }
+
+    private void checkNotOver()
+    {
+        if (over)
+        {
+            throw new IllegalStateException("the game is over");
+        }
+    }
+
+    /**
+     * Returns hand less tiles, in the order of hand.
+     * @throws IllegalArgumentException if hand does not hold all of tiles
+     */
+    private static List<Character> without(List<Character> hand, List<Character> tiles)
+    {
+        List<Character> rest = new ArrayList<>(hand);
+        for (Character tile : tiles)
+        {
+            if (!rest.remove(tile))
+            {
+                throw new IllegalArgumentException("tile not in rack: " + tile);
+            }
+        }
+        return rest;
+    }
+}
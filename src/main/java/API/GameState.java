@@ -0,0 +1,172 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of a {@link GameEngine} game between turns: the board, both racks, the scores, whose
+ * turn it is and how the last turn went, linked to the state before it.
+ *
+ * Successive states share structure. The board is a {@link BoardState}, which keeps every row a turn did not
+ * touch, and the link to the previous state makes the whole history one persistent list, so holding on to the
+ * history of a game costs a few rows and a rack or two per turn. Since no state ever changes, a state may be
+ * read from any thread, at any time, while the game goes on: by a spectator, a search, or an undo stack.
+ */
+public final class GameState {
+
+    private final BoardState board;
+
+    private final List<List<Character>> hands;
+
+    private final int[] scores, scorelessTurns;
+
+    private final int playerToMove, bagSize, turnNumber;
+
+    private final GameEngine.Turn lastTurn;
+
+    private final List<Character> exchanged;
+
+    private final boolean over;
+
+    private final GameState previous;
+
+    /**
+     * Constructs a state. The arrays and racks are copied, so the caller may go on changing its own.
+     */
+    GameState(BoardState board, List<List<Character>> hands, int[] scores, int[] scorelessTurns, int playerToMove,
+              int bagSize, GameEngine.Turn lastTurn, List<Character> exchanged, boolean over, GameState previous)
+    {
+        this.board = board;
+        this.hands = Collections.unmodifiableList(Arrays.asList(
+                Collections.unmodifiableList(new ArrayList<>(hands.get(GameEngine.PLAYER))),
+                Collections.unmodifiableList(new ArrayList<>(hands.get(GameEngine.CPU)))));
+        this.scores = scores.clone();
+        this.scorelessTurns = scorelessTurns.clone();
+        this.playerToMove = playerToMove;
+        this.bagSize = bagSize;
+        this.lastTurn = lastTurn;
+        this.exchanged = exchanged.isEmpty() ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(exchanged));
+        this.over = over;
+        this.previous = previous;
+        this.turnNumber = previous == null ? 0 : previous.turnNumber + 1;
+    }
+
+    /**
+     * Returns the board.
+     * @return board
+     */
+    public BoardState getBoard()
+    {
+        return board;
+    }
+
+    /**
+     * Returns the tiles on the rack of player, which cannot be changed.
+     * @param player PLAYER or CPU
+     * @return the rack
+     */
+    public List<Character> getHand(int player)
+    {
+        return hands.get(player);
+    }
+
+    /**
+     * Returns the score of player, including the bonus for going out once the game is over.
+     * @param player PLAYER or CPU
+     * @return the score
+     */
+    public int getScore(int player)
+    {
+        return scores[player];
+    }
+
+    /**
+     * Returns the number of scoreless turns player had taken in a row.
+     * @param player PLAYER or CPU
+     * @return the run of scoreless turns
+     */
+    public int getScorelessTurns(int player)
+    {
+        return scorelessTurns[player];
+    }
+
+    /**
+     * Returns the player whose turn it is.
+     * @return PLAYER or CPU
+     */
+    public int getPlayerToMove()
+    {
+        return playerToMove;
+    }
+
+    /**
+     * Returns the number of tiles in the bag.
+     * @return the bag size
+     */
+    public int getBagSize()
+    {
+        return bagSize;
+    }
+
+    /**
+     * Returns what was done on the turn that led to this state, or null for the state before the first turn.
+     * @return lastTurn
+     */
+    public GameEngine.Turn getLastTurn()
+    {
+        return lastTurn;
+    }
+
+    /**
+     * Returns the tiles thrown back by the turn that led to this state, which are none unless it was an exchange.
+     * @return exchanged
+     */
+    public List<Character> getExchanged()
+    {
+        return exchanged;
+    }
+
+    /**
+     * Returns true if the game had ended.
+     * @return over
+     */
+    public boolean isOver()
+    {
+        return over;
+    }
+
+    /**
+     * Returns the number of turns taken before this state, 0 for the state the game started in.
+     * @return turnNumber
+     */
+    public int getTurnNumber()
+    {
+        return turnNumber;
+    }
+
+    /**
+     * Returns the state before the last turn, or null for the state the game started in.
+     * @return previous
+     */
+    public GameState getPrevious()
+    {
+        return previous;
+    }
+
+    /**
+     * Returns every state of the game up to this one, the first first.
+     * @return the history
+     */
+    public List<GameState> getHistory()
+    {
+        GameState[] history = new GameState[turnNumber + 1];
+        for (GameState s = this; s != null; s = s.previous)
+        {
+            history[s.turnNumber] = s;
+        }
+        return Collections.unmodifiableList(Arrays.asList(history));
+    }
+}
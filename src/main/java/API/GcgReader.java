@@ -0,0 +1,218 @@
+package API;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A streaming reader of game records in the GCG format.
+ *
+ * Records are read one at a time, a line at a time, so a reader holds no more than the record it is reading
+ * however large its input: a file may hold one game, as GCG files usually do, or many, one after the other, each
+ * starting with its #player1 and #player2 lines. Pragmas other than the players are skipped, and so are the lines
+ * of a #note that runs on. A turn line that cannot be read does not stop the reader: it is kept with its record
+ * (see {@link GcgRecord#getMalformed()}), so one bad game in an archive does not hide the rest.
+ *
+ * {@link #records(List)} reads many files in parallel, one file per task, for archives of any size.
+ */
+public class GcgReader implements Closeable {
+
+    private final BufferedReader in;
+
+    private final String source;
+
+    private int lineNumber;
+
+    /**
+     * A line read ahead that starts the next record, or null if there is none.
+     */
+    private String pending;
+
+    /**
+     * Constructs a reader of the records in in.
+     *
+     * @param in the GCG text
+     * @param source the name of the input, for messages
+     */
+    public GcgReader(Reader in, String source)
+    {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.source = source;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null if there are no more
+     * @throws IOException if the input cannot be read
+     */
+    public GcgRecord next() throws IOException
+    {
+        String[] nicks = {"", ""}, names = {"", ""};
+        List<GcgTurn> turns = new ArrayList<>();
+        List<String> malformed = new ArrayList<>();
+        int start = 0;
+        boolean started = false;
+        String line;
+        while ((line = pending != null ? pending : readLine()) != null)
+        {
+            pending = null;
+            line = line.trim();
+            boolean player = line.startsWith("#player1") || line.startsWith("#player2");
+            if (player && !turns.isEmpty())
+            {
+                // The players of the next record.
+                pending = line;
+                break;
+            }
+            if (!started && (player || line.startsWith(">")))
+            {
+                started = true;
+                start = lineNumber;
+            }
+            if (player)
+            {
+                String[] fields = line.split("\\s+", 3);
+                int p = line.charAt(7) - '1';
+                nicks[p] = fields.length > 1 ? fields[1] : "";
+                names[p] = fields.length > 2 ? fields[2] : nicks[p];
+            }
+            else if (line.startsWith(">"))
+            {
+                try
+                {
+                    turns.add(GcgTurn.parse(line));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    malformed.add("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return started ? new GcgRecord(source + ":" + start, nicks, names, turns, malformed) : null;
+    }
+
+    private String readLine() throws IOException
+    {
+        String line = in.readLine();
+        if (line != null && lineNumber++ == 0 && line.startsWith("\uFEFF"))
+        {
+            // A byte order mark, written by some editors.
+            line = line.substring(1);
+        }
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * Returns the records in a file, read lazily as the stream is consumed. Files are read as UTF-8, the encoding
+     * GCG files declare with #character-encoding; letters in names that are not valid UTF-8 are replaced, and
+     * the turns, which are plain ASCII, are unaffected. The file is closed when the stream is.
+     *
+     * @param file a GCG file
+     * @return the records
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Stream<GcgRecord> records(Path file)
+    {
+        GcgReader reader;
+        try
+        {
+            reader = new GcgReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8),
+                    file.toString());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        Iterator<GcgRecord> iterator = new Iterator<GcgRecord>() {
+            private GcgRecord next;
+
+            @Override
+            public boolean hasNext()
+            {
+                try
+                {
+                    next = next != null ? next : reader.next();
+                    return next != null;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public GcgRecord next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                GcgRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try
+            {
+                reader.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the records in files as a parallel stream: the files are shared out between the threads of the
+     * stream's pool, and each file is read lazily by one of them, so only the records in flight are held at once.
+     *
+     * @param files the GCG files
+     * @return the records, in no particular order
+     */
+    public static Stream<GcgRecord> records(List<Path> files)
+    {
+        return files.parallelStream().flatMap(GcgReader::records);
+    }
+
+    /**
+     * Returns every file ending in .gcg under root, or root itself if it is a file.
+     *
+     * @param root a GCG file or a directory of them
+     * @return the files, sorted
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<Path> findFiles(Path root) throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(root))
+        {
+            return paths.filter(path -> Files.isRegularFile(path)
+                    && (path.equals(root) || path.getFileName().toString().toLowerCase().endsWith(".gcg")))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The record of one game in the GCG format: the two players and the turn lines, in order.
+ *
+ * A record can be replayed into the {@link BoardState} after each turn, which share every row a turn left
+ * alone, and verified: every play must be legal by the rules of {@link Board#validMove} and score what the record
+ * says, and every running total must add up. Records are immutable, and a record only holds its own turns, so
+ * an archive can be read and verified one record at a time.
+ */
+public final class GcgRecord {
+
+    private final String source;
+
+    private final String[] nicks, names;
+
+    private final List<GcgTurn> turns;
+
+    private final List<String> malformed;
+
+    /**
+     * Constructs a record.
+     *
+     * @param source where the record came from, such as a file name and line number, for messages
+     * @param nicks the nicknames of the first and second players
+     * @param names the full names of the first and second players
+     * @param turns the turns, in order
+     * @param malformed the lines of the record that could not be read, with their line numbers
+     */
+    public GcgRecord(String source, String[] nicks, String[] names, List<GcgTurn> turns, List<String> malformed)
+    {
+        this.source = source;
+        this.nicks = nicks.clone();
+        this.names = names.clone();
+        this.turns = Collections.unmodifiableList(new ArrayList<>(turns));
+        this.malformed = Collections.unmodifiableList(new ArrayList<>(malformed));
+    }
+
+    /**
+     * Returns the record of the game that led to state, from its first turn to the last: {@link GameEngine#PLAYER}
+     * is the first player and {@link GameEngine#CPU} the second.
+     *
+     * @param state the state of a game
+     * @param playerNick the nickname to give the player
+     * @param cpuNick the nickname to give the CPU
+     * @return the record
+     */
+    public static GcgRecord of(GameState state, String playerNick, String cpuNick)
+    {
+        String[] nicks = {playerNick, cpuNick};
+        List<GcgTurn> turns = new ArrayList<>();
+        List<GameState> history = state.getHistory();
+        for (int i = 1; i < history.size(); i++)
+        {
+            GameState before = history.get(i - 1), after = history.get(i);
+            int p = before.getPlayerToMove();
+            String rack = letters(before.getHand(p));
+            int score = after.getScore(p) - before.getScore(p);
+            switch (after.getLastTurn())
+            {
+                case PLAY:
+                    int bonus = 0;
+                    if (after.isOver() && after.getHand(p).isEmpty())
+                    {
+                        for (Character tile : after.getHand(1 - p))
+                        {
+                            bonus += 2 * Tile.scoreCharacter(tile);
+                        }
+                    }
+                    turns.add(play(nicks[p], rack, before.getBoard(), after.getBoard(), score - bonus,
+                            after.getScore(p) - bonus));
+                    if (bonus > 0)
+                    {
+                        turns.add(new GcgTurn(GcgTurn.Kind.END_RACK_POINTS, nicks[p], "",
+                                letters(after.getHand(1 - p)), bonus, after.getScore(p)));
+                    }
+                    break;
+                case EXCHANGE:
+                    turns.add(new GcgTurn(GcgTurn.Kind.EXCHANGE, nicks[p], rack, letters(after.getExchanged()), 0,
+                            after.getScore(p)));
+                    break;
+                default:
+                    turns.add(new GcgTurn(GcgTurn.Kind.PASS, nicks[p], rack, "", 0, after.getScore(p)));
+                    break;
+            }
+        }
+        return new GcgRecord("", nicks, nicks, turns, Collections.emptyList());
+    }
+
+    /**
+     * Returns the turn line of the play that turned before into after.
+     */
+    private static GcgTurn play(String nick, String rack, BoardState before, BoardState after, int score, int total)
+    {
+        int first = -1, last = -1;
+        boolean sameRow = true;
+        for (int i = 0; i < 225; i++)
+        {
+            if (before.charAt(i / 15, i % 15) != after.charAt(i / 15, i % 15))
+            {
+                sameRow &= first < 0 || i / 15 == first / 15;
+                first = first < 0 ? i : first;
+                last = i;
+            }
+        }
+        int r = first / 15, c = first % 15;
+        // A single tile reads across if it forms a word across, as PendingMove reads it.
+        boolean horizontal = sameRow && (first != last || (c > 0 && after.charAt(r, c - 1) != ' ')
+                || (c < 14 && after.charAt(r, c + 1) != ' '));
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        while (r - dr >= 0 && c - dc >= 0 && after.charAt(r - dr, c - dc) != ' ')
+        {
+            r -= dr;
+            c -= dc;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = r, j = c; i < 15 && j < 15 && after.charAt(i, j) != ' '; i += dr, j += dc)
+        {
+            word.append(before.charAt(i, j) == ' ' ? after.charAt(i, j) : '.');
+        }
+        return new GcgTurn(nick, rack, r, c, horizontal, word.toString(), score, total);
+    }
+
+    private static String letters(List<Character> tiles)
+    {
+        StringBuilder sb = new StringBuilder();
+        tiles.forEach(sb::append);
+        return sb.toString();
+    }
+
+    /**
+     * Returns where the record came from.
+     * @return source
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the nickname of a player.
+     * @param player 0 for the first player, 1 for the second
+     * @return the nickname
+     */
+    public String getNick(int player)
+    {
+        return nicks[player];
+    }
+
+    /**
+     * Returns the full name of a player.
+     * @param player 0 for the first player, 1 for the second
+     * @return the name
+     */
+    public String getName(int player)
+    {
+        return names[player];
+    }
+
+    /**
+     * Returns the turns, in order.
+     * @return turns
+     */
+    public List<GcgTurn> getTurns()
+    {
+        return turns;
+    }
+
+    /**
+     * Returns the lines of the record that could not be read, with their line numbers.
+     * @return malformed
+     */
+    public List<String> getMalformed()
+    {
+        return malformed;
+    }
+
+    /**
+     * Returns the board after each turn, in order. Blanks are put on the board as the letters they stand for.
+     *
+     * @return the boards
+     * @throws IllegalArgumentException if a play does not fit the board it is made on
+     */
+    public List<BoardState> replay()
+    {
+        List<BoardState> boards = new ArrayList<>(turns.size());
+        BoardState board = BoardState.EMPTY, beforeLastPlay = board;
+        for (GcgTurn turn : turns)
+        {
+            if (turn.getKind() == GcgTurn.Kind.PLAY)
+            {
+                beforeLastPlay = board;
+                board = board.play(toMove(board, turn));
+            }
+            else if (turn.getKind() == GcgTurn.Kind.WITHDRAWN)
+            {
+                board = beforeLastPlay;
+            }
+            boards.add(board);
+        }
+        return boards;
+    }
+
+    /**
+     * Checks the record against the rules of the game: every play that stands must be legal for the words of
+     * trie and score what the record says, and every total must be the one before plus the turn's score.
+     * Plays withdrawn after a challenge may be illegal. Blanks are worth nothing, which the tiles of this game
+     * do not allow for, so the scores of plays from the first blank onward are not checked.
+     *
+     * @param trie the trie containing the dictionary of valid words
+     * @return what is wrong with the record, one line per problem; empty if nothing is
+     */
+    public List<String> verify(Trie trie)
+    {
+        List<String> problems = new ArrayList<>(malformed);
+        MoveGenerator generator = new MoveGenerator(trie);
+        PendingMove pending = new PendingMove(generator);
+        BoardState board = BoardState.EMPTY, beforeLastPlay = board;
+        int[] totals = new int[2];
+        boolean blankPlayed = false;
+        for (int t = 0; t < turns.size(); t++)
+        {
+            GcgTurn turn = turns.get(t);
+            int p = Arrays.asList(nicks).indexOf(turn.getNick());
+            if (p < 0)
+            {
+                problems.add("turn " + (t + 1) + ": no player " + turn.getNick());
+                continue;
+            }
+            if (turn.getKind() == GcgTurn.Kind.PLAY)
+            {
+                Move move;
+                try
+                {
+                    move = toMove(board, turn);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    problems.add("turn " + (t + 1) + ": " + e.getMessage());
+                    return problems;
+                }
+                boolean withdrawn = t + 1 < turns.size() && turns.get(t + 1).getKind() == GcgTurn.Kind.WITHDRAWN;
+                blankPlayed |= !turn.getTiles().equals(turn.getTiles().toUpperCase());
+                if (!withdrawn)
+                {
+                    generator.update(board);
+                    pending.clear();
+                    String word = move.getWord();
+                    int start = move.isHorizontal() ? move.getCol() : move.getRow();
+                    for (int i = 0; i < word.length(); i++)
+                    {
+                        if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+                        {
+                            pending.place(move.isHorizontal() ? move.getRow() : move.getRow() + i,
+                                    move.isHorizontal() ? move.getCol() + i : move.getCol(), word.charAt(i));
+                        }
+                    }
+                    if (!pending.isValid())
+                    {
+                        problems.add("turn " + (t + 1) + ": not a legal play: " + turn);
+                    }
+                    else if (!blankPlayed && pending.getMove().getScore() != turn.getScore())
+                    {
+                        problems.add("turn " + (t + 1) + ": scores " + pending.getMove().getScore() + ", not "
+                                + turn.getScore() + ": " + turn);
+                    }
+                }
+                beforeLastPlay = board;
+                board = board.play(move);
+            }
+            else if (turn.getKind() == GcgTurn.Kind.WITHDRAWN)
+            {
+                board = beforeLastPlay;
+            }
+            totals[p] += turn.getScore();
+            if (totals[p] != turn.getTotal())
+            {
+                problems.add("turn " + (t + 1) + ": total should be " + totals[p] + ": " + turn);
+                totals[p] = turn.getTotal();
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Returns the play of turn as a move on board, with the score the record gives it.
+     *
+     * @throws IllegalArgumentException if the play does not fit the board
+     */
+    static Move toMove(BoardState board, GcgTurn turn)
+    {
+        String tiles = turn.getTiles();
+        StringBuilder word = new StringBuilder(tiles.length());
+        int start = turn.isHorizontal() ? turn.getCol() : turn.getRow();
+        int placedMask = 0;
+        for (int i = 0; i < tiles.length(); i++)
+        {
+            int r = turn.isHorizontal() ? turn.getRow() : turn.getRow() + i;
+            int c = turn.isHorizontal() ? turn.getCol() + i : turn.getCol();
+            char onBoard = board.charAt(r, c), ch = Character.toUpperCase(tiles.charAt(i));
+            if (ch == '.' || ch == onBoard)
+            {
+                // Some writers spell out the letters played through rather than writing '.' for them.
+                if (onBoard == ' ')
+                {
+                    throw new IllegalArgumentException("no tile to play through: " + turn);
+                }
+                word.append(onBoard);
+            }
+            else if (onBoard != ' ')
+            {
+                throw new IllegalArgumentException("square taken: " + turn);
+            }
+            else
+            {
+                word.append(ch);
+                placedMask |= 1 << (start + i);
+            }
+        }
+        if (placedMask == 0)
+        {
+            throw new IllegalArgumentException("no tile placed: " + turn);
+        }
+        return new Move(turn.getRow(), turn.getCol(), turn.isHorizontal(), word.toString(), placedMask,
+                turn.getScore());
+    }
+}
@@ -0,0 +1,313 @@
+package API;
+
+/**
+ * One turn line of a game record in the GCG format, such as
+ *   >Joel: AEINRST 8D NASTIER +64 64
+ * which says the player Joel, holding AEINRST, played NASTIER across from square 8D for 64 points, for a total
+ * of 64. Squares are named by row number and column letter, row first for a play across and column first for a
+ * play down. In the word, '.' stands for a tile already on the board and a lower case letter for a blank.
+ *
+ * The other kinds of line are
+ *   >Joel: AEINRST - +0 64              a pass
+ *   >Joel: AEINRST -AEI +0 64           an exchange of AEI
+ *   >Joel: AEINRST -- -64 0             a play withdrawn after a challenge
+ *   >Joel: AEINRST (challenge) +5 69    points for a play challenged that stood
+ *   >Joel: AEINRST (time) -10 59        a penalty for overtime
+ *   >Joel: (AEI) +6 75                  twice the tiles left on the other rack, for going out
+ *   >Joel: AEI (AEI) -3 72              the tiles left on one's own rack, deducted
+ *
+ * Turns are immutable.
+ */
+public final class GcgTurn {
+
+    /**
+     * The kinds of turn line.
+     */
+    public enum Kind { PLAY, PASS, EXCHANGE, WITHDRAWN, CHALLENGE_BONUS, TIME_PENALTY, END_RACK_POINTS, END_RACK_PENALTY }
+
+    private final Kind kind;
+
+    private final String nick, rack;
+
+    /**
+     * The square the word of a play starts on, and its direction.
+     */
+    private final int row, col;
+    private final boolean horizontal;
+
+    /**
+     * The word of a play, the tiles thrown back by an exchange, or the rack counted at the end.
+     */
+    private final String tiles;
+
+    private final int score, total;
+
+    /**
+     * Constructs a turn that is not a play.
+     *
+     * @param kind any kind but PLAY
+     * @param nick the nickname of the player who took the turn
+     * @param rack the player's rack before the turn, or "" if not known
+     * @param tiles the tiles thrown back by an exchange, or the rack counted at the end, or ""
+     * @param score the points the turn added, or took away if negative
+     * @param total the player's score after the turn
+     */
+    public GcgTurn(Kind kind, String nick, String rack, String tiles, int score, int total)
+    {
+        this(kind, nick, rack, 0, 0, false, tiles, score, total);
+    }
+
+    /**
+     * Constructs a play.
+     *
+     * @param nick the nickname of the player who took the turn
+     * @param rack the player's rack before the turn, or "" if not known
+     * @param row the row the word starts on
+     * @param col the column the word starts on
+     * @param horizontal true if the word reads across
+     * @param word the word, with '.' for each tile already on the board and lower case letters for blanks
+     * @param score the points the play scored
+     * @param total the player's score after the turn
+     */
+    public GcgTurn(String nick, String rack, int row, int col, boolean horizontal, String word, int score, int total)
+    {
+        this(Kind.PLAY, nick, rack, row, col, horizontal, word, score, total);
+    }
+
+    private GcgTurn(Kind kind, String nick, String rack, int row, int col, boolean horizontal, String tiles,
+                    int score, int total)
+    {
+        this.kind = kind;
+        this.nick = nick;
+        this.rack = rack;
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.tiles = tiles;
+        this.score = score;
+        this.total = total;
+    }
+
+    /**
+     * Parses a turn line.
+     *
+     * @param line a line starting with '>'
+     * @return the turn
+     * @throws IllegalArgumentException if the line is not a turn line
+     */
+    public static GcgTurn parse(String line)
+    {
+        int colon = line.indexOf(':');
+        if (!line.startsWith(">") || colon < 0)
+        {
+            throw new IllegalArgumentException("not a turn: " + line);
+        }
+        String nick = line.substring(1, colon).trim();
+        String[] fields = line.substring(colon + 1).trim().split("\\s+");
+        try
+        {
+            int n = fields.length;
+            if (n < 3)
+            {
+                throw new IllegalArgumentException("not a turn: " + line);
+            }
+            int score = Integer.parseInt(fields[n - 2].startsWith("+") ? fields[n - 2].substring(1) : fields[n - 2]);
+            int total = Integer.parseInt(fields[n - 1]);
+            if (n == 3 && fields[0].matches("\\([A-Za-z?]*\\)"))
+            {
+                return new GcgTurn(Kind.END_RACK_POINTS, nick, "", unwrap(fields[0]), score, total);
+            }
+            // The rack is left out of some records; a play is then four fields rather than five.
+            boolean hasRack = n == 5 || (n == 4 && !isSquare(fields[0]));
+            String rack = hasRack ? fields[0] : "";
+            String action = fields[hasRack ? 1 : 0];
+            if (n == (hasRack ? 5 : 4))
+            {
+                return play(nick, rack, action, fields[n - 3], score, total, line);
+            }
+            if (n != (hasRack ? 4 : 3))
+            {
+                throw new IllegalArgumentException("not a turn: " + line);
+            }
+            if (action.equals("-"))
+            {
+                return new GcgTurn(Kind.PASS, nick, rack, "", score, total);
+            }
+            if (action.equals("--"))
+            {
+                return new GcgTurn(Kind.WITHDRAWN, nick, rack, "", score, total);
+            }
+            if (action.startsWith("-"))
+            {
+                return new GcgTurn(Kind.EXCHANGE, nick, rack, action.substring(1), score, total);
+            }
+            if (action.equals("(challenge)"))
+            {
+                return new GcgTurn(Kind.CHALLENGE_BONUS, nick, rack, "", score, total);
+            }
+            if (action.equals("(time)"))
+            {
+                return new GcgTurn(Kind.TIME_PENALTY, nick, rack, "", score, total);
+            }
+            if (action.startsWith("("))
+            {
+                return new GcgTurn(Kind.END_RACK_PENALTY, nick, rack, unwrap(action), score, total);
+            }
+            throw new IllegalArgumentException("not a turn: " + line);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("not a turn: " + line);
+        }
+    }
+
+    private static GcgTurn play(String nick, String rack, String square, String word, int score, int total,
+                                String line)
+    {
+        boolean horizontal = Character.isDigit(square.charAt(0));
+        String number = horizontal ? square.substring(0, square.length() - 1) : square.substring(1);
+        char letter = Character.toUpperCase(horizontal ? square.charAt(square.length() - 1) : square.charAt(0));
+        int row = Integer.parseInt(number) - 1, col = letter - 'A';
+        // Some writers put letters played through in parentheses, rather than writing '.' for them.
+        StringBuilder tiles = new StringBuilder();
+        boolean through = false;
+        for (char ch : word.toCharArray())
+        {
+            if (ch == '(' || ch == ')')
+            {
+                through = ch == '(';
+            }
+            else
+            {
+                tiles.append(through ? '.' : ch);
+            }
+        }
+        int length = tiles.length();
+        if (row < 0 || row > 14 || col < 0 || col > 14 || length < 1
+                || (horizontal ? col : row) + length > 15 || !tiles.toString().matches("[A-Za-z.]+"))
+        {
+            throw new IllegalArgumentException("not a play on the board: " + line);
+        }
+        return new GcgTurn(nick, rack, row, col, horizontal, tiles.toString(), score, total);
+    }
+
+    private static boolean isSquare(String field)
+    {
+        return field.matches("\\d{1,2}[A-Oa-o]|[A-Oa-o]\\d{1,2}");
+    }
+
+    private static String unwrap(String field)
+    {
+        return field.startsWith("(") && field.endsWith(")") ? field.substring(1, field.length() - 1) : field;
+    }
+
+    /**
+     * Returns the kind of turn.
+     * @return kind
+     */
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Returns the nickname of the player who took the turn.
+     * @return nick
+     */
+    public String getNick()
+    {
+        return nick;
+    }
+
+    /**
+     * Returns the player's rack before the turn, or "" if the record does not give it.
+     * @return rack
+     */
+    public String getRack()
+    {
+        return rack;
+    }
+
+    /**
+     * Returns the row the word of a play starts on.
+     * @return row
+     */
+    public int getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Returns the column the word of a play starts on.
+     * @return col
+     */
+    public int getCol()
+    {
+        return col;
+    }
+
+    /**
+     * Returns true if the word of a play reads across.
+     * @return horizontal
+     */
+    public boolean isHorizontal()
+    {
+        return horizontal;
+    }
+
+    /**
+     * Returns the word of a play, with '.' for each tile already on the board and lower case letters for blanks;
+     * the tiles thrown back by an exchange; or the rack counted at the end of the game.
+     *
+     * @return tiles
+     */
+    public String getTiles()
+    {
+        return tiles;
+    }
+
+    /**
+     * Returns the points the turn added, or took away if negative.
+     * @return score
+     */
+    public int getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Returns the player's score after the turn.
+     * @return total
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns the turn as a line of a GCG file.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(">").append(nick).append(": ");
+        if (!rack.isEmpty() && kind != Kind.END_RACK_POINTS)
+        {
+            sb.append(rack).append(' ');
+        }
+        switch (kind)
+        {
+            case PLAY:
+                String number = Integer.toString(row + 1), letter = Character.toString((char) ('A' + col));
+                sb.append(horizontal ? number + letter : letter + number).append(' ').append(tiles);
+                break;
+            case PASS: sb.append('-'); break;
+            case EXCHANGE: sb.append('-').append(tiles); break;
+            case WITHDRAWN: sb.append("--"); break;
+            case CHALLENGE_BONUS: sb.append("(challenge)"); break;
+            case TIME_PENALTY: sb.append("(time)"); break;
+            default: sb.append('(').append(tiles).append(')'); break;
+        }
+        return sb.append(' ').append(score < 0 ? "" : "+").append(score).append(' ').append(total).toString();
+    }
+}
@@ -0,0 +1,65 @@
+package API;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A streaming writer of game records in the GCG format, which {@link GcgReader} reads back.
+ *
+ * Records are written one after the other as they are given, each starting with its #player1 and #player2
+ * lines, after a #character-encoding line at the top. The output should be UTF-8. Writers are not thread safe.
+ */
+public class GcgWriter implements Closeable, Flushable {
+
+    private final BufferedWriter out;
+
+    private boolean started;
+
+    /**
+     * Constructs a writer to out.
+     * @param out where to write the records, encoding as UTF-8
+     */
+    public GcgWriter(Writer out)
+    {
+        this.out = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param record the record to write
+     * @throws IOException if the output cannot be written
+     */
+    public void write(GcgRecord record) throws IOException
+    {
+        if (!started)
+        {
+            out.write("#character-encoding UTF-8\n");
+            started = true;
+        }
+        for (int p = 0; p < 2; p++)
+        {
+            out.write("#player" + (p + 1) + " " + record.getNick(p) + " " + record.getName(p) + "\n");
+        }
+        for (GcgTurn turn : record.getTurns())
+        {
+            out.write(turn.toString());
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}
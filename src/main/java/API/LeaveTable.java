@@ -0,0 +1,345 @@
+package API;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A table of the value of every rack leave (the tiles kept after a play) of up to six tiles.
+ *
+ * Leaves are multisets of letters, and each is given a slot by a perfect hash: the sorted letters, padded to six
+ * with a 27th "no tile" symbol, are ranked in the combinatorial number system. That makes the table dense, with
+ * exactly C(32, 6) slots of one short each, about 1.8 MB. Values are stored in tenths of a point.
+ *
+ * A table is either built in, memory-mapped from a binary file written by {@link #write(Path)}, or read from a
+ * text file of leaves and values. Lookups read the table in place and allocate nothing, so they are cheap enough
+ * to make for every move generated. Tables are immutable and safe to share between threads.
+ */
+public class LeaveTable {
+
+    /**
+     * The largest leave the table holds. A play places at least one of the seven tiles of a rack.
+     */
+    public static final int MAX_LEAVE = 6;
+
+    /**
+     * The number of leaves of at most MAX_LEAVE tiles over 26 letters: C(26 + 6, 6).
+     */
+    public static final int SIZE = 906192;
+
+    /**
+     * The number of table units in a point.
+     */
+    public static final int SCALE = 10;
+
+    /**
+     * BINOMIAL[n][k] is n choose k, for the ranks of leaves.
+     */
+    private static final int[][] BINOMIAL = new int[26 + MAX_LEAVE + 1][MAX_LEAVE + 1];
+
+    static
+    {
+        for (int n = 0; n < BINOMIAL.length; n++)
+        {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_LEAVE); k++)
+            {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    /**
+     * The value of keeping one of each letter, in tenths of a point, for the built-in table.
+     */
+    private static final int[] TILE_VALUES = {
+            10, -20, 5, 5, 35, -20, -20, 10, -5, -15, -5, -5, 5,
+            5, -10, -5, -70, 15, 80, 0, -30, -55, -40, 35, -5, 25 };
+
+    private static final AtomicLong nextVersion = new AtomicLong();
+
+    /**
+     * The value of each leave, indexed by {@link #index(int[])}.
+     */
+    private final ShortBuffer values;
+
+    /**
+     * Distinguishes this table from every other, for caches of moves chosen with it.
+     */
+    private final long version = nextVersion.incrementAndGet();
+
+    private LeaveTable(ShortBuffer values)
+    {
+        this.values = values;
+    }
+
+    /**
+     * Returns the built-in table, which values each leave by its letters, its duplicates and its balance of
+     * vowels and consonants.
+     *
+     * @return the standard leave table
+     */
+    public static LeaveTable standard()
+    {
+        return Standard.TABLE;
+    }
+
+    /**
+     * Memory-maps a table from a file written by {@link #write(Path)}.
+     *
+     * @param path the binary leave file
+     * @return the table held in the file
+     * @throws IOException if the file cannot be read or is not a leave table
+     */
+    public static LeaveTable load(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() != 2L * SIZE)
+            {
+                throw new IOException(path + " is not a leave table: expected " + 2L * SIZE + " bytes, found " + channel.size());
+            }
+            return new LeaveTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, 2L * SIZE).asShortBuffer());
+        }
+    }
+
+    /**
+     * Reads a table from text with one leave per line: the letters of the leave, then a comma or whitespace, then
+     * its value in points. Blank lines and lines starting with '#' are ignored, as are leaves holding tiles other
+     * than 'A' to 'Z' (such as blanks) or more than MAX_LEAVE tiles. Leaves not listed are worth nothing.
+     *
+     * @param reader the text to read
+     * @return the table described by the text
+     * @throws IOException if the text cannot be read or a line is malformed
+     */
+    public static LeaveTable fromText(Reader reader) throws IOException
+    {
+        ShortBuffer values = ShortBuffer.allocate(SIZE);
+        int[] counts = new int[26];
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = br.readLine()) != null)
+        {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            String[] fields = line.split("[,\\s]+");
+            if (fields.length != 2)
+            {
+                throw new IOException("line " + lineNumber + ": expected a leave and a value: " + line);
+            }
+            double points;
+            try
+            {
+                points = Double.parseDouble(fields[1]);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("line " + lineNumber + ": bad value: " + fields[1], e);
+            }
+            if (!toCounts(fields[0].toUpperCase(), counts))
+            {
+                continue;
+            }
+            int index = index(counts);
+            if (index >= 0)
+            {
+                values.put(index, clamp(Math.round(points * SCALE)));
+            }
+        }
+        return new LeaveTable(values.asReadOnlyBuffer());
+    }
+
+    /**
+     * Writes this table to a binary file that {@link #load(Path)} can map.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException
+    {
+        ByteBuffer bytes = ByteBuffer.allocate(2 * SIZE);
+        for (int i = 0; i < SIZE; i++)
+        {
+            bytes.putShort(values.get(i));
+        }
+        bytes.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (bytes.hasRemaining())
+            {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the leave with the provided letter counts, in tenths of a point. Allocates nothing.
+     *
+     * @param counts the number of each letter 'A' to 'Z' in the leave
+     * @return the value of the leave, or 0 if it holds more than MAX_LEAVE tiles
+     */
+    public int value(int[] counts)
+    {
+        int index = index(counts);
+        return index < 0 ? 0 : values.get(index);
+    }
+
+    /**
+     * Returns the value of the provided leave, in points.
+     *
+     * @param leave the tiles kept
+     * @return the value of the leave
+     */
+    public double valueOf(List<Character> leave)
+    {
+        int[] counts = new int[26];
+        for (Character ch : leave)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+            }
+        }
+        return value(counts) / (double) SCALE;
+    }
+
+    /**
+     * Returns the version of this table: no two tables share one.
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the slot of the leave with the provided letter counts: the rank of its sorted letters, padded with
+     * the symbol 26, among all such sequences. The i-th symbol b_i (from 0) becomes b_i + i, which makes the
+     * sequence strictly increasing, and the rank is the sum of C(b_i + i, i + 1).
+     *
+     * @param counts the number of each letter 'A' to 'Z' in the leave
+     * @return the slot of the leave in [0, SIZE), or -1 if it holds more than MAX_LEAVE tiles
+     */
+    public static int index(int[] counts)
+    {
+        int rank = 0;
+        int i = 0;
+        for (int l = 0; l < 26; l++)
+        {
+            for (int k = counts[l]; k > 0; k--)
+            {
+                if (i == MAX_LEAVE)
+                {
+                    return -1;
+                }
+                rank += BINOMIAL[l + i][i + 1];
+                i++;
+            }
+        }
+        for (; i < MAX_LEAVE; i++)
+        {
+            rank += BINOMIAL[26 + i][i + 1];
+        }
+        return rank;
+    }
+
+    private static boolean toCounts(String leave, int[] counts)
+    {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < leave.length(); i++)
+        {
+            char ch = leave.charAt(i);
+            if (ch < 'A' || ch > 'Z')
+            {
+                return false;
+            }
+            counts[ch - 'A']++;
+        }
+        return true;
+    }
+
+    private static short clamp(long value)
+    {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    /**
+     * Returns the built-in value of a leave, in tenths of a point.
+     */
+    private static int standardValue(int[] counts)
+    {
+        int value = 0, vowels = 0, tiles = 0;
+        for (int l = 0; l < 26; l++)
+        {
+            if (counts[l] == 0)
+            {
+                continue;
+            }
+            value += TILE_VALUES[l];
+            // Second and later copies of a letter are worth little, and cost the rack flexibility.
+            value -= 30 * (counts[l] - 1) + (counts[l] > 2 ? 20 * (counts[l] - 2) : 0);
+            tiles += counts[l];
+            if ("AEIOU".indexOf('A' + l) >= 0)
+            {
+                vowels += counts[l];
+            }
+        }
+        if (counts['Q' - 'A'] > 0 && counts['U' - 'A'] > 0)
+        {
+            value += 40;
+        }
+        // A leave is best with a little more consonants than vowels.
+        int imbalance = Math.abs(2 * vowels - tiles);
+        if (imbalance > 1)
+        {
+            value -= 15 * (imbalance - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Builds the built-in table on first use.
+     */
+    private static class Standard {
+
+        private static final LeaveTable TABLE = build();
+
+        private static LeaveTable build()
+        {
+            ShortBuffer values = ShortBuffer.allocate(SIZE);
+            fill(values, new int[26], 0, 0);
+            return new LeaveTable(values.asReadOnlyBuffer());
+        }
+
+        /**
+         * Fills in every leave that adds letters from index from onwards to the counts so far.
+         */
+        private static void fill(ShortBuffer values, int[] counts, int from, int tiles)
+        {
+            values.put(index(counts), clamp(standardValue(counts)));
+            if (tiles == MAX_LEAVE)
+            {
+                return;
+            }
+            for (int l = from; l < 26; l++)
+            {
+                counts[l]++;
+                fill(values, counts, l, tiles + 1);
+                counts[l]--;
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package API;
+
+import javafx.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+/**
+ * An immutable description of a single play on the scrabble board: where the main word lies,
+ * which of its squares were filled by the play, and what the play scores.
+ */
+public class Move {
+
+    /**
+     * The row and column of the first letter of the main word.
+     */
+    private final int row, col;
+
+    /**
+     * True if the main word reads left to right, false if it reads top to bottom.
+     */
+    private final boolean horizontal;
+
+    /**
+     * The main word formed by the play, including letters already on the board.
+     */
+    private final String word;
+
+    /**
+     * A bitmask over the squares of the main word's line (columns for a horizontal play, rows for a vertical one)
+     * marking the squares on which a tile was placed by this play.
+     */
+    private final int placedMask;
+
+    /**
+     * The score yielded by the play.
+     */
+    private final int score;
+
+    /**
+     * Constructs a move.
+     *
+     * @param row the row of the first letter of the main word
+     * @param col the column of the first letter of the main word
+     * @param horizontal true if the main word reads left to right
+     * @param word the main word, including letters already on the board
+     * @param placedMask the squares along the line of the main word that this play fills, as a bitmask
+     * @param score the score yielded by the play
+     */
+    public Move(int row, int col, boolean horizontal, String word, int placedMask, int score)
+    {
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.word = word;
+        this.placedMask = placedMask;
+        this.score = score;
+    }
+
+    /**
+     * Returns the row of the first letter of the main word.
+     * @return row
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the column of the first letter of the main word.
+     * @return col
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Returns true if the main word reads left to right, false if it reads top to bottom.
+     * @return horizontal
+     */
+    public boolean isHorizontal() {
+        return horizontal;
+    }
+
+    /**
+     * Returns the main word formed by this play.
+     * @return word
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the squares along the line of the main word that this play fills, as a bitmask.
+     * @return placedMask
+     */
+    public int getPlacedMask() {
+        return placedMask;
+    }
+
+    /**
+     * Returns the score yielded by this play.
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of tiles this play takes from the rack.
+     * @return the number of tiles placed
+     */
+    public int getTileCount() {
+        return Integer.bitCount(placedMask);
+    }
+
+    /**
+     * Returns the tiles this play takes from the rack, in reading order.
+     * @return the tiles placed by this move
+     */
+    public List<Character> getTilesPlaced()
+    {
+        List<Character> tiles = new ArrayList<>();
+        int start = horizontal ? col : row;
+        for (int i = 0; i < word.length(); i++)
+        {
+            if ((placedMask & (1 << (start + i))) != 0)
+            {
+                tiles.add(word.charAt(i));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the board coordinates of the squares this play fills, in reading order.
+     * @return the coordinates of the tiles placed by this move
+     */
+    public List<Pair<Integer, Integer>> getPlacedCoordinates()
+    {
+        List<Pair<Integer, Integer>> coords = new ArrayList<>();
+        int start = horizontal ? col : row;
+        for (int i = start; i < start + word.length(); i++)
+        {
+            if ((placedMask & (1 << i)) != 0)
+            {
+                coords.add(horizontal ? new Pair<>(row, i) : new Pair<>(i, col));
+            }
+        }
+        return coords;
+    }
+
+    /**
+     * Returns a copy of the provided board with this move played on it.
+     *
+     * @param board the scrabble board this move was generated for
+     * @return the scrabble board after this move
+     */
+    public List<List<Character>> applyTo(List<List<Character>> board)
+    {
+        List<List<Character>> after = forEachBoardSquareAsNestedList((r, c) -> board.get(r).get(c));
+        for (int i = 0; i < word.length(); i++)
+        {
+            if (horizontal)
+            {
+                after.get(row).set(col + i, word.charAt(i));
+            }
+            else
+            {
+                after.get(row + i).set(col, word.charAt(i));
+            }
+        }
+        return after;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof Move))
+        {
+            return false;
+        }
+        Move move = (Move) o;
+        return row == move.row && col == move.col && horizontal == move.horizontal
+                && placedMask == move.placedMask && score == move.score && word.equals(move.word);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = row;
+        result = 31 * result + col;
+        result = 31 * result + (horizontal ? 1 : 0);
+        result = 31 * result + word.hashCode();
+        result = 31 * result + placedMask;
+        return 31 * result + score;
+    }
+
+    @Override
+    public String toString()
+    {
+        return (horizontal ? (row + 1) + "" + (char) ('A' + col) : (char) ('A' + col) + "" + (row + 1))
+                + " " + word + " " + score;
+    }
+}
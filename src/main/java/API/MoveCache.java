@@ -0,0 +1,304 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the best move for a position, shared safely between threads.
+ *
+ * Entries are keyed by a 64-bit Zobrist hash of the board, the multiset of letters in the rack, the version
+ * of the lexicon and the leave table ranking the moves, so a changed word list never sees moves found with the
+ * old one. Only searches that completed are cached. When the cache is full, the oldest entry is evicted.
+ */
+public class MoveCache {
+
+    /**
+     * A random 64-bit code for every letter on every square. The seed is fixed so hashes are stable between runs.
+     */
+    private static final long[] ZOBRIST = new long[15 * 15 * 26];
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(0x5C4AB8L);
+        for (int i = 0; i < ZOBRIST.length; i++)
+        {
+            ZOBRIST[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * The largest rack that fits in a rack key: five bits per letter.
+     */
+    private static final int MAX_RACK_KEY_TILES = 12;
+
+    /**
+     * Stands in for "the rack has no move here", since the map cannot hold null.
+     */
+    private static final Move NO_MOVE = new Move(0, 0, true, "", 0, 0);
+
+    private final int capacity;
+
+    private final Map<Key, Move> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the entries, oldest first.
+     */
+    private final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     * @param capacity the most entries the cache holds at once
+     */
+    public MoveCache(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the highest scoring move for hand on board, searching only if the position is not cached.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param trie the trie containing the dictionary of valid words
+     * @param budget the budget for the search on a miss
+     * @return the best move, or null if there is none (or the budget ran out before one was found)
+     */
+    public Move bestMove(List<List<Character>> board, List<Character> hand, Trie trie, SearchBudget budget)
+    {
+        return bestMove(board, hand, trie, budget, null);
+    }
+
+    /**
+     * Returns the move of highest equity for hand on board, searching only if the position is not cached.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param trie the trie containing the dictionary of valid words
+     * @param budget the budget for the search on a miss
+     * @param leaves the values of rack leaves, or null to rank moves by score
+     * @return the best move, or null if there is none (or the budget ran out before one was found)
+     */
+    public Move bestMove(List<List<Character>> board, List<Character> hand, Trie trie, SearchBudget budget,
+                         LeaveTable leaves)
+    {
+        long rack = rackKey(hand);
+        Key key = rack < 0 ? null
+                : new Key(boardHash(board), rack, trie.getVersion(), leaves == null ? 0 : leaves.getVersion());
+        if (key != null)
+        {
+            Move cached = entries.get(key);
+            if (cached != null && fits(cached, board, hand))
+            {
+                hits.increment();
+                return cached == NO_MOVE ? null : cached;
+            }
+        }
+        misses.increment();
+
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        SearchResult result = generator.search(hand, 1, budget, leaves);
+        Move best = result.getBestMove();
+        if (key != null && result.isCompleted())
+        {
+            put(key, best == null ? NO_MOVE : best);
+        }
+        return best;
+    }
+
+    /**
+     * Empties the cache. Statistics are kept.
+     */
+    public void invalidate()
+    {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * @return the size of the cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to search.
+     * @return misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for newer ones.
+     * @return evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the 64-bit Zobrist hash of the letters on board. Squares not holding 'A' to 'Z' do not contribute.
+     *
+     * @param board the scrabble board
+     * @return the hash of the board
+     */
+    public static long boardHash(List<List<Character>> board)
+    {
+        long hash = 0;
+        for (int r = 0; r < 15; r++)
+        {
+            List<Character> row = board.get(r);
+            for (int c = 0; c < 15; c++)
+            {
+                char ch = row.get(c);
+                if (ch >= 'A' && ch <= 'Z')
+                {
+                    hash ^= ZOBRIST[(r * 15 + c) * 26 + (ch - 'A')];
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist code of letter ch on square (r, c), from which {@link #boardHash(List)} is built.
+     * A board's hash can be updated for a move by XORing in the code of every tile it places.
+     */
+    static long squareKey(int r, int c, char ch)
+    {
+        return ZOBRIST[(r * 15 + c) * 26 + (ch - 'A')];
+    }
+
+    /**
+     * Returns a key identifying the multiset of letters in hand, the same whatever order the tiles are in.
+     * The letters are sorted and packed five bits apiece.
+     *
+     * @param hand the tiles in the rack
+     * @return the rack key, or -1 if the rack holds too many letters to pack
+     */
+    public static long rackKey(List<Character> hand)
+    {
+        int[] counts = new int[26];
+        int tiles = 0;
+        for (Character ch : hand)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+                tiles++;
+            }
+        }
+        if (tiles > MAX_RACK_KEY_TILES)
+        {
+            return -1;
+        }
+        long key = 0;
+        for (int l = 0; l < 26; l++)
+        {
+            for (int i = 0; i < counts[l]; i++)
+            {
+                key = key << 5 | (l + 1);
+            }
+        }
+        return key;
+    }
+
+    private void put(Key key, Move move)
+    {
+        if (entries.putIfAbsent(key, move) == null)
+        {
+            insertionOrder.add(key);
+            while (entries.size() > capacity)
+            {
+                Key oldest = insertionOrder.poll();
+                if (oldest == null)
+                {
+                    break;
+                }
+                if (entries.remove(oldest) != null)
+                {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if move could have been found for hand on board: every square it fills is empty, and the rack
+     * holds its tiles. This guards against the rare board hash collision.
+     */
+    private static boolean fits(Move move, List<List<Character>> board, List<Character> hand)
+    {
+        if (move == NO_MOVE)
+        {
+            return true;
+        }
+        boolean empty = move.getPlacedCoordinates().stream()
+                .allMatch(square -> board.get(square.getKey()).get(square.getValue()) == ' ');
+        if (!empty)
+        {
+            return false;
+        }
+        List<Character> rack = new ArrayList<>(hand);
+        return move.getTilesPlaced().stream().allMatch(rack::remove);
+    }
+
+    /**
+     * A cache key: board hash, rack key, lexicon version and leave table version (0 for none).
+     */
+    private static final class Key {
+
+        private final long board, rack, lexicon, leaves;
+
+        Key(long board, long rack, long lexicon, long leaves)
+        {
+            this.board = board;
+            this.rack = rack;
+            this.lexicon = lexicon;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return board == key.board && rack == key.rack && lexicon == key.lexicon && leaves == key.leaves;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            long h = board * 31 + rack;
+            h = h * 31 + lexicon;
+            h = h * 31 + leaves;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package API;
+
+/**
+ * A callback that receives each legal move found by a {@link MoveGenerator} without the generator
+ * allocating anything on its behalf.
+ *
+ * The line array is the generator's scratch line and is only valid for the duration of the call;
+ * use {@link MoveGenerator#toMove(int, int, boolean, char[], int, int, int, int)} to keep a move.
+ */
+@FunctionalInterface
+public interface MoveConsumer {
+
+    /**
+     * Receives a legal move.
+     *
+     * @param row the row of the first letter of the main word
+     * @param col the column of the first letter of the main word
+     * @param horizontal true if the main word reads left to right
+     * @param line the line (row, or column for a vertical play) containing the main word after the play
+     * @param start the index in line of the first letter of the main word
+     * @param end the index in line one past the last letter of the main word
+     * @param placedMask the squares of line filled by this play, as a bitmask
+     * @param score the score yielded by the play
+     */
+    void accept(int row, int col, boolean horizontal, char[] line, int start, int end, int placedMask, int score);
+}
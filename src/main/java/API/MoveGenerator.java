@@ -0,0 +1,1018 @@
+package API;
+
+import util.TopKHeap;
+import util.TrieNode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A reusable move generator implementing the anchor / left part / extend right search of Appel and Jacobson
+ * over primitive arrays: cross-checks are letter bitmasks, the rack is a letter count array, and moves are
+ * scored in place as they are found. Nothing is copied or allocated per candidate move.
+ *
+ * A generator is bound to a trie, loaded with a board via {@link #setBoard(List)}, and can then generate moves
+ * for any number of racks. Instances are not thread safe; use one per thread.
+ */
+public class MoveGenerator {
+
+    /**
+     * Bitmask with a bit set for every letter 'A' to 'Z'.
+     */
+    static final int ALL_LETTERS = (1 << 26) - 1;
+
+    /**
+     * Index of the board (horizontal plays) and of its transpose (vertical plays) in the per-orientation arrays.
+     */
+    static final int ACROSS = 0, DOWN = 1;
+
+    /**
+     * The trie representing the dictionary.
+     */
+    final Trie trie;
+
+    /**
+     * lines[ACROSS] is the board, lines[DOWN] is its transpose, so that every play reads along lines[o][r].
+     */
+    final char[][][] lines = new char[2][15][15];
+
+    /**
+     * crossChecks[o][r][c] is the set of letters that may be placed at lines[o][r][c] by a play along that line.
+     */
+    final int[][][] crossChecks = new int[2][15][15];
+
+    /**
+     * crossScores[o][r][c] is the face value of the perpendicular word through lines[o][r][c], or -1 if none is formed.
+     */
+    final int[][][] crossScores = new int[2][15][15];
+
+    /**
+     * anchors[r][c] is true if a play must cover board square (r, c) to connect with the tiles already played.
+     */
+    final boolean[][] anchors = new boolean[15][15];
+
+    /**
+     * The rack being generated for, as a count per letter, and the set of letters it still holds.
+     */
+    private final int[] rack = new int[26];
+    private int rackMask;
+
+    /**
+     * The letters of the left part currently being built.
+     */
+    private final char[] leftPart = new char[15];
+
+    /**
+     * The anchors of the search in progress, in the order they are searched, and the sort keys that ordered them;
+     * kept from search to search so that searching allocates no arrays.
+     */
+    private final long[] anchorKeys = new long[2 * 225];
+    private final int[] anchorOrder = new int[2 * 225];
+
+    /**
+     * The state of the search in progress.
+     */
+    private int orientation, row, anchor;
+    private MoveConsumer consumer;
+
+    /**
+     * Counters over every search run by this generator since the last call to resetStatistics().
+     */
+    private long anchorsSearched, nodesVisited, movesGenerated, duplicatesSkipped;
+
+    /**
+     * The budget of the search in progress, and the value of nodesVisited when it started.
+     */
+    private SearchBudget budget;
+    private long searchStartNodes;
+
+    /**
+     * Constructs a generator for the provided dictionary, loaded with an empty board.
+     * @param trie the trie representing the dictionary
+     */
+    public MoveGenerator(Trie trie)
+    {
+        this.trie = trie;
+        for (char[][] l : lines)
+        {
+            for (char[] line : l)
+            {
+                Arrays.fill(line, ' ');
+            }
+        }
+        computeTables();
+    }
+
+    /**
+     * Constructs a generator loaded with the same board as other.
+     * @param other the generator to copy
+     */
+    MoveGenerator(MoveGenerator other)
+    {
+        this.trie = other.trie;
+        copyBoard(other);
+    }
+
+    /**
+     * Loads the board of other, which must use the same trie, into this generator. Nothing is recomputed or
+     * allocated, which makes this the cheap way to reset a scratch generator to a position.
+     *
+     * @param other the generator whose board to copy
+     */
+    public void copyBoard(MoveGenerator other)
+    {
+        if (other.trie != trie)
+        {
+            throw new IllegalArgumentException("generators must share a trie");
+        }
+        for (int o = ACROSS; o <= DOWN; o++)
+        {
+            for (int r = 0; r < 15; r++)
+            {
+                System.arraycopy(other.lines[o][r], 0, lines[o][r], 0, 15);
+                System.arraycopy(other.crossChecks[o][r], 0, crossChecks[o][r], 0, 15);
+                System.arraycopy(other.crossScores[o][r], 0, crossScores[o][r], 0, 15);
+            }
+        }
+        for (int r = 0; r < 15; r++)
+        {
+            System.arraycopy(other.anchors[r], 0, anchors[r], 0, 15);
+        }
+    }
+
+    /**
+     * Loads the provided board into this generator, recomputing its anchors and cross-checks.
+     * @param board the scrabble board to generate moves on
+     */
+    public void setBoard(List<List<Character>> board)
+    {
+        for (int r = 0; r < 15; r++)
+        {
+            for (int c = 0; c < 15; c++)
+            {
+                char ch = board.get(r).get(c);
+                lines[ACROSS][r][c] = ch;
+                lines[DOWN][c][r] = ch;
+            }
+        }
+        computeTables();
+    }
+
+    /**
+     * Plays move on the loaded board. Only what the new tiles can change is recomputed: the cross-checks along
+     * the lines the tiles were placed in, and the anchors around them. An opening move recomputes everything.
+     *
+     * @param move a move generated for the loaded board
+     */
+    public void play(Move move)
+    {
+        if (lines[ACROSS][7][7] == ' ')
+        {
+            place(move);
+            computeTables();
+            return;
+        }
+        String word = move.getWord();
+        int placedRows = 0, placedCols = 0;
+        for (int i = 0; i < word.length(); i++)
+        {
+            int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+            int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+            if (lines[ACROSS][r][c] == ' ')
+            {
+                placedRows |= 1 << r;
+                placedCols |= 1 << c;
+            }
+        }
+        place(move);
+        updateTables(placedRows, placedCols);
+    }
+
+    /**
+     * Takes back move, which must be the last move played on the loaded board with {@link #play(Move)}, leaving
+     * the board and every table as they were before it. As with play, only the lines the tiles were placed in and
+     * the squares around them are recomputed, unless taking the move back empties the board.
+     *
+     * @param move the last move played
+     */
+    public void unplay(Move move)
+    {
+        int start = move.isHorizontal() ? move.getCol() : move.getRow();
+        int placedRows = 0, placedCols = 0;
+        for (int m = move.getPlacedMask(); m != 0; m &= m - 1)
+        {
+            int i = Integer.numberOfTrailingZeros(m) - start;
+            int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+            int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+            lines[ACROSS][r][c] = ' ';
+            lines[DOWN][c][r] = ' ';
+            placedRows |= 1 << r;
+            placedCols |= 1 << c;
+        }
+        if (lines[ACROSS][7][7] == ' ')
+        {
+            // Only the opening move covers the centre square without it being covered already.
+            computeTables();
+        }
+        else
+        {
+            updateTables(placedRows, placedCols);
+        }
+    }
+
+    /**
+     * Loads board into this generator, which must already hold a board that board only adds tiles to, such as
+     * the board before the last move. Only what the new tiles can change is recomputed, as by
+     * {@link #play(Move)}. Any other board is loaded in full.
+     *
+     * @param board the scrabble board to generate moves on
+     */
+    public void update(List<List<Character>> board)
+    {
+        int placedRows = 0, placedCols = 0;
+        boolean addsTiles = lines[ACROSS][7][7] != ' ';
+        for (int r = 0; r < 15 && addsTiles; r++)
+        {
+            for (int c = 0; c < 15 && addsTiles; c++)
+            {
+                char before = lines[ACROSS][r][c], after = board.get(r).get(c);
+                if (before != after)
+                {
+                    addsTiles = before == ' ';
+                    placedRows |= 1 << r;
+                    placedCols |= 1 << c;
+                }
+            }
+        }
+        if (!addsTiles)
+        {
+            setBoard(board);
+            return;
+        }
+        for (int rows = placedRows; rows != 0; rows &= rows - 1)
+        {
+            int r = Integer.numberOfTrailingZeros(rows);
+            for (int cols = placedCols; cols != 0; cols &= cols - 1)
+            {
+                int c = Integer.numberOfTrailingZeros(cols);
+                lines[ACROSS][r][c] = board.get(r).get(c);
+                lines[DOWN][c][r] = board.get(r).get(c);
+            }
+        }
+        updateTables(placedRows, placedCols);
+    }
+
+    /**
+     * Returns the lines along which moves may differ between this generator's board and other's, as a bitmask
+     * with bit o * 15 + r set for lines[o][r]. The moves along a line depend only on its letters, its cross-checks
+     * and cross scores, and its anchors, so a line on which all of those match has exactly the same moves.
+     *
+     * @param other a generator using the same trie
+     * @return the mask of lines that differ
+     */
+    long dirtyLines(MoveGenerator other)
+    {
+        long dirty = 0;
+        for (int o = ACROSS; o <= DOWN; o++)
+        {
+            for (int r = 0; r < 15; r++)
+            {
+                boolean same = Arrays.equals(lines[o][r], other.lines[o][r])
+                        && Arrays.equals(crossChecks[o][r], other.crossChecks[o][r])
+                        && Arrays.equals(crossScores[o][r], other.crossScores[o][r]);
+                for (int c = 0; c < 15 && same; c++)
+                {
+                    same = isAnchor(o, r, c) == other.isAnchor(o, r, c);
+                }
+                if (!same)
+                {
+                    dirty |= 1L << (o * 15 + r);
+                }
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Returns the bit of dirtyLines() for the line a move lies along.
+     */
+    static long lineBit(Move move)
+    {
+        return move.isHorizontal() ? 1L << (ACROSS * 15 + move.getRow()) : 1L << (DOWN * 15 + move.getCol());
+    }
+
+    /**
+     * Recomputes the tables after tiles were placed in the rows and columns of the given masks, on a board that
+     * already had tiles.
+     */
+    private void updateTables(int placedRows, int placedCols)
+    {
+        // Squares in a changed row get their vertical plays' cross-checks from that row, and vice versa.
+        for (int rows = placedRows; rows != 0; rows &= rows - 1)
+        {
+            int r = Integer.numberOfTrailingZeros(rows);
+            for (int c = 0; c < 15; c++)
+            {
+                computeCrossCheck(DOWN, c, r, lines[ACROSS][r], c);
+            }
+        }
+        for (int cols = placedCols; cols != 0; cols &= cols - 1)
+        {
+            int c = Integer.numberOfTrailingZeros(cols);
+            for (int r = 0; r < 15; r++)
+            {
+                computeCrossCheck(ACROSS, r, c, lines[DOWN][c], r);
+            }
+        }
+        // Only squares on or beside a new tile can change whether they are anchors.
+        for (int rows = placedRows; rows != 0; rows &= rows - 1)
+        {
+            int r = Integer.numberOfTrailingZeros(rows);
+            for (int cols = placedCols; cols != 0; cols &= cols - 1)
+            {
+                int c = Integer.numberOfTrailingZeros(cols);
+                for (int dr = Math.max(0, r - 1); dr <= Math.min(14, r + 1); dr++)
+                {
+                    for (int dc = Math.max(0, c - 1); dc <= Math.min(14, c + 1); dc++)
+                    {
+                        anchors[dr][dc] = isAnchor(dr, dc);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the letters of move into lines, without updating any table.
+     */
+    private void place(Move move)
+    {
+        String word = move.getWord();
+        for (int i = 0; i < word.length(); i++)
+        {
+            int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+            int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+            lines[ACROSS][r][c] = word.charAt(i);
+            lines[DOWN][c][r] = word.charAt(i);
+        }
+    }
+
+    /**
+     * Returns the trie this generator validates words against.
+     * @return trie
+     */
+    public Trie getTrie()
+    {
+        return trie;
+    }
+
+    /**
+     * Generates every legal move on the loaded board for the provided rack.
+     *
+     * @param hand the tiles in the rack
+     * @param consumer the callback receiving each move as it is found
+     */
+    public void generate(List<Character> hand, MoveConsumer consumer)
+    {
+        generate(hand, consumer, SearchBudget.unlimited());
+    }
+
+    /**
+     * Generates the legal moves on the loaded board for the provided rack until the budget runs out.
+     *
+     * With a limited budget, anchors are searched most promising first, so that the moves found before the
+     * budget runs out are likely to include the best ones. With an unlimited budget, anchors are searched
+     * in board order.
+     *
+     * @param hand the tiles in the rack
+     * @param consumer the callback receiving each move as it is found
+     * @param budget the budget for this search
+     * @return true if every move was generated, false if the budget ran out first
+     */
+    public boolean generate(List<Character> hand, MoveConsumer consumer, SearchBudget budget)
+    {
+        return generate(hand, consumer, budget, -1L);
+    }
+
+    /**
+     * Generates the legal moves along the lines of lineMask (see {@link #dirtyLines}) until the budget runs out.
+     */
+    boolean generate(List<Character> hand, MoveConsumer consumer, SearchBudget budget, long lineMask)
+    {
+        loadRack(hand);
+        this.consumer = consumer;
+        this.budget = budget;
+        budget.start();
+        searchStartNodes = nodesVisited;
+        int count = orderAnchors(budget.isLimited(), lineMask);
+        for (int i = 0; i < count && !budget.isExhausted(nodesVisited - searchStartNodes); i++)
+        {
+            anchorsSearched++;
+            int encoded = anchorOrder[i];
+            generateAtAnchor(encoded / 225, (encoded / 15) % 15, encoded % 15);
+            budget.reportAnchor(i + 1, count);
+        }
+        this.consumer = null;
+        this.budget = null;
+        return !budget.wasExhausted();
+    }
+
+    /**
+     * Returns the n highest scoring moves on the loaded board for the provided rack, best first.
+     * Among equally scoring moves, the one found first is preferred.
+     *
+     * @param hand the tiles in the rack
+     * @param n the number of moves to return
+     * @return at most n moves, in descending order of score
+     */
+    public List<Move> topMoves(List<Character> hand, int n)
+    {
+        return search(hand, n, SearchBudget.unlimited()).getMoves();
+    }
+
+    /**
+     * Returns the n highest scoring moves found on the loaded board for the provided rack before the budget
+     * runs out, best first. The result reports whether the search completed, in which case the moves are exact.
+     *
+     * @param hand the tiles in the rack
+     * @param n the number of moves to return
+     * @param budget the budget for this search
+     * @return the best moves found, with whether the search completed
+     */
+    public SearchResult search(List<Character> hand, int n, SearchBudget budget)
+    {
+        return search(hand, n, budget, null);
+    }
+
+    /**
+     * Returns the n moves of highest equity found on the loaded board for the provided rack before the budget
+     * runs out, best first. The equity of a move is its score plus the value of the tiles it leaves in the rack;
+     * leaves are looked up as moves are found, without building the leave. With no leave table, moves are
+     * ranked by score alone.
+     *
+     * @param hand the tiles in the rack
+     * @param n the number of moves to return
+     * @param budget the budget for this search
+     * @param leaves the values of rack leaves, or null to rank by score
+     * @return the best moves found, with whether the search completed
+     */
+    public SearchResult search(List<Character> hand, int n, SearchBudget budget, LeaveTable leaves)
+    {
+        long startTime = System.nanoTime();
+        long startNodes = nodesVisited;
+        TopKHeap<Move> heap = new TopKHeap<>(n);
+        boolean completed = search(hand, heap, budget, leaves);
+        return new SearchResult(heap.toSortedList(), completed, nodesVisited - startNodes, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Searches the loaded board for the provided rack, keeping the best moves in heap, which is cleared first.
+     * Lets a caller that searches many positions reuse one heap rather than allocate a result per search.
+     *
+     * @param hand the tiles in the rack
+     * @param heap the heap to collect the best moves in; its capacity is the number of moves kept
+     * @param budget the budget for this search
+     * @param leaves the values of rack leaves, or null to rank by score
+     * @return true if the search completed
+     */
+    boolean search(List<Character> hand, TopKHeap<Move> heap, SearchBudget budget, LeaveTable leaves)
+    {
+        return search(hand, heap, budget, leaves, -1L);
+    }
+
+    /**
+     * Searches the lines of lineMask (see {@link #dirtyLines}) for the provided rack, keeping the best moves in
+     * heap, which is cleared first.
+     */
+    boolean search(List<Character> hand, TopKHeap<Move> heap, SearchBudget budget, LeaveTable leaves, long lineMask)
+    {
+        heap.clear();
+        boolean reportBest = budget.hasProgress();
+        int[] bestPriority = {Integer.MIN_VALUE};
+        return generate(hand, (r, c, horizontal, line, start, end, placedMask, score) -> {
+            // While a move is being reported, the rack holds exactly its leave.
+            int priority = leaves == null ? score : score * LeaveTable.SCALE + leaves.value(rack);
+            if (heap.accepts(priority))
+            {
+                Move move = toMove(r, c, horizontal, line, start, end, placedMask, score);
+                heap.offer(priority, move);
+                if (reportBest && priority > bestPriority[0])
+                {
+                    bestPriority[0] = priority;
+                    budget.reportBest(move);
+                }
+            }
+        }, budget, lineMask);
+    }
+
+    /**
+     * Returns a lazy spliterator over the legal moves on the loaded board for the provided rack.
+     *
+     * Moves are only searched for as they are pulled, so a consumer that stops early never pays for the rest
+     * of the search. The spliterator works on its own snapshot of the loaded board, so this generator may be
+     * reloaded while it is in use, and it splits by anchor for parallel streams.
+     *
+     * @param hand the tiles in the rack
+     * @return a spliterator over every legal move for hand
+     */
+    public Spliterator<Move> spliterator(List<Character> hand)
+    {
+        return new MoveSpliterator(this, hand);
+    }
+
+    /**
+     * Returns a lazy, sequential stream over the legal moves on the loaded board for the provided rack.
+     * Call parallel() on the result to search anchors concurrently.
+     *
+     * @param hand the tiles in the rack
+     * @return a stream of every legal move for hand
+     */
+    public Stream<Move> stream(List<Character> hand)
+    {
+        return StreamSupport.stream(spliterator(hand), false);
+    }
+
+    /**
+     * Builds an immutable move from the arguments passed to a {@link MoveConsumer}.
+     *
+     * @param row the row of the first letter of the main word
+     * @param col the column of the first letter of the main word
+     * @param horizontal true if the main word reads left to right
+     * @param line the line containing the main word
+     * @param start the index in line of the first letter of the main word
+     * @param end the index in line one past the last letter of the main word
+     * @param placedMask the squares of line filled by this play
+     * @param score the score yielded by the play
+     * @return the move
+     */
+    public static Move toMove(int row, int col, boolean horizontal, char[] line, int start, int end, int placedMask, int score)
+    {
+        return new Move(row, col, horizontal, new String(line, start, end - start), placedMask, score);
+    }
+
+    boolean isAnchor(int o, int r, int c)
+    {
+        return o == ACROSS ? anchors[r][c] : anchors[c][r];
+    }
+
+    private void loadRack(List<Character> hand)
+    {
+        Arrays.fill(rack, 0);
+        rackMask = 0;
+        for (Character ch : hand)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                rack[ch - 'A']++;
+                rackMask |= 1 << (ch - 'A');
+            }
+        }
+    }
+
+    /**
+     * Writes the anchors of the loaded board to anchorOrder, encoded as orientation * 225 + line * 15 + index,
+     * either in board order or most promising first, and returns how many there are.
+     *
+     * An anchor is promising if the squares a play through it could reach hold premiums or tiles to play through,
+     * and if a tile on it would also score a cross word.
+     */
+    private int orderAnchors(boolean byPromise, long lineMask)
+    {
+        int count = 0;
+        long[] keys = anchorKeys;
+        for (int o = ACROSS; o <= DOWN; o++)
+        {
+            for (int r = 0; r < 15; r++)
+            {
+                for (int c = 0; c < 15; c++)
+                {
+                    if (isAnchor(o, r, c) && (lineMask & (1L << (o * 15 + r))) != 0)
+                    {
+                        int encoded = o * 225 + r * 15 + c;
+                        // Sort on promise first, then on board order, by packing both into one key.
+                        keys[count++] = byPromise ? ((long) -promise(o, r, c) << 32) | encoded : encoded;
+                    }
+                }
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++)
+        {
+            anchorOrder[i] = (int) keys[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns a rough estimate of how well a play through the anchor at lines[o][r][c] could score.
+     */
+    private int promise(int o, int r, int c)
+    {
+        char[] line = lines[o][r];
+        int promise = crossScores[o][r][c] >= 0 ? crossScores[o][r][c] : 0;
+        int from = Math.max(0, c - Math.min(leftLimit(o, r, c), 6));
+        int to = Math.min(14, c + 6);
+        for (int i = from; i <= to; i++)
+        {
+            if (line[i] != ' ')
+            {
+                promise += Tile.scoreCharacter(line[i]);
+                continue;
+            }
+            int boardRow = o == ACROSS ? r : i;
+            int boardCol = o == ACROSS ? i : r;
+            promise += (Board.letterMultipliers[boardRow][boardCol] - 1) + 4 * (Board.wordMultipliers[boardRow][boardCol] - 1);
+        }
+        return promise;
+    }
+
+    /**
+     * Generates every move along lines[o][r] that covers the anchor at index c.
+     */
+    private void generateAtAnchor(int o, int r, int c)
+    {
+        orientation = o;
+        row = r;
+        anchor = c;
+        char[] line = lines[o][r];
+        if (c > 0 && line[c - 1] != ' ')
+        {
+            // The tiles to the left of the anchor are a fixed prefix of every word through it.
+            int start = prefixStart(line, c);
+            TrieNode node = prefixNode(line, start, c);
+            if (node != null)
+            {
+                extendRight(start, c, node, 0);
+            }
+        }
+        else
+        {
+            leftPart(trie.getRoot(), 0, leftLimit(o, r, c));
+        }
+    }
+
+    /**
+     * Returns the index of the first tile of the run of tiles ending just before index c of line.
+     */
+    static int prefixStart(char[] line, int c)
+    {
+        int start = c - 1;
+        while (start > 0 && line[start - 1] != ' ')
+        {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the trie node spelling line[start..end), or null if no word starts with it.
+     */
+    TrieNode prefixNode(char[] line, int start, int end)
+    {
+        TrieNode node = trie.getRoot();
+        for (int i = start; i < end && node != null; i++)
+        {
+            node = node.getChild(line[i]);
+        }
+        return node;
+    }
+
+    /**
+     * Returns how far a left part may grow from the anchor at lines[o][r][c]: over the empty,
+     * non-anchor squares to its left.
+     */
+    int leftLimit(int o, int r, int c)
+    {
+        char[] line = lines[o][r];
+        int limit = 0;
+        for (int i = c - 1; i >= 0 && line[i] == ' ' && !isAnchor(o, r, i); i--)
+        {
+            limit++;
+        }
+        return limit;
+    }
+
+    /**
+     * Builds every left part of at most limit tiles from the rack, extending each to the right of the anchor.
+     */
+    private void leftPart(TrieNode node, int length, int limit)
+    {
+        if (budget.isExhausted(nodesVisited - searchStartNodes))
+        {
+            return;
+        }
+        nodesVisited++;
+        char[] line = lines[orientation][row];
+        int start = anchor - length;
+        int placedMask = 0;
+        for (int i = 0; i < length; i++)
+        {
+            line[start + i] = leftPart[i];
+            placedMask |= 1 << (start + i);
+        }
+        extendRight(start, anchor, node, placedMask);
+        for (int i = start; i < anchor; i++)
+        {
+            line[i] = ' ';
+        }
+
+        if (length < limit)
+        {
+            int candidates = node.getEdgeMask() & rackMask;
+            while (candidates != 0)
+            {
+                int letter = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                char ch = (char) ('A' + letter);
+                takeFromRack(letter);
+                leftPart[length] = ch;
+                leftPart(node.getChild(ch), length + 1, limit);
+                returnToRack(letter);
+            }
+        }
+    }
+
+    /**
+     * Extends the word starting at start, whose letters before pos are spelled by node, through square pos.
+     */
+    private void extendRight(int start, int pos, TrieNode node, int placedMask)
+    {
+        if (budget.isExhausted(nodesVisited - searchStartNodes))
+        {
+            return;
+        }
+        nodesVisited++;
+        char[] line = lines[orientation][row];
+        if (pos == 15 || line[pos] == ' ')
+        {
+            if (pos > anchor && placedMask != 0 && node.isWord())
+            {
+                if (isDuplicate(orientation, row, placedMask))
+                {
+                    duplicatesSkipped++;
+                }
+                else
+                {
+                    movesGenerated++;
+                    legalMove(start, pos, placedMask);
+                }
+            }
+            if (pos == 15)
+            {
+                return;
+            }
+            int candidates = node.getEdgeMask() & rackMask & crossChecks[orientation][row][pos];
+            while (candidates != 0)
+            {
+                int letter = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                char ch = (char) ('A' + letter);
+                takeFromRack(letter);
+                line[pos] = ch;
+                extendRight(start, pos + 1, node.getChild(ch), placedMask | (1 << pos));
+                line[pos] = ' ';
+                returnToRack(letter);
+            }
+        }
+        else
+        {
+            TrieNode next = node.getChild(line[pos]);
+            if (next != null)
+            {
+                extendRight(start, pos + 1, next, placedMask);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the play filling placedMask along lines[o][r] is also generated along the other orientation.
+     *
+     * Within one orientation every placement is generated once, since left parts never reach back over another
+     * anchor. Across orientations, only a play of a single tile can be found twice: as a horizontal word with a
+     * vertical cross word and as a vertical word with a horizontal cross word. Such plays are kept across only.
+     */
+    boolean isDuplicate(int o, int r, int placedMask)
+    {
+        return o == DOWN && Integer.bitCount(placedMask) == 1
+                && crossScores[DOWN][r][Integer.numberOfTrailingZeros(placedMask)] >= 0;
+    }
+
+    /**
+     * Returns the number of anchors searched since the last call to resetStatistics().
+     * @return anchorsSearched
+     */
+    public long getAnchorsSearched()
+    {
+        return anchorsSearched;
+    }
+
+    /**
+     * Returns the number of search nodes (left part and extend right steps) visited since the last call to
+     * resetStatistics().
+     * @return nodesVisited
+     */
+    public long getNodesVisited()
+    {
+        return nodesVisited;
+    }
+
+    /**
+     * Returns the number of moves reported to consumers since the last call to resetStatistics().
+     * @return movesGenerated
+     */
+    public long getMovesGenerated()
+    {
+        return movesGenerated;
+    }
+
+    /**
+     * Returns the number of plays found a second time, along the other orientation, and dropped without being
+     * scored since the last call to resetStatistics().
+     * @return duplicatesSkipped
+     */
+    public long getDuplicatesSkipped()
+    {
+        return duplicatesSkipped;
+    }
+
+    /**
+     * Resets the search counters of this generator to zero.
+     */
+    public void resetStatistics()
+    {
+        anchorsSearched = 0;
+        nodesVisited = 0;
+        movesGenerated = 0;
+        duplicatesSkipped = 0;
+    }
+
+    /**
+     * Scores the word lines[orientation][row][start..end) and reports it to the consumer.
+     */
+    private void legalMove(int start, int end, int placedMask)
+    {
+        char[] line = lines[orientation][row];
+        int score = score(orientation, row, start, end, placedMask);
+        if (orientation == ACROSS)
+        {
+            consumer.accept(row, start, true, line, start, end, placedMask, score);
+        }
+        else
+        {
+            consumer.accept(start, row, false, line, start, end, placedMask, score);
+        }
+    }
+
+    /**
+     * Returns the score of the play spelling lines[o][r][start..end) by filling the squares in placedMask.
+     */
+    int score(int o, int r, int start, int end, int placedMask)
+    {
+        char[] line = lines[o][r];
+        int mainScore = 0, wordMultiplier = 1, crossScore = 0;
+        for (int i = start; i < end; i++)
+        {
+            int letterScore = Tile.scoreCharacter(line[i]);
+            if ((placedMask & (1 << i)) != 0)
+            {
+                int boardRow = o == ACROSS ? r : i;
+                int boardCol = o == ACROSS ? i : r;
+                letterScore *= Board.letterMultipliers[boardRow][boardCol];
+                int squareWordMultiplier = Board.wordMultipliers[boardRow][boardCol];
+                wordMultiplier *= squareWordMultiplier;
+                int perpendicular = crossScores[o][r][i];
+                if (perpendicular >= 0)
+                {
+                    crossScore += (perpendicular + letterScore) * squareWordMultiplier;
+                }
+            }
+            mainScore += letterScore;
+        }
+        int score = mainScore * wordMultiplier + crossScore;
+        if (Integer.bitCount(placedMask) == 7)
+        {
+            score += 50;
+        }
+        return score;
+    }
+
+    private void takeFromRack(int letter)
+    {
+        if (--rack[letter] == 0)
+        {
+            rackMask &= ~(1 << letter);
+        }
+    }
+
+    private void returnToRack(int letter)
+    {
+        rack[letter]++;
+        rackMask |= 1 << letter;
+    }
+
+    /**
+     * Recomputes the anchors and the cross-check tables of both orientations from lines.
+     */
+    private void computeTables()
+    {
+        boolean empty = true;
+        for (int r = 0; r < 15 && empty; r++)
+        {
+            for (int c = 0; c < 15 && empty; c++)
+            {
+                empty = lines[ACROSS][r][c] == ' ';
+            }
+        }
+        for (int r = 0; r < 15; r++)
+        {
+            for (int c = 0; c < 15; c++)
+            {
+                char[] across = lines[ACROSS][r];
+                char[] down = lines[DOWN][c];
+                anchors[r][c] = empty ? r == 7 && c == 7 : isAnchor(r, c);
+                // A horizontal play through (r, c) forms a vertical cross word along column c, and vice versa.
+                computeCrossCheck(ACROSS, r, c, down, r);
+                computeCrossCheck(DOWN, c, r, across, c);
+            }
+        }
+    }
+
+    /**
+     * Returns true if board square (r, c) of a board that is not empty is empty and beside a tile.
+     */
+    private boolean isAnchor(int r, int c)
+    {
+        char[] across = lines[ACROSS][r];
+        char[] down = lines[DOWN][c];
+        return across[c] == ' ' && ((c > 0 && across[c - 1] != ' ') || (c < 14 && across[c + 1] != ' ')
+                || (r > 0 && down[r - 1] != ' ') || (r < 14 && down[r + 1] != ' '));
+    }
+
+    /**
+     * Computes the cross-check set and cross score of lines[o][r][c], whose perpendicular line is perpendicularLine.
+     */
+    private void computeCrossCheck(int o, int r, int c, char[] perpendicularLine, int pos)
+    {
+        if (perpendicularLine[pos] != ' ')
+        {
+            crossChecks[o][r][c] = 0;
+            crossScores[o][r][c] = -1;
+            return;
+        }
+        int start = pos, end = pos + 1;
+        while (start > 0 && perpendicularLine[start - 1] != ' ')
+        {
+            start--;
+        }
+        while (end < 15 && perpendicularLine[end] != ' ')
+        {
+            end++;
+        }
+        if (start == pos && end == pos + 1)
+        {
+            crossChecks[o][r][c] = ALL_LETTERS;
+            crossScores[o][r][c] = -1;
+            return;
+        }
+
+        int faceValue = 0;
+        TrieNode prefix = trie.getRoot();
+        for (int i = start; i < pos; i++)
+        {
+            faceValue += Tile.scoreCharacter(perpendicularLine[i]);
+            if (prefix != null)
+            {
+                prefix = prefix.getChild(perpendicularLine[i]);
+            }
+        }
+        for (int i = pos + 1; i < end; i++)
+        {
+            faceValue += Tile.scoreCharacter(perpendicularLine[i]);
+        }
+
+        int allowed = 0;
+        if (prefix != null)
+        {
+            int candidates = prefix.getEdgeMask();
+            while (candidates != 0)
+            {
+                int letter = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                TrieNode node = prefix.getChild((char) ('A' + letter));
+                for (int i = pos + 1; i < end && node != null; i++)
+                {
+                    node = node.getChild(perpendicularLine[i]);
+                }
+                if (node != null && node.isWord())
+                {
+                    allowed |= 1 << letter;
+                }
+            }
+        }
+        crossChecks[o][r][c] = allowed;
+        crossScores[o][r][c] = faceValue;
+    }
+}
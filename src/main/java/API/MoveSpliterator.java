@@ -0,0 +1,352 @@
+package API;
+
+import util.TrieNode;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A pull-based counterpart to {@link MoveGenerator#generate(List, MoveConsumer)}.
+ *
+ * The left part / extend right recursion is unrolled onto an explicit stack of frames, so the search can stop
+ * after any move and resume exactly where it left off on the next call to tryAdvance. Moves come out in the
+ * same order as from generate. Anchors not yet started can be split off for parallel streams.
+ */
+class MoveSpliterator implements Spliterator<Move> {
+
+    /**
+     * Frame kinds: building a left part, or extending a word to the right.
+     */
+    private static final int LEFT = 0, RIGHT = 1;
+
+    /**
+     * Frame phases: just entered, or iterating over the letters that may be placed next.
+     */
+    private static final int ENTERED = 0, ITERATING = 1;
+
+    /**
+     * Frames can be at most one per square of a line for each kind.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * This spliterator's own copy of the board tables. Its lines are used as the scratch lines of the search.
+     */
+    private final MoveGenerator tables;
+
+    /**
+     * The anchors to search, encoded as orientation * 225 + line * 15 + index, and the range left to search.
+     */
+    private final int[] anchorList;
+    private int nextAnchor, endAnchor;
+
+    /**
+     * The rack, as a count per letter and a set of the letters still held.
+     */
+    private final int[] rack;
+    private int rackMask;
+
+    /**
+     * The anchor being searched.
+     */
+    private int orientation, row, anchor, limit;
+
+    /**
+     * The letters of the left part currently being built.
+     */
+    private final char[] leftPart = new char[15];
+
+    /**
+     * The search stack. A LEFT frame stores the left part length in pos; a RIGHT frame stores the word start in
+     * start and the square being filled in pos. letter is the letter placed by the frame's current child, or -1.
+     */
+    private int depth;
+    private final int[] kind = new int[MAX_DEPTH], phase = new int[MAX_DEPTH];
+    private final int[] start = new int[MAX_DEPTH], pos = new int[MAX_DEPTH];
+    private final int[] placed = new int[MAX_DEPTH], candidates = new int[MAX_DEPTH], letter = new int[MAX_DEPTH];
+    private final TrieNode[] node = new TrieNode[MAX_DEPTH];
+
+    /**
+     * Constructs a spliterator over every move for hand on the board loaded into generator.
+     * @param generator the generator whose board to search
+     * @param hand the tiles in the rack
+     */
+    MoveSpliterator(MoveGenerator generator, List<Character> hand)
+    {
+        tables = new MoveGenerator(generator);
+        rack = new int[26];
+        for (Character ch : hand)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                rack[ch - 'A']++;
+                rackMask |= 1 << (ch - 'A');
+            }
+        }
+
+        int count = 0;
+        int[] anchors = new int[2 * 225];
+        for (int o = MoveGenerator.ACROSS; o <= MoveGenerator.DOWN; o++)
+        {
+            for (int r = 0; r < 15; r++)
+            {
+                for (int c = 0; c < 15; c++)
+                {
+                    if (tables.isAnchor(o, r, c))
+                    {
+                        anchors[count++] = o * 225 + r * 15 + c;
+                    }
+                }
+            }
+        }
+        anchorList = anchors;
+        endAnchor = count;
+    }
+
+    /**
+     * Constructs a spliterator over anchorList[from..to) of parent, with parent's rack.
+     */
+    private MoveSpliterator(MoveSpliterator parent, int from, int to)
+    {
+        tables = new MoveGenerator(parent.tables);
+        anchorList = parent.anchorList;
+        nextAnchor = from;
+        endAnchor = to;
+        rack = parent.rack.clone();
+        rackMask = parent.rackMask;
+        // The parent may be part way through an anchor, with tiles of its rack on its lines. Undo that in the copy.
+        for (int f = 0; f < parent.depth; f++)
+        {
+            if (parent.letter[f] >= 0)
+            {
+                if (rack[parent.letter[f]]++ == 0)
+                {
+                    rackMask |= 1 << parent.letter[f];
+                }
+            }
+        }
+        for (int f = 0; f < parent.depth; f++)
+        {
+            if (parent.kind[f] == RIGHT)
+            {
+                char[] line = tables.lines[parent.orientation][parent.row];
+                for (int i = 0; i < 15; i++)
+                {
+                    if ((parent.placed[f] & (1 << i)) != 0)
+                    {
+                        line[i] = ' ';
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Move> action)
+    {
+        while (true)
+        {
+            if (depth == 0)
+            {
+                if (nextAnchor >= endAnchor)
+                {
+                    return false;
+                }
+                startAnchor(anchorList[nextAnchor++]);
+                continue;
+            }
+
+            int f = depth - 1;
+            char[] line = tables.lines[orientation][row];
+            if (kind[f] == LEFT)
+            {
+                if (phase[f] == ENTERED)
+                {
+                    int length = pos[f];
+                    int wordStart = anchor - length;
+                    int placedMask = 0;
+                    for (int i = 0; i < length; i++)
+                    {
+                        line[wordStart + i] = leftPart[i];
+                        placedMask |= 1 << (wordStart + i);
+                    }
+                    phase[f] = ITERATING;
+                    candidates[f] = length < limit ? node[f].getEdgeMask() & rackMask : 0;
+                    letter[f] = -1;
+                    pushRight(wordStart, anchor, node[f], placedMask);
+                    continue;
+                }
+                if (letter[f] >= 0)
+                {
+                    returnToRack(letter[f]);
+                    letter[f] = -1;
+                }
+                else
+                {
+                    // The extension of this left part is done: lift the left part off the line again.
+                    for (int i = anchor - pos[f]; i < anchor; i++)
+                    {
+                        line[i] = ' ';
+                    }
+                }
+                if (candidates[f] == 0)
+                {
+                    depth--;
+                    continue;
+                }
+                int next = Integer.numberOfTrailingZeros(candidates[f]);
+                candidates[f] &= candidates[f] - 1;
+                char ch = (char) ('A' + next);
+                takeFromRack(next);
+                letter[f] = next;
+                leftPart[pos[f]] = ch;
+                pushLeft(node[f].getChild(ch), pos[f] + 1);
+                continue;
+            }
+
+            // A RIGHT frame.
+            int p = pos[f];
+            if (phase[f] == ENTERED)
+            {
+                if (p == 15 || line[p] == ' ')
+                {
+                    phase[f] = ITERATING;
+                    candidates[f] = p == 15 ? 0
+                            : node[f].getEdgeMask() & rackMask & tables.crossChecks[orientation][row][p];
+                    letter[f] = -1;
+                    if (p > anchor && placed[f] != 0 && node[f].isWord()
+                            && !tables.isDuplicate(orientation, row, placed[f]))
+                    {
+                        action.accept(toMove(start[f], p, placed[f]));
+                        return true;
+                    }
+                    continue;
+                }
+                // An occupied square: follow its letter in place of this frame.
+                TrieNode child = node[f].getChild(line[p]);
+                depth--;
+                if (child != null)
+                {
+                    pushRight(start[f], p + 1, child, placed[f]);
+                }
+                continue;
+            }
+            if (letter[f] >= 0)
+            {
+                line[p] = ' ';
+                returnToRack(letter[f]);
+                letter[f] = -1;
+            }
+            if (candidates[f] == 0)
+            {
+                depth--;
+                continue;
+            }
+            int next = Integer.numberOfTrailingZeros(candidates[f]);
+            candidates[f] &= candidates[f] - 1;
+            char ch = (char) ('A' + next);
+            takeFromRack(next);
+            letter[f] = next;
+            line[p] = ch;
+            pushRight(start[f], p + 1, node[f].getChild(ch), placed[f] | (1 << p));
+        }
+    }
+
+    @Override
+    public Spliterator<Move> trySplit()
+    {
+        int remaining = endAnchor - nextAnchor;
+        if (remaining < 2)
+        {
+            return null;
+        }
+        int mid = nextAnchor + remaining / 2;
+        MoveSpliterator suffix = new MoveSpliterator(this, mid, endAnchor);
+        endAnchor = mid;
+        return suffix;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return NONNULL | IMMUTABLE | DISTINCT;
+    }
+
+    /**
+     * Pushes the root frame of the search at the encoded anchor.
+     */
+    private void startAnchor(int encoded)
+    {
+        orientation = encoded / 225;
+        row = (encoded / 15) % 15;
+        anchor = encoded % 15;
+        char[] line = tables.lines[orientation][row];
+        if (anchor > 0 && line[anchor - 1] != ' ')
+        {
+            int wordStart = MoveGenerator.prefixStart(line, anchor);
+            TrieNode prefix = tables.prefixNode(line, wordStart, anchor);
+            if (prefix != null)
+            {
+                pushRight(wordStart, anchor, prefix, 0);
+            }
+        }
+        else
+        {
+            limit = tables.leftLimit(orientation, row, anchor);
+            pushLeft(tables.trie.getRoot(), 0);
+        }
+    }
+
+    private void pushLeft(TrieNode n, int length)
+    {
+        kind[depth] = LEFT;
+        phase[depth] = ENTERED;
+        node[depth] = n;
+        pos[depth] = length;
+        placed[depth] = 0;
+        letter[depth] = -1;
+        depth++;
+    }
+
+    private void pushRight(int wordStart, int square, TrieNode n, int placedMask)
+    {
+        kind[depth] = RIGHT;
+        phase[depth] = ENTERED;
+        node[depth] = n;
+        start[depth] = wordStart;
+        pos[depth] = square;
+        placed[depth] = placedMask;
+        letter[depth] = -1;
+        depth++;
+    }
+
+    private Move toMove(int wordStart, int end, int placedMask)
+    {
+        char[] line = tables.lines[orientation][row];
+        int score = tables.score(orientation, row, wordStart, end, placedMask);
+        return orientation == MoveGenerator.ACROSS
+                ? MoveGenerator.toMove(row, wordStart, true, line, wordStart, end, placedMask, score)
+                : MoveGenerator.toMove(wordStart, row, false, line, wordStart, end, placedMask, score);
+    }
+
+    private void takeFromRack(int l)
+    {
+        if (--rack[l] == 0)
+        {
+            rackMask &= ~(1 << l);
+        }
+    }
+
+    private void returnToRack(int l)
+    {
+        rack[l]++;
+        rackMask |= 1 << l;
+    }
+}
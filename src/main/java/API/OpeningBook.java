@@ -0,0 +1,354 @@
+package API;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+/**
+ * A table of the best first move, on an empty board, for every rack of seven tiles.
+ *
+ * On an empty board the best play depends on nothing but the rack, and there are only C(32, 7) = 3,365,856 racks
+ * of seven letters, so they can all be solved ahead of time. Racks are given slots by the same perfect hash as
+ * {@link LeaveTable}: the sorted letters are ranked in the combinatorial number system. Each slot holds two
+ * entries, the highest scoring play and the play of highest equity by {@link LeaveTable#standard()}, as one int
+ * each, so the whole book is about 27 MB.
+ *
+ * A play is stored as read along row 7, which loses nothing since the board is symmetric about its diagonal: the
+ * index in the sorted rack of each tile of the word, 3 bits each with 7 for none, then how far left of the centre
+ * square the word starts, in 3 bits, then the score, in 8 bits. A rack with no play at all holds -1.
+ *
+ * A book is built by {@link #generate}, in parallel, written by {@link #write(Path)} and memory-mapped by
+ * {@link #load(Path)}. It holds the plays of the lexicon it was built with, and must be built again when that
+ * changes. Books are immutable and safe to share between threads.
+ */
+public class OpeningBook {
+
+    /**
+     * The number of tiles in a rack the book holds.
+     */
+    public static final int RACK_SIZE = 7;
+
+    /**
+     * The number of racks of RACK_SIZE tiles over 26 letters: C(26 + 7 - 1, 7).
+     */
+    public static final int SIZE = 3365856;
+
+    /**
+     * The entry of a rack with no play.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The columns of each slot.
+     */
+    private static final int BY_SCORE = 0, BY_EQUITY = 1;
+
+    /**
+     * BINOMIAL[n][k] is n choose k, for the ranks of racks.
+     */
+    private static final int[][] BINOMIAL = new int[26 + RACK_SIZE][RACK_SIZE + 1];
+
+    static
+    {
+        for (int n = 0; n < BINOMIAL.length; n++)
+        {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, RACK_SIZE); k++)
+            {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    /**
+     * The entries, two per slot.
+     */
+    private final IntBuffer entries;
+
+    private OpeningBook(IntBuffer entries)
+    {
+        this.entries = entries;
+    }
+
+    /**
+     * Solves every rack that can be drawn from the tiles of a game, on a pool of threads workers.
+     *
+     * @param trie the trie containing the dictionary of valid words
+     * @param threads the number of worker threads
+     * @return the book
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static OpeningBook generate(Trie trie, int threads) throws InterruptedException
+    {
+        return generate(trie, threads, 0, SIZE);
+    }
+
+    /**
+     * Solves the racks in the slots from from to to, leaving every other slot without a play.
+     */
+    static OpeningBook generate(Trie trie, int threads, int from, int to) throws InterruptedException
+    {
+        int[] limits = new int[26];
+        Tile.getTileDistribution().forEach(tile -> limits[tile - 'A']++);
+        List<List<Character>> board = forEachBoardSquareAsNestedList((r, c) -> ' ');
+        ThreadLocal<MoveGenerator> generators = ThreadLocal.withInitial(() -> {
+            MoveGenerator generator = new MoveGenerator(trie);
+            generator.setBoard(board);
+            return generator;
+        });
+        int[] entries = new int[2 * SIZE];
+        Arrays.fill(entries, NONE);
+        LeaveTable leaves = LeaveTable.standard();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try
+        {
+            pool.submit(() -> IntStream.range(from, to).parallel().forEach(slot -> {
+                char[] rack = rack(slot);
+                int[] counts = new int[26];
+                for (char tile : rack)
+                {
+                    counts[tile - 'A']++;
+                }
+                for (int l = 0; l < 26; l++)
+                {
+                    if (counts[l] > limits[l])
+                    {
+                        return;
+                    }
+                }
+                solve(generators.get(), rack, counts, leaves, entries, slot);
+            })).get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException(e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return new OpeningBook(IntBuffer.wrap(entries).asReadOnlyBuffer());
+    }
+
+    /**
+     * Memory-maps a book from a file written by {@link #write(Path)}.
+     *
+     * @param path the binary book file
+     * @return the book held in the file
+     * @throws IOException if the file cannot be read or is not an opening book
+     */
+    public static OpeningBook load(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() != 8L * SIZE)
+            {
+                throw new IOException(path + " is not an opening book: expected " + 8L * SIZE + " bytes, found " + channel.size());
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, 8L * SIZE).asIntBuffer());
+        }
+    }
+
+    /**
+     * Writes this book to a binary file that {@link #load(Path)} can map.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException
+    {
+        ByteBuffer bytes = ByteBuffer.allocate(8 * SIZE);
+        for (int i = 0; i < 2 * SIZE; i++)
+        {
+            bytes.putInt(entries.get(i));
+        }
+        bytes.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (bytes.hasRemaining())
+            {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the book holds the best move for hand on board ranked by leaves: the board must be empty,
+     * the hand must hold RACK_SIZE letters, and leaves must be null or the standard table.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the hand
+     * @param leaves the values of rack leaves, or null to rank by score
+     * @return true if {@link #bestMove} can answer
+     */
+    public boolean covers(List<List<Character>> board, List<Character> hand, LeaveTable leaves)
+    {
+        if (hand.size() != RACK_SIZE || (leaves != null && leaves != LeaveTable.standard()))
+        {
+            return false;
+        }
+        for (Character ch : hand)
+        {
+            if (ch == null || ch < 'A' || ch > 'Z')
+            {
+                return false;
+            }
+        }
+        for (List<Character> row : board)
+        {
+            for (Character ch : row)
+            {
+                if (ch != ' ')
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the best first move for hand, read along row 7, by one lookup. The book must cover the position
+     * (see {@link #covers}).
+     *
+     * @param hand the tiles in the hand
+     * @param leaves the standard leave table to rank by equity, or null to rank by score
+     * @return the best move, or null if hand can play nothing
+     */
+    public Move bestMove(List<Character> hand, LeaveTable leaves)
+    {
+        int[] counts = new int[26];
+        hand.forEach(tile -> counts[tile - 'A']++);
+        int entry = entries.get(2 * index(counts) + (leaves == null ? BY_SCORE : BY_EQUITY));
+        if (entry == NONE)
+        {
+            return null;
+        }
+        char[] rack = new char[RACK_SIZE];
+        for (int l = 0, i = 0; l < 26; l++)
+        {
+            for (int k = counts[l]; k > 0; k--)
+            {
+                rack[i++] = (char) ('A' + l);
+            }
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < RACK_SIZE && (entry >>> (3 * i) & 7) != 7; i++)
+        {
+            word.append(rack[entry >>> (3 * i) & 7]);
+        }
+        int start = 7 - (entry >>> 21 & 7);
+        return new Move(7, start, true, word.toString(), ((1 << word.length()) - 1) << start, entry >>> 24);
+    }
+
+    /**
+     * Returns the slot of the rack with the provided letter counts: the rank of its sorted letters among all such
+     * sequences. The i-th letter b_i (from 0) becomes b_i + i, which makes the sequence strictly increasing, and
+     * the rank is the sum of C(b_i + i, i + 1).
+     *
+     * @param counts the number of each letter 'A' to 'Z' in the rack, RACK_SIZE in all
+     * @return the slot of the rack in [0, SIZE)
+     */
+    public static int index(int[] counts)
+    {
+        int rank = 0;
+        int i = 0;
+        for (int l = 0; l < 26; l++)
+        {
+            for (int k = counts[l]; k > 0; k--)
+            {
+                rank += BINOMIAL[l + i][i + 1];
+                i++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the sorted rack in slot, undoing {@link #index}: the largest c_i = b_i + i with C(c_i, i + 1) no
+     * more than what is left of the rank is found for each letter, last first.
+     */
+    static char[] rack(int slot)
+    {
+        char[] rack = new char[RACK_SIZE];
+        int rank = slot;
+        for (int i = RACK_SIZE - 1; i >= 0; i--)
+        {
+            int c = 26 + i - 1;
+            while (BINOMIAL[c][i + 1] > rank)
+            {
+                c--;
+            }
+            rank -= BINOMIAL[c][i + 1];
+            rack[i] = (char) ('A' + c - i);
+        }
+        return rack;
+    }
+
+    /**
+     * Finds the highest scoring play and the play of highest equity for rack along row 7, and stores them in
+     * slot of entries.
+     */
+    private static void solve(MoveGenerator generator, char[] rack, int[] counts, LeaveTable leaves,
+                              int[] entries, int slot)
+    {
+        List<Character> hand = new ArrayList<>();
+        for (char tile : rack)
+        {
+            hand.add(tile);
+        }
+        int[] best = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+        int[] leave = new int[26];
+        generator.generate(hand, (r, c, horizontal, line, start, end, placedMask, score) -> {
+            System.arraycopy(counts, 0, leave, 0, 26);
+            for (int i = start; i < end; i++)
+            {
+                leave[line[i] - 'A']--;
+            }
+            int equity = score * LeaveTable.SCALE + leaves.value(leave);
+            if (score > best[BY_SCORE])
+            {
+                best[BY_SCORE] = score;
+                entries[2 * slot + BY_SCORE] = encode(rack, line, start, end, score);
+            }
+            if (equity > best[BY_EQUITY])
+            {
+                best[BY_EQUITY] = equity;
+                entries[2 * slot + BY_EQUITY] = encode(rack, line, start, end, score);
+            }
+        }, SearchBudget.unlimited(), 1L << (MoveGenerator.ACROSS * 15 + 7));
+    }
+
+    /**
+     * Returns the entry for the word line[start, end) played from the sorted rack at column start of row 7.
+     */
+    private static int encode(char[] rack, char[] line, int start, int end, int score)
+    {
+        int entry = -1 >>> 11;
+        boolean[] used = new boolean[RACK_SIZE];
+        for (int i = start; i < end; i++)
+        {
+            int t = 0;
+            while (used[t] || rack[t] != line[i])
+            {
+                t++;
+            }
+            used[t] = true;
+            int shift = 3 * (i - start);
+            entry = entry & ~(7 << shift) | t << shift;
+        }
+        return entry & ((1 << 21) - 1) | (7 - start) << 21 | score << 24;
+    }
+}
@@ -0,0 +1,228 @@
+package API;
+
+import util.TrieNode;
+
+/**
+ * A play being put together one tile at a time, as the player drops tiles on the board, which knows after every
+ * tile whether it is a legal play and what it would score.
+ *
+ * Only the tiles placed are kept, as a change to a board held by a {@link MoveGenerator}. The generator's tables
+ * already say everything a check needs: which letters each square accepts given the words across it
+ * (cross-checks), what those words are worth (cross scores), and which squares connect a play to the tiles on
+ * the board (anchors). So checking the play after a change takes one walk along the line it lies on, and the
+ * board is never rebuilt nor a cross-check recomputed.
+ *
+ * The rules are those of {@link Board#validMove}: the tiles lie in one row or column with no gaps, every word
+ * they form is in the dictionary, and the play covers the centre square on the first turn, or touches a tile
+ * already played on later ones.
+ */
+public class PendingMove {
+
+    private final MoveGenerator generator;
+
+    /**
+     * The tiles placed, as board squares r * 15 + c and their letters, in the order placed.
+     */
+    private final int[] squares = new int[15];
+    private final char[] letters = new char[15];
+    private int count;
+
+    /**
+     * The play the tiles make, or null if they do not make a legal one.
+     */
+    private Move move;
+
+    /**
+     * Constructs an empty play on the board generator holds. The generator must not be loaded with another
+     * board while the play is in use, and is only borrowed: a check leaves it as it was.
+     *
+     * @param generator a generator loaded with the board before the play
+     */
+    public PendingMove(MoveGenerator generator)
+    {
+        this.generator = generator;
+    }
+
+    /**
+     * Places a tile and checks the play again.
+     *
+     * @param r the row of the square
+     * @param c the column of the square
+     * @param letter the letter of the tile
+     * @throws IllegalArgumentException if the square is taken or the letter is not 'A' to 'Z'
+     */
+    public void place(int r, int c, char letter)
+    {
+        if (generator.lines[MoveGenerator.ACROSS][r][c] != ' ' || indexOf(r * 15 + c) >= 0)
+        {
+            throw new IllegalArgumentException("square " + r + ", " + c + " is taken");
+        }
+        if (letter < 'A' || letter > 'Z')
+        {
+            throw new IllegalArgumentException("not a tile: " + letter);
+        }
+        squares[count] = r * 15 + c;
+        letters[count] = letter;
+        count++;
+        move = check();
+    }
+
+    /**
+     * Takes back the tile on a square and checks the play again. Does nothing if no tile was placed there.
+     *
+     * @param r the row of the square
+     * @param c the column of the square
+     */
+    public void remove(int r, int c)
+    {
+        int i = indexOf(r * 15 + c);
+        if (i >= 0)
+        {
+            count--;
+            System.arraycopy(squares, i + 1, squares, i, count - i);
+            System.arraycopy(letters, i + 1, letters, i, count - i);
+            move = check();
+        }
+    }
+
+    /**
+     * Takes back every tile.
+     */
+    public void clear()
+    {
+        count = 0;
+        move = null;
+    }
+
+    /**
+     * Returns the number of tiles placed.
+     * @return count
+     */
+    public int getTileCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns true if the tiles placed make a legal play.
+     * @return true if the play is legal
+     */
+    public boolean isValid()
+    {
+        return move != null;
+    }
+
+    /**
+     * Returns the play the tiles make, with its main word and score, or null if they do not make a legal one.
+     * @return move
+     */
+    public Move getMove()
+    {
+        return move;
+    }
+
+    private int indexOf(int square)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (squares[i] == square)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the play the tiles placed make, or null if it is not legal.
+     */
+    private Move check()
+    {
+        if (count == 0)
+        {
+            return null;
+        }
+        boolean sameRow = true, sameCol = true;
+        for (int i = 1; i < count; i++)
+        {
+            sameRow &= squares[i] / 15 == squares[0] / 15;
+            sameCol &= squares[i] % 15 == squares[0] % 15;
+        }
+        if (sameRow)
+        {
+            Move across = check(MoveGenerator.ACROSS, squares[0] / 15);
+            // A single tile may make its main word either way; it reads across if it forms a word across.
+            if (across != null || !sameCol)
+            {
+                return across;
+            }
+        }
+        return sameCol ? check(MoveGenerator.DOWN, squares[0] % 15) : null;
+    }
+
+    /**
+     * Returns the play the tiles placed make along lines[o][r], or null if it is not legal.
+     */
+    private Move check(int o, int r)
+    {
+        char[] line = generator.lines[o][r];
+        int placedMask = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int pos = o == MoveGenerator.ACROSS ? squares[i] % 15 : squares[i] / 15;
+            placedMask |= 1 << pos;
+            line[pos] = letters[i];
+        }
+        try
+        {
+            int first = Integer.numberOfTrailingZeros(placedMask), last = 31 - Integer.numberOfLeadingZeros(placedMask);
+            int start = first, end = last + 1;
+            while (start > 0 && line[start - 1] != ' ')
+            {
+                start--;
+            }
+            while (end < 15 && line[end] != ' ')
+            {
+                end++;
+            }
+            if (end - start < 2)
+            {
+                return null;
+            }
+            TrieNode node = generator.trie.getRoot();
+            boolean connected = false;
+            for (int pos = start; pos < end && node != null; pos++)
+            {
+                if (line[pos] == ' ')
+                {
+                    // A gap between the tiles placed.
+                    return null;
+                }
+                if ((placedMask & (1 << pos)) != 0)
+                {
+                    if ((generator.crossChecks[o][r][pos] & (1 << (line[pos] - 'A'))) == 0)
+                    {
+                        return null;
+                    }
+                    connected |= generator.isAnchor(o, r, pos);
+                }
+                node = node.getChild(line[pos]);
+            }
+            if (node == null || !node.isWord() || !connected)
+            {
+                return null;
+            }
+            int score = generator.score(o, r, start, end, placedMask);
+            String word = new String(line, start, end - start);
+            return o == MoveGenerator.ACROSS ? new Move(r, start, true, word, placedMask, score)
+                    : new Move(start, r, false, word, placedMask, score);
+        }
+        finally
+        {
+            for (int m = placedMask; m != 0; m &= m - 1)
+            {
+                line[Integer.numberOfTrailingZeros(m)] = ' ';
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the player to move may see when choosing a move: the board, their own rack, how many tiles are left in
+ * the bag, which tiles are unseen, each player's run of scoreless turns, and the lexicon. Which unseen tiles are
+ * in the bag and which on the opponent's rack, and the order they will be drawn in, are not part of it.
+ */
+public final class PlayerView {
+
+    private final List<List<Character>> board;
+
+    private final List<Character> hand;
+
+    private final int bagSize;
+
+    private final UnseenTiles unseen;
+
+    private final int scorelessTurns, opponentScorelessTurns;
+
+    private final Trie trie;
+
+    /**
+     * Constructs a view.
+     * @param board the board, which must not change while the view is in use
+     * @param hand the player's rack, copied
+     * @param bagSize the number of tiles in the bag
+     * @param unseen the tiles in the bag or on the opponent's rack, copied
+     * @param scorelessTurns the scoreless turns in a row the player has taken
+     * @param opponentScorelessTurns the scoreless turns in a row the opponent has taken
+     * @param trie the trie containing the dictionary of valid words
+     */
+    public PlayerView(List<List<Character>> board, List<Character> hand, int bagSize, UnseenTiles unseen,
+                      int scorelessTurns, int opponentScorelessTurns, Trie trie)
+    {
+        this.board = board;
+        this.hand = Collections.unmodifiableList(new ArrayList<>(hand));
+        this.bagSize = bagSize;
+        this.unseen = unseen.copy();
+        this.scorelessTurns = scorelessTurns;
+        this.opponentScorelessTurns = opponentScorelessTurns;
+        this.trie = trie;
+    }
+
+    /**
+     * Returns the board.
+     * @return board
+     */
+    public List<List<Character>> getBoard()
+    {
+        return board;
+    }
+
+    /**
+     * Returns the player's rack.
+     * @return a read-only list of the player's tiles
+     */
+    public List<Character> getHand()
+    {
+        return hand;
+    }
+
+    /**
+     * Returns the number of tiles in the bag.
+     * @return bagSize
+     */
+    public int getBagSize()
+    {
+        return bagSize;
+    }
+
+    /**
+     * Returns the tiles in the bag or on the opponent's rack, for the caller to sample from or change.
+     * @return a new tracker of the unseen tiles
+     */
+    public UnseenTiles getUnseen()
+    {
+        return unseen.copy();
+    }
+
+    /**
+     * Returns the number of scoreless turns in a row the player has taken.
+     * @return scorelessTurns
+     */
+    public int getScorelessTurns()
+    {
+        return scorelessTurns;
+    }
+
+    /**
+     * Returns the number of scoreless turns in a row the opponent has taken.
+     * @return opponentScorelessTurns
+     */
+    public int getOpponentScorelessTurns()
+    {
+        return opponentScorelessTurns;
+    }
+
+    /**
+     * Returns the trie containing the dictionary of valid words.
+     * @return trie
+     */
+    public Trie getTrie()
+    {
+        return trie;
+    }
+}
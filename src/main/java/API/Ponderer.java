@@ -0,0 +1,258 @@
+package API;
+
+import util.TopKHeap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for the CPU's move while the opponent is still thinking about theirs.
+ *
+ * When the opponent's turn starts, {@link #ponder} loads the board into a generator, which builds its anchors and
+ * cross-check tables, and finds the CPU rack's best moves along every line of the board, on a background thread.
+ * When the opponent has moved, {@link #bestMove} brings a copy of that generator up to date, recomputing only the
+ * rows and columns the opponent's tiles touched, and compares the two: moves along lines whose letters,
+ * cross-checks and anchors all match are exactly the moves found while pondering, and only the other lines are
+ * searched again. Most moves only disturb a few lines, so the reply takes a fraction of a full search.
+ */
+public class Ponderer {
+
+    /**
+     * The number of moves kept for each line, and so the most moves bestMove can be asked for.
+     */
+    public static final int MOVES_PER_LINE = 8;
+
+    private final Trie trie;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The pondering in progress or done, or null if there is none.
+     */
+    private Pondering pondering;
+
+    /**
+     * The position pondered, and what was found for it.
+     */
+    private static class Pondering {
+        final List<Character> hand;
+        final LeaveTable leaves;
+        final long lexiconVersion;
+        final SearchBudget budget = SearchBudget.unlimited();
+        MoveGenerator generator;
+        List<List<Move>> movesByLine;
+        Future<?> future;
+
+        Pondering(List<Character> hand, LeaveTable leaves, long lexiconVersion)
+        {
+            this.hand = hand;
+            this.leaves = leaves;
+            this.lexiconVersion = lexiconVersion;
+        }
+    }
+
+    /**
+     * Constructs a ponderer.
+     * @param trie the trie containing the dictionary of valid words
+     */
+    public Ponderer(Trie trie)
+    {
+        this.trie = trie;
+    }
+
+    /**
+     * Starts pondering the moves hand could play on board, in the background, dropping any earlier pondering.
+     *
+     * @param board the board the opponent is about to move on
+     * @param hand the tiles the CPU will play from
+     * @param leaves the values of rack leaves the CPU will rank moves by, or null to rank by score
+     */
+    public synchronized void ponder(List<List<Character>> board, List<Character> hand, LeaveTable leaves)
+    {
+        cancel();
+        // A board from a GameEngine is immutable already; any other is copied, as the caller may change it.
+        BoardState position = BoardState.of(board);
+        Pondering p = new Pondering(new ArrayList<>(hand), leaves, trie.getVersion());
+        p.future = executor.submit(() -> {
+            MoveGenerator generator = new MoveGenerator(trie);
+            generator.setBoard(position);
+            List<TopKHeap<Move>> heaps = new ArrayList<>();
+            for (int i = 0; i < 30; i++)
+            {
+                heaps.add(new TopKHeap<>(MOVES_PER_LINE));
+            }
+            int[] handCounts = counts(p.hand);
+            generator.generate(p.hand, (r, c, horizontal, line, start, end, placedMask, score) -> {
+                Move move = MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score);
+                TopKHeap<Move> heap = heaps.get(Long.numberOfTrailingZeros(MoveGenerator.lineBit(move)));
+                int priority = priority(move, handCounts, p.leaves);
+                if (heap.accepts(priority))
+                {
+                    heap.offer(priority, move);
+                }
+            }, p.budget);
+            List<List<Move>> movesByLine = new ArrayList<>();
+            heaps.forEach(heap -> movesByLine.add(heap.toSortedList()));
+            p.generator = generator;
+            p.movesByLine = movesByLine;
+        });
+        pondering = p;
+    }
+
+    /**
+     * Stops any pondering in progress and forgets what was pondered.
+     */
+    public synchronized void cancel()
+    {
+        if (pondering != null)
+        {
+            pondering.budget.cancel();
+            pondering.future.cancel(false);
+            pondering = null;
+        }
+    }
+
+    /**
+     * Returns the n best moves for hand on board, best first, reusing what was pondered when hand, leaves and the
+     * lexicon are the ones pondered, and searching from scratch otherwise. Waits for pondering still in progress.
+     *
+     * @param board the board after the opponent's move
+     * @param hand the tiles in the CPU's rack
+     * @param n the number of moves to return, at most MOVES_PER_LINE
+     * @param budget the budget for the search of the lines the opponent's move changed
+     * @param leaves the values of rack leaves, or null to rank by score
+     * @return the best moves found, with whether the search completed
+     */
+    public SearchResult bestMoves(List<List<Character>> board, List<Character> hand, int n, SearchBudget budget,
+                                  LeaveTable leaves)
+    {
+        if (n > MOVES_PER_LINE)
+        {
+            throw new IllegalArgumentException("at most " + MOVES_PER_LINE + " moves can be pondered: " + n);
+        }
+        long startTime = System.nanoTime();
+        Pondering p;
+        synchronized (this)
+        {
+            p = pondering;
+        }
+        if (p != null && (p.leaves != leaves || p.lexiconVersion != trie.getVersion()
+                || !sameTiles(p.hand, hand) || !await(p)))
+        {
+            p = null;
+        }
+        MoveGenerator generator = new MoveGenerator(trie);
+        if (p == null)
+        {
+            generator.setBoard(board);
+            return generator.search(hand, n, budget, leaves);
+        }
+
+        generator.copyBoard(p.generator);
+        generator.update(board);
+        long dirty = generator.dirtyLines(p.generator);
+        TopKHeap<Move> heap = new TopKHeap<>(n);
+        boolean completed = generator.search(hand, heap, budget, leaves, dirty);
+        int[] handCounts = counts(hand);
+        for (int line = 0; line < 30; line++)
+        {
+            if ((dirty & (1L << line)) == 0)
+            {
+                for (Move move : p.movesByLine.get(line))
+                {
+                    int priority = priority(move, handCounts, leaves);
+                    if (heap.accepts(priority))
+                    {
+                        heap.offer(priority, move);
+                    }
+                }
+            }
+        }
+        return new SearchResult(heap.toSortedList(), completed, generator.getNodesVisited(),
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the best move for hand on board, as {@link #bestMoves} does, or null if there is none.
+     *
+     * @param board the board after the opponent's move
+     * @param hand the tiles in the CPU's rack
+     * @param budget the budget for the search of the lines the opponent's move changed
+     * @param leaves the values of rack leaves, or null to rank by score
+     * @return the best move, or null
+     */
+    public Move bestMove(List<List<Character>> board, List<Character> hand, SearchBudget budget, LeaveTable leaves)
+    {
+        return bestMoves(board, hand, 1, budget, leaves).getBestMove();
+    }
+
+    /**
+     * Waits for p to finish, and returns true if it finished without being cancelled.
+     */
+    private static boolean await(Pondering p)
+    {
+        try
+        {
+            p.future.get();
+            return !p.budget.isCancelled();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException | CancellationException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the rank of move, played from a rack of handCounts, as MoveGenerator.search ranks it.
+     */
+    private static int priority(Move move, int[] handCounts, LeaveTable leaves)
+    {
+        if (leaves == null)
+        {
+            return move.getScore();
+        }
+        int[] leave = handCounts.clone();
+        move.getTilesPlaced().forEach(tile -> leave[tile - 'A']--);
+        return move.getScore() * LeaveTable.SCALE + leaves.value(leave);
+    }
+
+    private static int[] counts(List<Character> tiles)
+    {
+        int[] counts = new int[26];
+        for (Character ch : tiles)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+            }
+        }
+        return counts;
+    }
+
+    private static boolean sameTiles(List<Character> a, List<Character> b)
+    {
+        int[] x = counts(a), y = counts(b);
+        for (int l = 0; l < 26; l++)
+        {
+            if (x[l] != y[l])
+            {
+                return false;
+            }
+        }
+        return a.size() == b.size();
+    }
+}
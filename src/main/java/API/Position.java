@@ -0,0 +1,471 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A game position that searches change in place: moves are made on it and taken back again, in last in, first
+ * out order, without copying the board.
+ *
+ * The board is held by a {@link MoveGenerator}, so making a move updates its anchors and cross-checks only
+ * around the tiles placed, and the position is ready to generate the reply at once. Making a move also takes
+ * the tiles from the rack of the player to move, draws replacements from the bag, scores the turn by the rules
+ * of {@link GameEngine}, passes the turn, and updates a Zobrist hash of the board, both racks and the side to
+ * move. Each move pushes a record of what it changed, and {@link #unmake()} pops it, so that after any run of
+ * makes, as many unmakes leave the position exactly as it was, hash and tables included. Only the bag's random
+ * generator moves on: a move made again after being taken back may draw different tiles.
+ *
+ * Positions are not thread safe; use one per thread.
+ */
+public class Position {
+
+    /**
+     * Zobrist codes for the number of each letter on each rack, and for the side to move.
+     */
+    private static final long[][][] RACK_KEYS = new long[2][26][8];
+    private static final long SIDE_KEY;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(0x9051710L);
+        for (long[][] player : RACK_KEYS)
+        {
+            for (long[] letter : player)
+            {
+                for (int i = 0; i < letter.length; i++)
+                {
+                    letter[i] = random.nextLong();
+                }
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final MoveGenerator generator;
+
+    private final TileBag bag;
+
+    private final int[][] racks = new int[2][26];
+    private final int[] rackSizes = new int[2];
+    private final int[] scores = new int[2], scorelessTurns = new int[2];
+    private int playerToMove;
+    private boolean over;
+    private long hash;
+
+    /**
+     * What each move made changed, deepest last. Records are reused once popped, so making moves allocates
+     * nothing once the stack has grown to the depth of the search.
+     */
+    private final List<Undo> undoStack = new ArrayList<>();
+    private int depth;
+
+    /**
+     * Scratch counts of the tiles a move needs, zero between calls.
+     */
+    private final int[] needed = new int[26];
+
+    private static class Undo {
+        Move move;
+        int points, scoreless;
+        boolean over;
+        long hash;
+        final int[] drawn = new int[7];
+        int drawCount;
+    }
+
+    /**
+     * Constructs a position with both scores and both runs of scoreless turns at zero.
+     *
+     * @param trie the trie containing the dictionary of valid words
+     * @param board the scrabble board
+     * @param hands the racks of {@link GameEngine#PLAYER} and {@link GameEngine#CPU}, in that order
+     * @param bag the bag replacement tiles are drawn from, which becomes the position's own
+     * @param playerToMove the player whose turn it is
+     * @throws IllegalArgumentException if a rack holds more than 7 tiles
+     */
+    public Position(Trie trie, List<List<Character>> board, List<List<Character>> hands, TileBag bag,
+                    int playerToMove)
+    {
+        this(trie, board, hands, bag, playerToMove, new int[2]);
+    }
+
+    /**
+     * Constructs a position with both scores at zero, part way through the given runs of scoreless turns.
+     *
+     * @param trie the trie containing the dictionary of valid words
+     * @param board the scrabble board
+     * @param hands the racks of {@link GameEngine#PLAYER} and {@link GameEngine#CPU}, in that order
+     * @param bag the bag replacement tiles are drawn from, which becomes the position's own
+     * @param playerToMove the player whose turn it is
+     * @param scorelessTurns the scoreless turns in a row each player has taken, by player
+     * @throws IllegalArgumentException if a rack holds more than 7 tiles, or a run of scoreless turns has already
+     *                                  ended the game
+     */
+    public Position(Trie trie, List<List<Character>> board, List<List<Character>> hands, TileBag bag,
+                    int playerToMove, int[] scorelessTurns)
+    {
+        for (int p = 0; p < 2; p++)
+        {
+            if (scorelessTurns[p] < 0 || scorelessTurns[p] >= GameEngine.MAX_SCORELESS_TURNS)
+            {
+                throw new IllegalArgumentException("not a run of scoreless turns in a game still going: "
+                        + scorelessTurns[p]);
+            }
+            this.scorelessTurns[p] = scorelessTurns[p];
+        }
+        this.generator = new MoveGenerator(trie);
+        this.bag = bag;
+        this.playerToMove = playerToMove;
+        generator.setBoard(board);
+        for (int p = 0; p < 2; p++)
+        {
+            for (Character ch : hands.get(p))
+            {
+                if (ch != null && ch >= 'A' && ch <= 'Z')
+                {
+                    racks[p][ch - 'A']++;
+                    rackSizes[p]++;
+                }
+            }
+            if (rackSizes[p] > 7)
+            {
+                throw new IllegalArgumentException("a rack holds at most 7 tiles: " + hands.get(p));
+            }
+        }
+        hash = computeHash();
+    }
+
+    /**
+     * Makes move for the player to move: places its tiles, draws back up to 7 tiles, scores the turn, and ends
+     * the game or passes the turn. The move must lie on the board as {@link MoveGenerator} generates moves for
+     * this position; its words are not checked against the dictionary.
+     *
+     * @param move a move on this position
+     * @throws IllegalArgumentException if the move does not fit the board or needs tiles the rack does not hold
+     * @throws IllegalStateException if the game is over
+     */
+    public void make(Move move)
+    {
+        checkNotOver();
+        int p = playerToMove;
+        String problem = misfit(move);
+        if (problem != null)
+        {
+            throw new IllegalArgumentException(problem + move);
+        }
+        String word = move.getWord();
+        int start = move.isHorizontal() ? move.getCol() : move.getRow();
+        Undo undo = push(move);
+        for (int i = 0; i < word.length(); i++)
+        {
+            if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+            {
+                char ch = word.charAt(i);
+                int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+                int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+                hash ^= MoveCache.squareKey(r, c, ch);
+                take(p, ch - 'A');
+            }
+        }
+        generator.play(move);
+        endTurn(undo, move.getScore());
+    }
+
+    /**
+     * Passes the turn of the player to move, which scores nothing.
+     * @throws IllegalStateException if the game is over
+     */
+    public void makePass()
+    {
+        checkNotOver();
+        endTurn(push(null), 0);
+    }
+
+    /**
+     * Takes back the last move or pass made and not yet taken back.
+     * @throws IllegalStateException if there is nothing to take back
+     */
+    public void unmake()
+    {
+        if (depth == 0)
+        {
+            throw new IllegalStateException("no move to take back");
+        }
+        Undo undo = undoStack.get(--depth);
+        if (!over)
+        {
+            playerToMove = 1 - playerToMove;
+        }
+        int p = playerToMove;
+        scores[p] -= undo.points;
+        scorelessTurns[p] = undo.scoreless;
+        over = undo.over;
+        for (int i = 0; i < undo.drawCount; i++)
+        {
+            racks[p][undo.drawn[i]]--;
+            rackSizes[p]--;
+            bag.put(undo.drawn[i]);
+        }
+        Move move = undo.move;
+        if (move != null)
+        {
+            generator.unplay(move);
+            String word = move.getWord();
+            int start = move.isHorizontal() ? move.getCol() : move.getRow();
+            for (int i = 0; i < word.length(); i++)
+            {
+                if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+                {
+                    racks[p][word.charAt(i) - 'A']++;
+                    rackSizes[p]++;
+                }
+            }
+        }
+        hash = undo.hash;
+        undo.move = null;
+    }
+
+    /**
+     * Returns the generator holding this position's board, to generate the moves of the player to move. It is
+     * only lent: it must not be played on or loaded with another board.
+     *
+     * @return the generator
+     */
+    public MoveGenerator getGenerator()
+    {
+        return generator;
+    }
+
+    /**
+     * Returns a copy of the board.
+     * @return the board
+     */
+    public List<List<Character>> getBoard()
+    {
+        List<List<Character>> board = new ArrayList<>();
+        for (char[] line : generator.lines[MoveGenerator.ACROSS])
+        {
+            List<Character> row = new ArrayList<>(15);
+            for (char ch : line)
+            {
+                row.add(ch);
+            }
+            board.add(row);
+        }
+        return board;
+    }
+
+    /**
+     * Returns the tiles on the rack of player, in alphabetical order.
+     * @param player PLAYER or CPU
+     * @return the rack
+     */
+    public List<Character> getHand(int player)
+    {
+        List<Character> hand = new ArrayList<>(rackSizes[player]);
+        for (int l = 0; l < 26; l++)
+        {
+            for (int i = 0; i < racks[player][l]; i++)
+            {
+                hand.add((char) ('A' + l));
+            }
+        }
+        return hand;
+    }
+
+    /**
+     * Returns the score of player, including the bonus for going out once the game is over.
+     * @param player PLAYER or CPU
+     * @return the score
+     */
+    public int getScore(int player)
+    {
+        return scores[player];
+    }
+
+    /**
+     * Returns the number of scoreless turns player has taken in a row.
+     * @param player PLAYER or CPU
+     * @return the run of scoreless turns
+     */
+    public int getScorelessTurns(int player)
+    {
+        return scorelessTurns[player];
+    }
+
+    /**
+     * Returns the number of tiles in the bag.
+     * @return the bag size
+     */
+    public int getBagSize()
+    {
+        return bag.size();
+    }
+
+    /**
+     * Returns the player whose turn it is, or who took the last turn once the game is over.
+     * @return PLAYER or CPU
+     */
+    public int getPlayerToMove()
+    {
+        return playerToMove;
+    }
+
+    /**
+     * Returns true once the game has ended.
+     * @return over
+     */
+    public boolean isOver()
+    {
+        return over;
+    }
+
+    /**
+     * Returns the number of moves made and not yet taken back.
+     * @return depth
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Returns the Zobrist hash of the board, both racks and the side to move. Scores and the bag do not enter
+     * into it.
+     *
+     * @return hash
+     */
+    public long getHash()
+    {
+        return hash;
+    }
+
+    /**
+     * Returns the hash of this position computed from scratch, which {@link #getHash()} must always equal.
+     */
+    long computeHash()
+    {
+        long h = MoveCache.boardHash(getBoard());
+        for (int p = 0; p < 2; p++)
+        {
+            for (int l = 0; l < 26; l++)
+            {
+                h ^= RACK_KEYS[p][l][racks[p][l]];
+            }
+        }
+        return playerToMove == GameEngine.CPU ? h ^ SIDE_KEY : h;
+    }
+
+    /**
+     * Returns why move cannot be made by the player to move, or null if it can.
+     */
+    private String misfit(Move move)
+    {
+        String word = move.getWord();
+        int start = move.isHorizontal() ? move.getCol() : move.getRow();
+        if (start + word.length() > 15 || move.getPlacedMask() == 0)
+        {
+            return "not a move on this board: ";
+        }
+        char[] line = generator.lines[move.isHorizontal() ? MoveGenerator.ACROSS : MoveGenerator.DOWN]
+                [move.isHorizontal() ? move.getRow() : move.getCol()];
+        int[] rack = racks[playerToMove];
+        String problem = null;
+        for (int i = 0; i < word.length() && problem == null; i++)
+        {
+            char ch = word.charAt(i);
+            if ((move.getPlacedMask() & (1 << (start + i))) == 0)
+            {
+                problem = line[start + i] != ch ? "not a move on this board: " : null;
+            }
+            else if (line[start + i] != ' ')
+            {
+                problem = "not a move on this board: ";
+            }
+            else if (ch < 'A' || ch > 'Z' || ++needed[ch - 'A'] > rack[ch - 'A'])
+            {
+                problem = "tile not in rack: ";
+            }
+        }
+        Arrays.fill(needed, 0);
+        return problem;
+    }
+
+    /**
+     * Pushes the record of a move about to be made, saving what it will change.
+     */
+    private Undo push(Move move)
+    {
+        if (depth == undoStack.size())
+        {
+            undoStack.add(new Undo());
+        }
+        Undo undo = undoStack.get(depth++);
+        undo.move = move;
+        undo.scoreless = scorelessTurns[playerToMove];
+        undo.over = over;
+        undo.hash = hash;
+        undo.drawCount = 0;
+        return undo;
+    }
+
+    /**
+     * Refills the rack of the player to move, scores the turn, and either passes the turn on or ends the game,
+     * as {@link GameEngine} does.
+     */
+    private void endTurn(Undo undo, int score)
+    {
+        int p = playerToMove;
+        while (rackSizes[p] < 7 && !bag.isEmpty())
+        {
+            int l = bag.draw(null);
+            give(p, l);
+            undo.drawn[undo.drawCount++] = l;
+        }
+        int points = score;
+        scorelessTurns[p] = score == 0 ? scorelessTurns[p] + 1 : 0;
+        if (rackSizes[p] == 0)
+        {
+            for (int l = 0; l < 26; l++)
+            {
+                points += 2 * racks[1 - p][l] * Tile.scoreCharacter((char) ('A' + l));
+            }
+            over = true;
+        }
+        else if (scorelessTurns[p] >= GameEngine.MAX_SCORELESS_TURNS)
+        {
+            over = true;
+        }
+        else
+        {
+            playerToMove = 1 - p;
+            hash ^= SIDE_KEY;
+        }
+        scores[p] += points;
+        undo.points = points;
+    }
+
+    private void take(int player, int letter)
+    {
+        hash ^= RACK_KEYS[player][letter][racks[player][letter]] ^ RACK_KEYS[player][letter][racks[player][letter] - 1];
+        racks[player][letter]--;
+        rackSizes[player]--;
+    }
+
+    private void give(int player, int letter)
+    {
+        hash ^= RACK_KEYS[player][letter][racks[player][letter]] ^ RACK_KEYS[player][letter][racks[player][letter] + 1];
+        racks[player][letter]++;
+        rackSizes[player]++;
+    }
+
+    private void checkNotOver()
+    {
+        if (over)
+        {
+            throw new IllegalStateException("the game is over");
+        }
+    }
+}
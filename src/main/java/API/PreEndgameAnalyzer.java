@@ -0,0 +1,291 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * An analyzer for the pre-endgame, when the bag holds between one and seven tiles.
+ *
+ * For each candidate move, every draw the move could be followed by is considered, each weighted by the number
+ * of ways of drawing it from the unseen tiles. When there are more distinct draws than a set limit, draws are
+ * sampled instead, which weights them the same way. A candidate that empties the bag leaves a perfect-information
+ * endgame for every draw, which is solved with the opponent to move. A candidate that does not empty the bag is
+ * scored against the opponent's best reply from a rack dealt from the rest of the unseen tiles.
+ *
+ * The draws of all candidates are worked through in parallel, interleaved so that when the time limit runs out
+ * every candidate has had about the same share. Each worker thread keeps one {@link EndgameSolver}, whose
+ * transposition table carries over between the draws it solves. Keep one analyzer for as long as its lexicon is in
+ * use, so that the tables carry over from one turn to the next too; analyses may run on several threads at once.
+ */
+public class PreEndgameAnalyzer {
+
+    /**
+     * The largest bag the analyzer handles.
+     */
+    public static final int MAX_BAG_SIZE = 7;
+
+    /**
+     * The most draws looked at for each candidate; beyond this, draws are sampled.
+     */
+    private static final int MAX_DRAWS = 48;
+
+    private final Trie trie;
+
+    private final ThreadLocal<EndgameSolver> solvers;
+
+    private final ThreadLocal<MoveGenerator> generators;
+
+    /**
+     * Constructs an analyzer.
+     * @param trie the trie containing the dictionary of valid words
+     */
+    public PreEndgameAnalyzer(Trie trie)
+    {
+        this.trie = trie;
+        this.solvers = ThreadLocal.withInitial(() -> new EndgameSolver(trie, 18));
+        this.generators = ThreadLocal.withInitial(() -> new MoveGenerator(trie));
+    }
+
+    /**
+     * Returns the best candidates for hand on board in descending order of expected spread, over the draws that
+     * could follow each, when the opponent has not just made a scoreless turn.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param unseen the tiles on the opponent's rack or in the bag
+     * @param bagSize the number of tiles in the bag, from 1 to MAX_BAG_SIZE
+     * @param candidates the number of candidate moves to consider
+     * @param timeLimitMillis the time the analysis may take, in milliseconds
+     * @param seed the seed for sampled draws and opponent racks
+     * @return the candidates with their expected spread, best first; empty if hand has no move
+     */
+    public List<SimulatedMove> analyze(List<List<Character>> board, List<Character> hand, List<Character> unseen,
+                                       int bagSize, int candidates, long timeLimitMillis, long seed)
+    {
+        return analyze(board, hand, unseen, bagSize, 0, candidates, timeLimitMillis, seed);
+    }
+
+    /**
+     * Returns the best candidates for hand on board in descending order of expected spread, over the draws that
+     * could follow each. The opponent's run of scoreless turns carries into the endgames, since a play does not
+     * end it.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param unseen the tiles on the opponent's rack or in the bag
+     * @param bagSize the number of tiles in the bag, from 1 to MAX_BAG_SIZE
+     * @param opponentScorelessTurns the scoreless turns in a row the opponent has taken
+     * @param candidates the number of candidate moves to consider
+     * @param timeLimitMillis the time the analysis may take, in milliseconds
+     * @param seed the seed for sampled draws and opponent racks
+     * @return the candidates with their expected spread, best first; empty if hand has no move
+     */
+    public List<SimulatedMove> analyze(List<List<Character>> board, List<Character> hand, List<Character> unseen,
+                                       int bagSize, int opponentScorelessTurns, int candidates, long timeLimitMillis,
+                                       long seed)
+    {
+        if (bagSize < 1 || bagSize > MAX_BAG_SIZE || bagSize > unseen.size())
+        {
+            throw new IllegalArgumentException("not a pre-endgame bag size: " + bagSize);
+        }
+        long deadline = System.nanoTime() + timeLimitMillis * 1000000L;
+        MoveGenerator root = new MoveGenerator(trie);
+        root.setBoard(board);
+        List<Move> moves = root.search(hand, candidates, SearchBudget.unlimited()).getMoves();
+        int k = moves.size();
+        if (k == 0)
+        {
+            return new ArrayList<>();
+        }
+
+        int[] unseenCounts = counts(unseen);
+        List<List<int[]>> draws = new ArrayList<>();
+        List<List<Long>> weights = new ArrayList<>();
+        int longest = 0;
+        for (Move move : moves)
+        {
+            List<int[]> moveDraws = new ArrayList<>();
+            List<Long> moveWeights = new ArrayList<>();
+            int size = Math.min(move.getTileCount(), bagSize);
+            if (distinctDraws(unseenCounts, 0, size, new int[26], moveDraws, moveWeights, 1) > MAX_DRAWS)
+            {
+                moveDraws.clear();
+                moveWeights.clear();
+                sampleDraws(unseen, size, new SplittableRandom(seed ^ move.hashCode()), moveDraws, moveWeights);
+            }
+            draws.add(moveDraws);
+            weights.add(moveWeights);
+            longest = Math.max(longest, moveDraws.size());
+        }
+
+        // Task t is draw t / k of candidate t % k, so candidates progress together.
+        double[][] spreads = new double[k][longest];
+        boolean[][] done = new boolean[k][longest];
+        int tasks = k * longest;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        long share = Math.max(1, timeLimitMillis * workers / tasks);
+        int[] handCounts = counts(hand);
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int c = t % k, d = t / k;
+            long remaining = (deadline - System.nanoTime()) / 1000000L;
+            if (d >= draws.get(c).size() || remaining <= 0)
+            {
+                return;
+            }
+            spreads[c][d] = evaluate(board, moves.get(c), handCounts, unseenCounts, draws.get(c).get(d),
+                    unseen.size() - bagSize, bagSize, opponentScorelessTurns, Math.min(share, remaining), seed + t);
+            done[c][d] = true;
+        });
+
+        List<SimulatedMove> result = new ArrayList<>();
+        for (int c = 0; c < k; c++)
+        {
+            double w = 0, sum = 0, sumOfSquares = 0;
+            int n = 0;
+            for (int d = 0; d < draws.get(c).size(); d++)
+            {
+                if (done[c][d])
+                {
+                    double weight = weights.get(c).get(d);
+                    w += weight;
+                    sum += weight * spreads[c][d];
+                    sumOfSquares += weight * spreads[c][d] * spreads[c][d];
+                    n++;
+                }
+            }
+            Move move = moves.get(c);
+            if (n == 0)
+            {
+                result.add(new SimulatedMove(move, 0, move.getScore(), Double.POSITIVE_INFINITY));
+                continue;
+            }
+            double mean = sum / w;
+            double variance = Math.max(0, sumOfSquares / w - mean * mean);
+            result.add(new SimulatedMove(move, n, mean, Math.sqrt(variance / n)));
+        }
+        result.sort(Comparator.comparingDouble(SimulatedMove::getMeanSpread).reversed());
+        return result;
+    }
+
+    /**
+     * Returns the spread of move followed by draw: the move's score less the opponent's result from there.
+     */
+    private double evaluate(List<List<Character>> board, Move move, int[] handCounts, int[] unseenCounts, int[] draw,
+                            int opponentTiles, int bagSize, int opponentScorelessTurns, long millis, long seed)
+    {
+        int[] ours = handCounts.clone();
+        for (Character ch : move.getTilesPlaced())
+        {
+            ours[ch - 'A']--;
+        }
+        int[] rest = unseenCounts.clone();
+        for (int l = 0; l < 26; l++)
+        {
+            ours[l] += draw[l];
+            rest[l] -= draw[l];
+        }
+        List<List<Character>> after = move.applyTo(board);
+
+        if (move.getTileCount() >= bagSize)
+        {
+            // The bag is empty: the rest of the unseen tiles are the opponent's rack, and the endgame is known. The
+            // move scored, so only the opponent may be part way through a run of scoreless turns.
+            EndgameResult endgame = solvers.get().solve(after, toList(rest), toList(ours), opponentScorelessTurns, 0,
+                    SearchBudget.ofMillis(millis));
+            return move.getScore() - endgame.getValue();
+        }
+
+        // Tiles are left in the bag: deal the opponent a rack from the rest and take their best reply.
+        List<Character> pool = toList(rest);
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Character> opponent = new ArrayList<>();
+        for (int i = 0; i < opponentTiles && !pool.isEmpty(); i++)
+        {
+            opponent.add(pool.remove(random.nextInt(pool.size())));
+        }
+        MoveGenerator generator = generators.get();
+        generator.setBoard(after);
+        Move reply = generator.search(opponent, 1, SearchBudget.unlimited()).getBestMove();
+        return move.getScore() - (reply == null ? 0 : reply.getScore());
+    }
+
+    /**
+     * Adds to draws every multiset of size tiles that can be drawn from counts, using letters from l onwards,
+     * with the number of ways of drawing it, and returns the number of draws found (stopping early past MAX_DRAWS).
+     */
+    private static int distinctDraws(int[] counts, int l, int size, int[] draw, List<int[]> draws, List<Long> weights,
+                                     long ways)
+    {
+        if (size == 0)
+        {
+            draws.add(draw.clone());
+            weights.add(ways);
+            return draws.size();
+        }
+        for (int letter = l; letter < 26 && draws.size() <= MAX_DRAWS; letter++)
+        {
+            for (int n = 1; n <= Math.min(counts[letter], size); n++)
+            {
+                draw[letter] = n;
+                distinctDraws(counts, letter + 1, size - n, draw, draws, weights, ways * choose(counts[letter], n));
+            }
+            draw[letter] = 0;
+        }
+        return draws.size();
+    }
+
+    /**
+     * Adds MAX_DRAWS draws of size tiles sampled uniformly from the unseen tiles to draws, each of weight one.
+     */
+    private static void sampleDraws(List<Character> unseen, int size, SplittableRandom random, List<int[]> draws,
+                                    List<Long> weights)
+    {
+        UnseenTiles tiles = new UnseenTiles(unseen);
+        for (int s = 0; s < MAX_DRAWS; s++)
+        {
+            int[] draw = new int[26];
+            tiles.sample(random, size, draw);
+            draws.add(draw);
+            weights.add(1L);
+        }
+    }
+
+    private static long choose(int n, int k)
+    {
+        long result = 1;
+        for (int i = 1; i <= k; i++)
+        {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static int[] counts(List<Character> tiles)
+    {
+        int[] counts = new int[26];
+        for (Character ch : tiles)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+            }
+        }
+        return counts;
+    }
+
+    private static List<Character> toList(int[] counts)
+    {
+        List<Character> tiles = new ArrayList<>();
+        for (int l = 0; l < 26; l++)
+        {
+            for (int i = 0; i < counts[l]; i++)
+            {
+                tiles.add((char) ('A' + l));
+            }
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,198 @@
+package API;
+
+/**
+ * A limit on the time and/or the number of search nodes a single move search may spend.
+ *
+ * A budget is meant for one search: its clock starts the first time the search consults it, and once it runs
+ * out it stays exhausted, so the caller can ask afterwards whether the search was cut short. Another thread may
+ * cancel the search by running the budget out early, and may follow it through a {@link SearchProgress}.
+ */
+public class SearchBudget {
+
+    /**
+     * How often, in search nodes, the clock is read.
+     */
+    private static final long CLOCK_CHECK_INTERVAL = 1024;
+
+    /**
+     * The time limit in nanoseconds and the node limit; Long.MAX_VALUE for no limit.
+     */
+    private final long timeLimitNanos, nodeLimit;
+
+    /**
+     * The System.nanoTime() at which the budget runs out, once the search has started.
+     */
+    private long deadline;
+    private boolean started;
+
+    /**
+     * True once the budget has run out.
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * True if the budget was run out by cancel().
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The listener told of the search's progress, if any, and the best move the search has reported.
+     */
+    private SearchProgress progress;
+    private Move bestSoFar;
+
+    private SearchBudget(long timeLimitNanos, long nodeLimit)
+    {
+        this.timeLimitNanos = timeLimitNanos;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns a budget that never runs out.
+     * @return an unlimited budget
+     */
+    public static SearchBudget unlimited()
+    {
+        return new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a budget of the provided wall-clock time.
+     * @param millis the time the search may take, in milliseconds
+     * @return a time budget
+     */
+    public static SearchBudget ofMillis(long millis)
+    {
+        return new SearchBudget(millis * 1000000L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a budget of the provided number of search nodes. Node budgets make a search reproducible
+     * regardless of the speed of the machine.
+     * @param nodes the number of nodes the search may visit
+     * @return a node budget
+     */
+    public static SearchBudget ofNodes(long nodes)
+    {
+        return new SearchBudget(Long.MAX_VALUE, nodes);
+    }
+
+    /**
+     * Returns a budget that runs out at whichever of the two limits is reached first.
+     * @param millis the time the search may take, in milliseconds
+     * @param nodes the number of nodes the search may visit
+     * @return a combined budget
+     */
+    public static SearchBudget of(long millis, long nodes)
+    {
+        return new SearchBudget(millis * 1000000L, nodes);
+    }
+
+    /**
+     * Sets the listener told of the progress of the search using this budget.
+     * @param progress the listener, or null for none
+     * @return this budget
+     */
+    public SearchBudget withProgress(SearchProgress progress)
+    {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Runs this budget out at once, from any thread. A search using it stops at the next node it visits.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        exhausted = true;
+    }
+
+    /**
+     * Returns true if {@link #cancel()} was called.
+     * @return cancelled
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Returns true if a progress listener is set, so that the search should report its best move.
+     */
+    boolean hasProgress()
+    {
+        return progress != null;
+    }
+
+    /**
+     * Records a new best move found by the search.
+     */
+    void reportBest(Move move)
+    {
+        bestSoFar = move;
+    }
+
+    /**
+     * Tells the progress listener, if any, that the search has finished another anchor.
+     */
+    void reportAnchor(int anchorsSearched, int anchorCount)
+    {
+        if (progress != null)
+        {
+            progress.update(anchorsSearched, anchorCount, bestSoFar);
+        }
+    }
+
+    /**
+     * Returns true if this budget has any limit at all.
+     * @return false for an unlimited budget
+     */
+    public boolean isLimited()
+    {
+        return timeLimitNanos != Long.MAX_VALUE || nodeLimit != Long.MAX_VALUE;
+    }
+
+    /**
+     * Starts the clock, if it is not running already.
+     */
+    public void start()
+    {
+        if (!started)
+        {
+            started = true;
+            long now = System.nanoTime();
+            deadline = timeLimitNanos == Long.MAX_VALUE || now + timeLimitNanos < now ? Long.MAX_VALUE : now + timeLimitNanos;
+        }
+    }
+
+    /**
+     * Returns true if a search that has visited the provided number of nodes must stop now.
+     * The clock is only read every so many nodes, so this is cheap enough to call on every node.
+     *
+     * @param nodes the number of nodes visited so far by the search
+     * @return true if the budget has run out
+     */
+    public boolean isExhausted(long nodes)
+    {
+        if (exhausted)
+        {
+            return true;
+        }
+        if (nodes >= nodeLimit
+                || (deadline != Long.MAX_VALUE && nodes % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline))
+        {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * Returns true if a search ran this budget out, and so may have missed moves.
+     * @return true if the budget has run out
+     */
+    public boolean wasExhausted()
+    {
+        return exhausted;
+    }
+}
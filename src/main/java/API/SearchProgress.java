@@ -0,0 +1,18 @@
+package API;
+
+/**
+ * A listener told how a move search is getting on, so that a user interface can show it while the search runs.
+ * It is called on the searching thread, after every anchor.
+ */
+@FunctionalInterface
+public interface SearchProgress {
+
+    /**
+     * Reports the progress of a search.
+     *
+     * @param anchorsSearched the number of anchors searched so far
+     * @param anchorCount the number of anchors on the board
+     * @param bestSoFar the best move found so far, or null if none has been found
+     */
+    void update(int anchorsSearched, int anchorCount, Move bestSoFar);
+}
@@ -0,0 +1,79 @@
+package API;
+
+import java.util.List;
+
+/**
+ * The outcome of a budgeted move search: the best moves found, and whether the search saw every move.
+ */
+public class SearchResult {
+
+    /**
+     * The best moves found, best first.
+     */
+    private final List<Move> moves;
+
+    /**
+     * True if every anchor was searched before the budget ran out.
+     */
+    private final boolean completed;
+
+    /**
+     * The number of search nodes visited and the wall-clock time taken.
+     */
+    private final long nodesVisited, elapsedNanos;
+
+    /**
+     * Constructs a search result.
+     * @param moves the best moves found, best first
+     * @param completed true if the search was not cut short by its budget
+     * @param nodesVisited the number of search nodes visited
+     * @param elapsedNanos the time the search took, in nanoseconds
+     */
+    public SearchResult(List<Move> moves, boolean completed, long nodesVisited, long elapsedNanos)
+    {
+        this.moves = moves;
+        this.completed = completed;
+        this.nodesVisited = nodesVisited;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the best moves found, best first.
+     * @return moves
+     */
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the best move found, or null if none was.
+     * @return the first of getMoves(), or null
+     */
+    public Move getBestMove() {
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    /**
+     * Returns true if the search covered every anchor, in which case getMoves() is exact.
+     * @return completed
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the number of search nodes visited.
+     * @return nodesVisited
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Returns the time the search took, in nanoseconds.
+     * @return elapsedNanos
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,76 @@
+package API;
+
+/**
+ * A candidate move together with the spread it averaged over the simulated continuations of the game.
+ */
+public class SimulatedMove {
+
+    /**
+     * The candidate move.
+     */
+    private final Move move;
+
+    /**
+     * The number of continuations simulated.
+     */
+    private final int iterations;
+
+    /**
+     * The mean spread over the continuations, and the standard error of that mean.
+     */
+    private final double meanSpread, standardError;
+
+    /**
+     * Constructs a simulated move.
+     * @param move the candidate move
+     * @param iterations the number of continuations simulated
+     * @param meanSpread the mean of (move score - opponent's reply + our follow-up) over the continuations
+     * @param standardError the standard error of meanSpread
+     */
+    public SimulatedMove(Move move, int iterations, double meanSpread, double standardError)
+    {
+        this.move = move;
+        this.iterations = iterations;
+        this.meanSpread = meanSpread;
+        this.standardError = standardError;
+    }
+
+    /**
+     * Returns the candidate move.
+     * @return move
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * Returns the number of continuations simulated.
+     * @return iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the mean spread over the continuations: the move's score, less the opponent's best reply, plus our
+     * best follow-up.
+     * @return meanSpread
+     */
+    public double getMeanSpread() {
+        return meanSpread;
+    }
+
+    /**
+     * Returns the standard error of the mean spread.
+     * @return standardError
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+
+    @Override
+    public String toString()
+    {
+        return move + String.format(" %.2f (+/- %.2f, %d iterations)", meanSpread, standardError, iterations);
+    }
+}
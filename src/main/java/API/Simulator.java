@@ -0,0 +1,302 @@
+package API;
+
+import util.TopKHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A Monte Carlo evaluator of candidate moves.
+ *
+ * Each iteration deals the opponent a random rack from the unseen tiles and, for every candidate, plays the
+ * candidate, the opponent's best reply, and our best follow-up from the candidate's leave plus a random draw.
+ * The spread of that sequence is averaged over the iterations. All candidates see the same racks and draws in
+ * a given iteration, which makes comparisons between them much less noisy than their spreads alone.
+ *
+ * Racks and draws are sampled from an {@link UnseenTiles} tracker, so an inferred opponent leave shapes the racks
+ * the opponent is dealt.
+ *
+ * Iterations run in parallel on the common fork/join pool, in rounds. After each round the simulation stops
+ * early if the leading candidate is ahead of every other by a statistically significant margin. Every worker
+ * thread keeps one scratch generator and its racks for the life of the simulator, so rollouts allocate little.
+ */
+public class Simulator {
+
+    /**
+     * The number of iterations run between checks for a clear winner.
+     */
+    private static final int ROUND = 32;
+
+    /**
+     * The fewest iterations run before stopping early.
+     */
+    private static final int MIN_ITERATIONS = 64;
+
+    /**
+     * How many standard errors the leader must be ahead by to stop early: about 99% confidence.
+     */
+    private static final double Z = 2.576;
+
+    private final Trie trie;
+
+    /**
+     * The leave table the simulated players choose their moves by, or null to choose by score.
+     */
+    private final LeaveTable leaves;
+
+    /**
+     * Per thread scratch space, reused across iterations and simulations.
+     */
+    private final ThreadLocal<Rollout> rollouts;
+
+    /**
+     * Constructs a simulator.
+     * @param trie the trie containing the dictionary of valid words
+     * @param leaves the values of rack leaves used to choose candidates and replies, or null to choose by score
+     */
+    public Simulator(Trie trie, LeaveTable leaves)
+    {
+        this.trie = trie;
+        this.leaves = leaves;
+        this.rollouts = ThreadLocal.withInitial(() -> new Rollout(new MoveGenerator(trie)));
+    }
+
+    /**
+     * Simulates the best candidates for hand on board, and returns them in descending order of mean spread.
+     * The simulation runs until maxIterations iterations or until one candidate is clearly best; the iteration
+     * counts of the result tell which.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param unseen the tiles on the opponent's rack or in the bag
+     * @param candidates the number of candidate moves to simulate
+     * @param maxIterations the most iterations to run
+     * @param seed the seed for the racks and draws, so that a simulation can be repeated
+     * @return the simulated candidates, best first; empty if hand has no move
+     */
+    public List<SimulatedMove> simulate(List<List<Character>> board, List<Character> hand, List<Character> unseen,
+                                        int candidates, int maxIterations, long seed)
+    {
+        return simulate(board, hand, new UnseenTiles(unseen), candidates, maxIterations, seed);
+    }
+
+    /**
+     * Simulates the best candidates for hand on board, dealing opponent racks and draws from the unseen tiles
+     * tracked by unseen, and returns them in descending order of mean spread.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param unseen the tracker of the tiles on the opponent's rack or in the bag; not changed during the simulation
+     * @param candidates the number of candidate moves to simulate
+     * @param maxIterations the most iterations to run
+     * @param seed the seed for the racks and draws, so that a simulation can be repeated
+     * @return the simulated candidates, best first; empty if hand has no move
+     */
+    public List<SimulatedMove> simulate(List<List<Character>> board, List<Character> hand, UnseenTiles unseen,
+                                        int candidates, int maxIterations, long seed)
+    {
+        MoveGenerator root = new MoveGenerator(trie);
+        root.setBoard(board);
+        List<Move> moves = root.search(hand, candidates, SearchBudget.unlimited(), leaves).getMoves();
+        int k = moves.size();
+        if (k == 0)
+        {
+            return new ArrayList<>();
+        }
+        double[] sum = new double[k], sumOfSquares = new double[k];
+
+        int[] handCounts = new int[26];
+        for (Character ch : hand)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                handCounts[ch - 'A']++;
+            }
+        }
+
+        double[][] spreads = new double[ROUND][k];
+        int iterations = 0;
+        while (iterations < maxIterations)
+        {
+            int first = iterations;
+            int count = Math.min(ROUND, maxIterations - iterations);
+            IntStream.range(0, count).parallel().forEach(i ->
+                    rollouts.get().run(root, moves, handCounts, unseen, mix(seed, first + i), spreads[i]));
+            for (int i = 0; i < count; i++)
+            {
+                for (int c = 0; c < k; c++)
+                {
+                    sum[c] += spreads[i][c];
+                    sumOfSquares[c] += spreads[i][c] * spreads[i][c];
+                }
+            }
+            iterations += count;
+            if (iterations >= MIN_ITERATIONS && clearWinner(sum, sumOfSquares, iterations))
+            {
+                break;
+            }
+        }
+
+        List<SimulatedMove> result = new ArrayList<>();
+        for (int c = 0; c < k; c++)
+        {
+            double mean = sum[c] / iterations;
+            result.add(new SimulatedMove(moves.get(c), iterations, mean, standardError(sum[c], sumOfSquares[c], iterations)));
+        }
+        result.sort(Comparator.comparingDouble(SimulatedMove::getMeanSpread).reversed());
+        return result;
+    }
+
+    /**
+     * Returns true if the candidate with the highest mean is ahead of every other by Z standard errors.
+     */
+    private static boolean clearWinner(double[] sum, double[] sumOfSquares, int n)
+    {
+        int leader = 0;
+        for (int c = 1; c < sum.length; c++)
+        {
+            if (sum[c] > sum[leader])
+            {
+                leader = c;
+            }
+        }
+        double leaderError = standardError(sum[leader], sumOfSquares[leader], n);
+        for (int c = 0; c < sum.length; c++)
+        {
+            if (c == leader)
+            {
+                continue;
+            }
+            double error = standardError(sum[c], sumOfSquares[c], n);
+            double margin = (sum[leader] - sum[c]) / n;
+            if (margin <= Z * Math.sqrt(leaderError * leaderError + error * error))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double standardError(double sum, double sumOfSquares, int n)
+    {
+        if (n < 2)
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+        double mean = sum / n;
+        double variance = Math.max(0, (sumOfSquares - n * mean * mean) / (n - 1));
+        return Math.sqrt(variance / n);
+    }
+
+    /**
+     * Returns the seed of the given iteration, so that each iteration's racks depend only on seed and iteration
+     * and not on which thread runs it.
+     */
+    private static long mix(long seed, int iteration)
+    {
+        return seed ^ (iteration + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * The scratch space of one worker thread.
+     */
+    private class Rollout {
+
+        private final MoveGenerator scratch;
+
+        private final List<Character> opponentRack = new ArrayList<>(7), followUpRack = new ArrayList<>(7);
+
+        /**
+         * The tiles dealt so far in this iteration, and the letters of our draw in the order drawn.
+         */
+        private final int[] taken = new int[26], drawOrder = new int[7];
+
+        private final int[] leave = new int[26];
+
+        /**
+         * The best reply or follow-up of the search in progress, and the budget every search runs under, reused
+         * so that a rollout allocates nothing but the moves it finds.
+         */
+        private final TopKHeap<Move> top = new TopKHeap<>(1);
+        private final SearchBudget unlimited = SearchBudget.unlimited();
+
+        Rollout(MoveGenerator scratch)
+        {
+            this.scratch = scratch;
+        }
+
+        /**
+         * Runs one iteration for every candidate, writing the spread of each to spreads.
+         */
+        void run(MoveGenerator root, List<Move> candidates, int[] handCounts, UnseenTiles unseen, long seed,
+                 double[] spreads)
+        {
+            // Deal the opponent's rack, then the tiles we would draw, in order, so every candidate draws the same.
+            SplittableRandom random = new SplittableRandom(seed);
+            Arrays.fill(taken, 0);
+            unseen.sampleRack(random, Math.min(7, unseen.size()), taken);
+            opponentRack.clear();
+            for (int l = 0; l < 26; l++)
+            {
+                for (int i = 0; i < taken[l]; i++)
+                {
+                    opponentRack.add((char) ('A' + l));
+                }
+            }
+            int draws = 0;
+            while (draws < drawOrder.length && (drawOrder[draws] = unseen.draw(random, taken)) >= 0)
+            {
+                draws++;
+            }
+
+            for (int c = 0; c < candidates.size(); c++)
+            {
+                Move candidate = candidates.get(c);
+                scratch.copyBoard(root);
+                scratch.play(candidate);
+                Move reply = best(opponentRack);
+                if (reply != null)
+                {
+                    scratch.play(reply);
+                }
+
+                System.arraycopy(handCounts, 0, leave, 0, 26);
+                String word = candidate.getWord();
+                int start = candidate.isHorizontal() ? candidate.getCol() : candidate.getRow();
+                for (int i = 0; i < word.length(); i++)
+                {
+                    if ((candidate.getPlacedMask() & (1 << (start + i))) != 0)
+                    {
+                        leave[word.charAt(i) - 'A']--;
+                    }
+                }
+                followUpRack.clear();
+                for (int l = 0; l < 26; l++)
+                {
+                    for (int i = 0; i < leave[l]; i++)
+                    {
+                        followUpRack.add((char) ('A' + l));
+                    }
+                }
+                for (int i = 0; i < draws && followUpRack.size() < 7; i++)
+                {
+                    followUpRack.add((char) ('A' + drawOrder[i]));
+                }
+                Move followUp = best(followUpRack);
+
+                spreads[c] = candidate.getScore() - (reply == null ? 0 : reply.getScore())
+                        + (followUp == null ? 0 : followUp.getScore());
+            }
+        }
+
+        private Move best(List<Character> rack)
+        {
+            scratch.search(rack, top, unlimited, leaves);
+            return top.best();
+        }
+    }
+}
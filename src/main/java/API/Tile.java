@@ -27,9 +27,43 @@ public class Tile {
      */
     public static Queue<Character> getTileBagForGame()
     {
-        // Shuffle the tiles and arrange them into a queue.
-        Collections.shuffle(tileList);
-        return new ArrayDeque<>(tileList);
+        return getTileBagForGame(new Random());
+    }
+
+    /**
+     * Creates a queue of tiles shuffled by the provided source of randomness, so that a seeded source deals the
+     * same bag every time.
+     * @param random the source of randomness to shuffle with
+     * @return A shuffled queue of scrabble tiles
+     */
+    public static Queue<Character> getTileBagForGame(Random random)
+    {
+        // Shuffle a copy of the tiles and arrange them into a queue.
+        List<Character> tiles = new ArrayList<>(tileList);
+        Collections.shuffle(tiles, random);
+        return new ArrayDeque<>(tiles);
+    }
+
+    /**
+     * Returns the full set of tiles a game is played with.
+     * @return every tile, in no particular order
+     */
+    public static List<Character> getTileDistribution()
+    {
+        return new ArrayList<>(tileList);
+    }
+
+    /**
+     * Returns the tiles a player cannot see: the full set of tiles, less those on the board and in the player's hand.
+     * These are the tiles that may be in the bag or on the opponent's rack.
+     *
+     * @param board the scrabble board
+     * @param hand the player's hand
+     * @return the unseen tiles, in alphabetical order
+     */
+    public static List<Character> getUnseenTiles(List<List<Character>> board, List<Character> hand)
+    {
+        return UnseenTiles.of(board, hand).toList();
     }
 
     /**
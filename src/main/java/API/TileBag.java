@@ -0,0 +1,240 @@
+package API;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+
+/**
+ * The bag of one game, kept as a count per letter rather than as a shuffled list of tiles.
+ *
+ * A tile is drawn by picking a uniformly random one of the tiles left and walking the counts to its letter, which
+ * takes at most 26 steps however full the bag is, so the bag never needs shuffling: not when the game starts, and
+ * not when tiles are thrown back, which only adds to their counts. Draws come from the bag's own
+ * {@link SplittableRandom}, so a seeded bag deals the same tiles every time, and games that each have their own
+ * bag share nothing. Copies draw from generators split off a second generator the bag keeps for the purpose, so
+ * that taking a copy never changes what the bag itself draws next.
+ *
+ * Bags are not thread safe; use one per game, or a copy per thread.
+ */
+public class TileBag {
+
+    /**
+     * The number of each letter in the bag, and their total.
+     */
+    private final int[] counts = new int[26];
+    private int size;
+
+    private final SplittableRandom random;
+
+    /**
+     * The generator the generators of copies are split off.
+     */
+    private final SplittableRandom copies;
+
+    /**
+     * Constructs a bag holding the full set of tiles a game is played with.
+     * @param random the source of randomness for draws
+     */
+    public TileBag(SplittableRandom random)
+    {
+        this(Tile.getTileDistribution(), random);
+    }
+
+    /**
+     * Constructs a bag holding exactly the provided tiles.
+     * @param tiles the tiles in the bag
+     * @param random the source of randomness for draws
+     */
+    public TileBag(Collection<Character> tiles, SplittableRandom random)
+    {
+        this.random = random;
+        this.copies = random.split();
+        addAll(tiles);
+    }
+
+    private TileBag(TileBag other, SplittableRandom random)
+    {
+        System.arraycopy(other.counts, 0, counts, 0, 26);
+        this.size = other.size;
+        this.random = random;
+        this.copies = random.split();
+    }
+
+    /**
+     * Returns a bag holding the same tiles, drawing from a new generator of its own. Taking a copy does not change
+     * what this bag draws next; each copy draws differently from the last, and copies taken alike from bags seeded
+     * alike draw alike.
+     *
+     * @return the copy
+     */
+    public TileBag copy()
+    {
+        return new TileBag(this, copies.split());
+    }
+
+    /**
+     * Draws a tile uniformly at random.
+     * @return the tile drawn, or null if the bag is empty
+     */
+    public Character draw()
+    {
+        int l = draw(null);
+        return l < 0 ? null : (char) ('A' + l);
+    }
+
+    /**
+     * Draws a tile uniformly at random and adds it to rack, if rack is not null. Allocates nothing.
+     *
+     * @param rack the count per letter of a rack, added to
+     * @return the letter drawn, from 0 for 'A' to 25 for 'Z', or -1 if the bag is empty
+     */
+    public int draw(int[] rack)
+    {
+        if (size == 0)
+        {
+            return -1;
+        }
+        int r = random.nextInt(size);
+        int l = 0;
+        while (r >= counts[l])
+        {
+            r -= counts[l];
+            l++;
+        }
+        counts[l]--;
+        size--;
+        if (rack != null)
+        {
+            rack[l]++;
+        }
+        return l;
+    }
+
+    /**
+     * Draws tiles into rack until it holds the provided number, or the bag is empty. Allocates nothing, which
+     * with {@link #returnRack} lets simulations deal racks from a bag many times over.
+     *
+     * @param tiles the number of tiles to draw
+     * @param rack the count per letter of a rack, added to
+     * @return the number of tiles drawn
+     */
+    public int drawRack(int tiles, int[] rack)
+    {
+        int drawn = 0;
+        while (drawn < tiles && draw(rack) >= 0)
+        {
+            drawn++;
+        }
+        return drawn;
+    }
+
+    /**
+     * Puts the tiles of rack back in the bag.
+     * @param rack the count per letter of the tiles to return
+     */
+    public void returnRack(int[] rack)
+    {
+        for (int l = 0; l < 26; l++)
+        {
+            counts[l] += rack[l];
+            size += rack[l];
+        }
+    }
+
+    /**
+     * Puts one tile back in the bag, undoing a {@link #draw(int[])} of it.
+     * @param letter the letter of the tile, from 0 for 'A' to 25 for 'Z'
+     */
+    public void put(int letter)
+    {
+        counts[letter]++;
+        size++;
+    }
+
+    /**
+     * Draws tiles into hand until it holds rackSize tiles, or the bag is empty.
+     *
+     * @param hand the tiles in a player's hand, added to
+     * @param rackSize the number of tiles a full hand holds
+     */
+    public void refill(List<Character> hand, int rackSize)
+    {
+        while (hand.size() < rackSize && size > 0)
+        {
+            hand.add(draw());
+        }
+    }
+
+    /**
+     * Puts tiles in the bag, such as tiles thrown back by an exchange. Anything other than 'A' to 'Z' is ignored.
+     * @param tiles the tiles to add
+     */
+    public void addAll(Collection<Character> tiles)
+    {
+        for (Character ch : tiles)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Empties the bag.
+     */
+    public void clear()
+    {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of copies of letter ch in the bag.
+     * @param ch a letter
+     * @return its count
+     */
+    public int count(char ch)
+    {
+        return counts[ch - 'A'];
+    }
+
+    /**
+     * Returns the number of tiles in the bag.
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the bag holds no tiles.
+     * @return true if empty
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns every tile in the bag in the order a copy of it would deal them, leaving this bag as it was. This
+     * is the bag in the form the Quadruple methods of {@link AI} take.
+     *
+     * @return the tiles in a random order
+     */
+    public Queue<Character> toQueue()
+    {
+        TileBag copy = copy();
+        Queue<Character> queue = new ArrayDeque<>(size);
+        while (!copy.isEmpty())
+        {
+            queue.add(copy.draw());
+        }
+        return queue;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An uncompressed prefix tree built from the scrabble dictionary available from the hardcoded URL.
@@ -20,6 +21,16 @@ public class Trie {
      */
     private TrieNode root;
 
+    /**
+     * The source of lexicon versions. Every trie, and every change to a trie, gets a version never used before.
+     */
+    private static final AtomicLong nextVersion = new AtomicLong();
+
+    /**
+     * The version of the word list held by this trie.
+     */
+    private volatile long version = nextVersion.incrementAndGet();
+
     /**
      * Constructor that builds prefix tree from the scrabble dictionary located at the hardcoded URL.
      */
@@ -78,6 +89,26 @@ public class Trie {
         return getRoot().getNodeForPrefix(s, 0);
     }
 
+    /**
+     * Adds a word to the trie, giving it a new version.
+     * @param word the word to add
+     */
+    public void addWord(String word)
+    {
+        getRoot().insertWord(word.toUpperCase(), 0);
+        version = nextVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the version of the word list held by this trie. Two tries, or one trie before and after a change,
+     * never share a version, so anything computed from the words can be keyed by it.
+     *
+     * @return the lexicon version
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Gets the root of the trie.
      *
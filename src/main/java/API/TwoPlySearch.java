@@ -0,0 +1,121 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A two-ply search: our move, then the opponent's reply.
+ *
+ * The top candidates by equity are each played on a copy of the board, and the opponent's best reply by score is
+ * found on the resulting board for every one of a set of racks sampled from the unseen tiles. Candidates are
+ * ranked by their score less the mean reply, so a move that opens a premium lane pays for the points it gives
+ * away. Every candidate faces the same racks.
+ *
+ * Candidates are evaluated in parallel on the common fork/join pool. Each worker thread keeps one scratch
+ * generator, and reaches a candidate's board by copying the root position and playing the candidate, which
+ * updates only the cross-checks the candidate's tiles touch.
+ */
+public class TwoPlySearch {
+
+    private final Trie trie;
+
+    /**
+     * The leave table the candidates are chosen by, or null to choose by score.
+     */
+    private final LeaveTable leaves;
+
+    private final ThreadLocal<MoveGenerator> scratch;
+
+    /**
+     * Constructs a two-ply search.
+     * @param trie the trie containing the dictionary of valid words
+     * @param leaves the values of rack leaves used to choose candidates, or null to choose by score
+     */
+    public TwoPlySearch(Trie trie, LeaveTable leaves)
+    {
+        this.trie = trie;
+        this.leaves = leaves;
+        this.scratch = ThreadLocal.withInitial(() -> new MoveGenerator(trie));
+    }
+
+    /**
+     * Returns the best candidates for hand on board in descending order of score less the opponent's mean reply.
+     *
+     * @param board the scrabble board
+     * @param hand the tiles in the rack
+     * @param unseen the tiles on the opponent's rack or in the bag
+     * @param candidates the number of candidate moves to consider
+     * @param racks the number of opponent racks to sample
+     * @param seed the seed for the opponent racks, so that a search can be repeated
+     * @return the candidates with their mean spread over the replies, best first; empty if hand has no move
+     */
+    public List<SimulatedMove> search(List<List<Character>> board, List<Character> hand, UnseenTiles unseen,
+                                      int candidates, int racks, long seed)
+    {
+        MoveGenerator root = new MoveGenerator(trie);
+        root.setBoard(board);
+        List<Move> moves = root.search(hand, candidates, SearchBudget.unlimited(), leaves).getMoves();
+        int k = moves.size();
+        if (k == 0)
+        {
+            return new ArrayList<>();
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<List<Character>> opponentRacks = new ArrayList<>(racks);
+        for (int i = 0; i < racks; i++)
+        {
+            int[] counts = new int[26];
+            unseen.sampleRack(random, Math.min(7, unseen.size()), counts);
+            List<Character> rack = new ArrayList<>(7);
+            for (int l = 0; l < 26; l++)
+            {
+                for (int j = 0; j < counts[l]; j++)
+                {
+                    rack.add((char) ('A' + l));
+                }
+            }
+            opponentRacks.add(rack);
+        }
+
+        SimulatedMove[] result = new SimulatedMove[k];
+        IntStream.range(0, k).parallel().forEach(c -> result[c] = evaluate(root, moves.get(c), opponentRacks));
+        List<SimulatedMove> ranked = new ArrayList<>(k);
+        for (SimulatedMove move : result)
+        {
+            ranked.add(move);
+        }
+        ranked.sort(Comparator.comparingDouble(SimulatedMove::getMeanSpread).reversed());
+        return ranked;
+    }
+
+    /**
+     * Returns candidate with its spread over the best reply of each of opponentRacks.
+     */
+    private SimulatedMove evaluate(MoveGenerator root, Move candidate, List<List<Character>> opponentRacks)
+    {
+        MoveGenerator generator = scratch.get();
+        generator.copyBoard(root);
+        generator.play(candidate);
+        int n = opponentRacks.size();
+        double sum = 0, sumOfSquares = 0;
+        for (List<Character> rack : opponentRacks)
+        {
+            Move reply = generator.search(rack, 1, SearchBudget.unlimited()).getBestMove();
+            double spread = candidate.getScore() - (reply == null ? 0 : reply.getScore());
+            sum += spread;
+            sumOfSquares += spread * spread;
+        }
+        if (n == 0)
+        {
+            return new SimulatedMove(candidate, 0, candidate.getScore(), Double.POSITIVE_INFINITY);
+        }
+        double mean = sum / n;
+        double error = n < 2 ? Double.POSITIVE_INFINITY
+                : Math.sqrt(Math.max(0, (sumOfSquares - n * mean * mean) / (n - 1)) / n);
+        return new SimulatedMove(candidate, n, mean, error);
+    }
+}
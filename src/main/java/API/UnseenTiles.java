@@ -0,0 +1,325 @@
+package API;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The tiles one player cannot see, the ones in the bag or on the opponent's rack, kept as a count per letter.
+ *
+ * A tracker starts from the full set of tiles less the player's own rack and is updated as tiles come into view:
+ * the opponent's plays, and the player's own draws. It never looks at the bag itself, so a player using it only
+ * knows what it would know at a real board.
+ *
+ * Racks are sampled straight from the counts, without building or shuffling a list of tiles. After the opponent
+ * plays, {@link #inferLeave} weighs the leaves they might have kept by how well the play they chose fits each,
+ * and opponent racks are then sampled around those leaves.
+ */
+public class UnseenTiles {
+
+    /**
+     * How far, in leave table units, a play may fall short of the best play for a rack before the rack is thought
+     * e times less likely to have made it.
+     */
+    private static final double INFERENCE_TEMPERATURE = 5 * LeaveTable.SCALE;
+
+    /**
+     * The number of each letter unseen, and their total.
+     */
+    private final int[] counts = new int[26];
+    private int size;
+
+    /**
+     * The leaves the opponent may have kept from their last play, and the running total of their weights.
+     * Empty if nothing has been inferred.
+     */
+    private List<int[]> leaves = new ArrayList<>();
+    private double[] cumulativeWeights = new double[0];
+
+    /**
+     * Constructs a tracker for a player who has seen no tiles at all.
+     */
+    public UnseenTiles()
+    {
+        this(Tile.getTileDistribution());
+    }
+
+    /**
+     * Constructs a tracker for which exactly the provided tiles are unseen.
+     * @param tiles the unseen tiles
+     */
+    public UnseenTiles(Collection<Character> tiles)
+    {
+        addAll(tiles);
+    }
+
+    /**
+     * Returns a tracker of the same unseen tiles and inferred leave, which changes independently of this one.
+     * @return the copy
+     */
+    public UnseenTiles copy()
+    {
+        UnseenTiles copy = new UnseenTiles(new ArrayList<>());
+        System.arraycopy(counts, 0, copy.counts, 0, 26);
+        copy.size = size;
+        copy.leaves = leaves;
+        copy.cumulativeWeights = cumulativeWeights;
+        return copy;
+    }
+
+    /**
+     * Returns the tiles unseen by the owner of hand: all tiles, less those on board and in hand.
+     *
+     * @param board the scrabble board
+     * @param hand the player's hand
+     * @return the unseen tiles
+     */
+    public static UnseenTiles of(List<List<Character>> board, List<Character> hand)
+    {
+        UnseenTiles unseen = new UnseenTiles();
+        for (List<Character> row : board)
+        {
+            unseen.removeAll(row);
+        }
+        unseen.removeAll(hand);
+        return unseen;
+    }
+
+    /**
+     * Records tiles coming into view: drawn by the player, or played by the opponent.
+     * Tiles that are not unseen, such as empty squares, are ignored.
+     *
+     * @param tiles the tiles now seen
+     */
+    public void removeAll(Collection<Character> tiles)
+    {
+        for (Character ch : tiles)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z' && counts[ch - 'A'] > 0)
+            {
+                counts[ch - 'A']--;
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Records tiles going out of view: thrown back into the bag by the player.
+     * @param tiles the tiles no longer seen
+     */
+    public void addAll(Collection<Character> tiles)
+    {
+        for (Character ch : tiles)
+        {
+            if (ch != null && ch >= 'A' && ch <= 'Z')
+            {
+                counts[ch - 'A']++;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of unseen copies of letter ch.
+     * @param ch a letter
+     * @return its unseen count
+     */
+    public int count(char ch)
+    {
+        return counts[ch - 'A'];
+    }
+
+    /**
+     * Returns the number of unseen tiles.
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the unseen tiles in alphabetical order.
+     * @return the unseen tiles
+     */
+    public List<Character> toList()
+    {
+        List<Character> tiles = new ArrayList<>(size);
+        for (int l = 0; l < 26; l++)
+        {
+            for (int i = 0; i < counts[l]; i++)
+            {
+                tiles.add((char) ('A' + l));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Adds tiles drawn uniformly at random from the unseen tiles to taken, without replacement: tiles already in
+     * taken are not drawn again. Allocates nothing.
+     *
+     * @param random the source of randomness
+     * @param tiles the number of tiles to draw; fewer are drawn if fewer remain
+     * @param taken the count per letter of the tiles drawn so far, added to
+     * @return the number of tiles drawn
+     */
+    public int sample(SplittableRandom random, int tiles, int[] taken)
+    {
+        int drawn = 0;
+        while (drawn < tiles && draw(random, taken) >= 0)
+        {
+            drawn++;
+        }
+        return drawn;
+    }
+
+    /**
+     * Draws one tile uniformly at random from the unseen tiles not already in taken, and adds it to taken.
+     * Allocates nothing.
+     *
+     * @param random the source of randomness
+     * @param taken the count per letter of the tiles drawn so far, added to
+     * @return the letter drawn, from 0 for 'A' to 25 for 'Z', or -1 if no tiles remain
+     */
+    public int draw(SplittableRandom random, int[] taken)
+    {
+        int remaining = size;
+        for (int l = 0; l < 26; l++)
+        {
+            remaining -= taken[l];
+        }
+        if (remaining <= 0)
+        {
+            return -1;
+        }
+        int r = random.nextInt(remaining);
+        int l = 0;
+        while (r >= counts[l] - taken[l])
+        {
+            r -= counts[l] - taken[l];
+            l++;
+        }
+        taken[l]++;
+        return l;
+    }
+
+    /**
+     * Adds a rack the opponent may hold to rack, which must be all zeros. If a leave has been inferred, one of the
+     * inferred leaves is chosen by weight and the rack is filled up from the other unseen tiles; otherwise every
+     * tile is drawn uniformly. Allocates nothing.
+     *
+     * @param random the source of randomness
+     * @param tiles the size of the rack
+     * @param rack the count per letter of the rack, filled in
+     */
+    public void sampleRack(SplittableRandom random, int tiles, int[] rack)
+    {
+        int n = cumulativeWeights.length;
+        if (n > 0)
+        {
+            double r = random.nextDouble() * cumulativeWeights[n - 1];
+            int i = 0;
+            while (i < n - 1 && cumulativeWeights[i] <= r)
+            {
+                i++;
+            }
+            int[] leave = leaves.get(i);
+            int leaveSize = 0;
+            boolean available = true;
+            for (int l = 0; l < 26; l++)
+            {
+                available &= leave[l] <= counts[l];
+                leaveSize += leave[l];
+            }
+            // Tiles seen since the inference may rule the leave out.
+            if (available && leaveSize <= tiles)
+            {
+                System.arraycopy(leave, 0, rack, 0, 26);
+                sample(random, tiles - leaveSize, rack);
+                return;
+            }
+        }
+        sample(random, tiles, rack);
+    }
+
+    /**
+     * Infers what the opponent may have kept when they made a play. Candidate leaves are sampled from the unseen
+     * tiles, which must already exclude the tiles of the play, and each is weighted by how close the play comes to
+     * the best play, by equity, of the rack it would have made. A leave that would have had a much better play is
+     * unlikely. The opponent is assumed to have had a full rack of seven tiles.
+     *
+     * @param boardBefore the board before the opponent's play
+     * @param played the opponent's play
+     * @param trie the trie containing the dictionary of valid words
+     * @param leaveTable the leave values the opponent is assumed to play by, or null for score alone
+     * @param samples the number of candidate leaves to weigh
+     * @param random the source of randomness
+     */
+    public void inferLeave(List<List<Character>> boardBefore, Move played, Trie trie, LeaveTable leaveTable,
+                           int samples, SplittableRandom random)
+    {
+        clearInference();
+        int leaveSize = Math.min(7 - played.getTileCount(), size);
+        if (leaveSize <= 0 || samples <= 0)
+        {
+            return;
+        }
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(boardBefore);
+        int[] placed = new int[26];
+        for (Character ch : played.getTilesPlaced())
+        {
+            placed[ch - 'A']++;
+        }
+
+        List<int[]> inferred = new ArrayList<>(samples);
+        double[] cumulative = new double[samples];
+        double total = 0;
+        List<Character> rack = new ArrayList<>(7);
+        for (int s = 0; s < samples; s++)
+        {
+            int[] leave = new int[26];
+            sample(random, leaveSize, leave);
+            rack.clear();
+            for (int l = 0; l < 26; l++)
+            {
+                for (int i = 0; i < leave[l] + placed[l]; i++)
+                {
+                    rack.add((char) ('A' + l));
+                }
+            }
+            Move best = generator.search(rack, 1, SearchBudget.unlimited(), leaveTable).getBestMove();
+            int shortfall = best == null ? 0 : equity(best, rack, leaveTable) - equity(played, rack, leaveTable);
+            total += Math.exp(-Math.max(0, shortfall) / INFERENCE_TEMPERATURE);
+            inferred.add(leave);
+            cumulative[s] = total;
+        }
+        leaves = inferred;
+        cumulativeWeights = cumulative;
+    }
+
+    /**
+     * Forgets any inferred leave.
+     */
+    public void clearInference()
+    {
+        leaves = new ArrayList<>();
+        cumulativeWeights = new double[0];
+    }
+
+    /**
+     * Returns the equity of move made from rack, in leave table units.
+     */
+    private static int equity(Move move, List<Character> rack, LeaveTable leaveTable)
+    {
+        if (leaveTable == null)
+        {
+            return move.getScore() * LeaveTable.SCALE;
+        }
+        int[] leave = new int[26];
+        rack.forEach(tile -> leave[tile - 'A']++);
+        move.getTilesPlaced().forEach(tile -> leave[tile - 'A']--);
+        return move.getScore() * LeaveTable.SCALE + leaveTable.value(leave);
+    }
+}
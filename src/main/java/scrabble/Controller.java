@@ -1,31 +1,44 @@
 package scrabble;
 
 import API.AI;
-import API.Tile;
+import API.EndgameSolver;
+import API.GameEngine;
+import API.LeaveTable;
+import API.Move;
+import API.MoveGenerator;
+import API.PendingMove;
+import API.OpeningBook;
+import API.Ponderer;
+import API.PreEndgameAnalyzer;
+import API.SearchBudget;
 import API.Trie;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.NumberBinding;
 import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
 import javafx.scene.input.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 import javafx.util.Pair;
 import util.FunctionHelper;
-import util.Quadruple;
+import util.TopKHeap;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
-import static API.Board.scoreMove;
-import static API.Board.validMove;
-import static API.Tile.getTileBagForGame;
 import static util.FunctionHelper.*;
 
 /**
@@ -36,6 +49,65 @@ import static util.FunctionHelper.*;
 
 public class Controller implements Initializable {
 
+    /**
+     * The longest the CPU may spend searching for its move, in milliseconds.
+     */
+    private static final long CPU_MOVE_TIME_BUDGET_MILLIS = 1000;
+
+    /**
+     * The number of candidate moves the CPU weighs against every draw when the bag is nearly empty.
+     */
+    private static final int PRE_ENDGAME_CANDIDATES = 8;
+
+    /**
+     * The longest a search for hints may take, in milliseconds, and the number of hints shown.
+     */
+    private static final long HINT_TIME_BUDGET_MILLIS = 3000;
+    private static final int HINT_COUNT = 10;
+
+    /**
+     * The file the opening book is read from, in the working directory. See {@link OpeningBookGenerator}.
+     */
+    static final String OPENING_BOOK_FILE = "openingbook.bin";
+
+    /**
+     * Searches for the CPU's next move while the player is thinking, so that the CPU can reply at once.
+     */
+    private static Ponderer ponderer;
+
+    /**
+     * Solves the CPU's endgames, keeping what it learns from one turn to the next. Only used on the CPU thread.
+     */
+    private static EndgameSolver endgameSolver;
+
+    /**
+     * Analyzes the CPU's pre-endgames, keeping its endgame tables from one turn to the next.
+     */
+    private static PreEndgameAnalyzer preEndgameAnalyzer;
+
+    /**
+     * The CPU's first moves on an empty board, or null if no opening book has been generated.
+     */
+    private static OpeningBook openingBook;
+
+    /**
+     * The single background thread CPU moves are searched on, so that the application thread never waits on one.
+     */
+    private static final ExecutorService cpuExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cpu-move");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The single background thread hints are searched on.
+     */
+    private static final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      *  Access to the GUI representation of the board. Useful for defining drag-and-drop events.
      */
@@ -69,7 +141,15 @@ public class Controller implements Initializable {
      * The buttons in the layout.
      */
     @FXML
-    private Button moveButton, passButton, recallButton, swapTilesButton;
+    private Button moveButton, passButton, recallButton, swapTilesButton, hintButton;
+
+    /**
+     * The side panel listing the best moves found for the player, and the state of the search for them.
+     */
+    @FXML
+    private ListView<Move> hintList;
+    @FXML
+    private Text hintStatus;
 
     /**
      * Access to the text region containing the status message.
@@ -84,35 +164,45 @@ public class Controller implements Initializable {
     private List<List<Text>> viewModel;
 
     /**
-     *  The most recently accepted state of the board. State may change upon successful user or computer move.
-     *  Updated with a-z character values as board changes.
+     * The game being shown: the most recently accepted board, the bag, both hands, the scores and the turn.
+     * The view only displays it and feeds it the player's actions.
      */
-    private List<List<Character>> mainModel;
+    private GameEngine engine;
 
     /**
-     * A queue that represents the bag of tiles remaining.
+     * A prefix tree data structure to house the dictionary of main.scrabble words. See "util" for more information.
      */
-    private Queue<Character> tilesRemaining;
+    private static Trie trie;
 
     /**
-     * A list for the player and cpu racks (henceforth referenced as "hands").
+     * Flag to disallow placement of tiles on board while the user is swapping.
      */
-    private List<Character> playerHand, cpuHand;
+    private boolean isSwapping;
 
     /**
-     * A prefix tree data structure to house the dictionary of main.scrabble words. See "util" for more information.
+     * The CPU's turn in progress and the budget of its search, or null when the CPU is not thinking.
      */
-    private static Trie trie;
+    private Task<Pair<String, Integer>> cpuTask;
+    private SearchBudget cpuBudget;
 
     /**
-     * Flag to disallow placement of tiles on board while the user is swapping.
+     * The search for hints in progress and its budget, or null when there is none.
      */
-    private boolean isSwapping;
+    private Task<List<Move>> hintTask;
+    private SearchBudget hintBudget;
+
+    /**
+     * The letters of the hint previewed on the board, laid over the squares it would fill.
+     */
+    private final List<Text> hintPreview = new ArrayList<>();
 
     /**
-     * Integer tracking number of zero scoring turns on each player's side.
+     * The tiles the player has placed this turn, checked as each is dropped against the tables of
+     * placementGenerator, which holds pendingBoard, the board the turn started from.
      */
-    private int cpuConsecutiveZeroScoringTurns, playerConsecutiveZeroScoringTurns;
+    private MoveGenerator placementGenerator;
+    private PendingMove pending;
+    private List<List<Character>> pendingBoard;
 
     /**
      * A list of references to the elements of playerHandHBox that the user would like to swap.
@@ -138,16 +228,31 @@ public class Controller implements Initializable {
                 e.printStackTrace();
             }
         }
+        if (ponderer == null)
+        {
+            ponderer = new Ponderer(trie);
+            endgameSolver = new EndgameSolver(trie);
+            preEndgameAnalyzer = new PreEndgameAnalyzer(trie);
+            Path bookFile = Paths.get(OPENING_BOOK_FILE);
+            if (Files.exists(bookFile))
+            {
+                try
+                {
+                    openingBook = OpeningBook.load(bookFile);
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
         board_cells = new StackPane[15][15];
 
-        cpuConsecutiveZeroScoringTurns = 0;
-        playerConsecutiveZeroScoringTurns = 0;
         isSwapping = false;
 
         /*
-         * Generate the mainModel and viewModel Arraylists.
+         * Generate the viewModel Arraylist.
          */
-        mainModel = forEachBoardSquareAsNestedList((r, c) -> ' ');
         viewModel = forEachBoardSquareAsNestedList((r, c) -> new Text(" "));
         elementsToSwap = new ArrayList<>();
 
@@ -187,7 +292,7 @@ public class Controller implements Initializable {
                          * and if it has a string data. also, ensure that
                           * the board cell can actually receive this tile */
                         Text viewModelText = viewModel.get(row).get(col);
-                        if (!isSwapping &&
+                        if (!isSwapping && !isCPUThinking() &&
                                 event.getGestureSource() != child &&
                                 event.getDragboard().hasString() &&
                                 (viewModelText.getText().length() == 2 ||
@@ -202,7 +307,7 @@ public class Controller implements Initializable {
                         /* the drag-and-drop gesture entered the target */
                         /* show to the user that it is an actual gesture target */
                         Text viewModelText = viewModel.get(row).get(col);
-                        if (!isSwapping &&
+                        if (!isSwapping && !isCPUThinking() &&
                                 event.getGestureSource() != child &&
                                 event.getDragboard().hasString() &&
                                 (viewModelText.getText().length() == 2 ||
@@ -234,6 +339,8 @@ public class Controller implements Initializable {
 
 //                            System.out.println(db.getString());
                             viewModel.get(row).get(col).setText(db.getString());
+                            pendingMove().place(row, col, db.getString().charAt(0));
+                            showPendingMove();
 
                             // Remove from hand
                             playerHandHBox.getChildren().stream()
@@ -253,18 +360,38 @@ public class Controller implements Initializable {
                     });
                 });
 
-        // Prepare to distribute tiles to players.
-        tilesRemaining = getTileBagForGame();
-        playerHand = new ArrayList<>();
-        cpuHand = new ArrayList<>();
-
-        // Distribute the starting racks (hereafter referenced as "hands") to the computer and the player.
-        IntStream.range(0, 7).forEach( i->{
-            playerHand.add(tilesRemaining.poll());
-            cpuHand.add(tilesRemaining.poll());
-            // Display the player's hand as stackpanes in the HBox in the bottom of the borderpane layout.
-            addTileToUserHand(playerHand.get(i));
-        });
+        placementGenerator = new MoveGenerator(trie);
+        pending = new PendingMove(placementGenerator);
+        pendingBoard = null;
+
+        // Preview whichever hint is selected, or the best one if none is.
+        hintList.getSelectionModel().selectedItemProperty().addListener((observable, before, selected) ->
+                showHintPreview(selected != null ? selected : hintList.getItems().isEmpty() ? null : hintList.getItems().get(0)));
+
+        // Start a game, which deals the starting racks (hereafter referenced as "hands") to both players.
+        engine = new GameEngine(trie);
+
+        // Display the player's hand as stackpanes in the HBox in the bottom of the borderpane layout.
+        showPlayerHand();
+        ponderCPUMove();
+    }
+
+    /**
+     * Redisplays the player's hand as the game engine holds it.
+     */
+    private void showPlayerHand()
+    {
+        playerHandHBox.getChildren().clear();
+        engine.getHand(GameEngine.PLAYER).forEach(this::addTileToUserHand);
+    }
+
+    /**
+     * Redisplays both scores as the game engine holds them.
+     */
+    private void showScores()
+    {
+        playerScore.setText("Player Score:" + engine.getScore(GameEngine.PLAYER));
+        cpuScore.setText("CPU Score:" + engine.getScore(GameEngine.CPU));
     }
 
     /**
@@ -278,7 +405,7 @@ public class Controller implements Initializable {
         List<Pair<Integer, Integer>> changed_coordinates = getCoordinatesListForBoard().stream().filter(x -> {
             int r = x.getKey();
             int c = x.getValue();
-            return mainModel.get(r).get(c) != textInViewModel.get(r).get(c);
+            return engine.getBoard().get(r).get(c) != textInViewModel.get(r).get(c);
         }).collect(Collectors.toList());
 
         forEachProvidedSquareAsList((i, j) -> {
@@ -298,6 +425,27 @@ public class Controller implements Initializable {
             }
             return null;
         }, changed_coordinates);
+
+        if (pendingMove().getTileCount() > 0)
+        {
+            pending.clear();
+            statusMessage.setText("");
+        }
+    }
+
+    /**
+     * Returns the play the player is putting together, emptied first if the board has changed since it was
+     * started. Only what the new tiles on the board changed is recomputed.
+     */
+    private PendingMove pendingMove()
+    {
+        if (pendingBoard != engine.getBoard())
+        {
+            pendingBoard = engine.getBoard();
+            placementGenerator.update(pendingBoard);
+            pending.clear();
+        }
+        return pending;
     }
 
     /**
@@ -344,6 +492,7 @@ public class Controller implements Initializable {
         // Mark the user's tiles as valid sources for a drag n' drop motion.
         s.setOnDragDetected((event) -> {
             /* drag was detected, start drag-and-drop gesture*/
+            cancelHints();
             Dragboard db = s.startDragAndDrop(TransferMode.MOVE);
 
             /* put a string on dragboard */
@@ -358,20 +507,38 @@ public class Controller implements Initializable {
         s.setOnDragDone(Event::consume);
     }
 
+    /**
+     * Tells the player whether the tiles placed so far make a legal play, and what it would score.
+     */
+    private void showPendingMove()
+    {
+        Move move = pendingMove().getMove();
+        statusMessage.getStyleClass().clear();
+        if (move != null)
+        {
+            statusMessage.getStyleClass().add("success-text");
+            statusMessage.setText(move.getWord() + " for " + move.getScore() + " points.");
+        }
+        else
+        {
+            statusMessage.getStyleClass().add("informative-text");
+            statusMessage.setText("Not a valid play yet.");
+        }
+    }
+
     /**
      * Attempts a player move. Triggered on click of "Move" button in GUI.
      */
     public void attemptPlayerMove()
     {
-        List<List<Character>> textInViewModel = forEachBoardSquareAsNestedList((r, c) ->
-                viewModel.get(r).get(c).getText().length() == 1 ? viewModel.get(r).get(c).getText().charAt(0) : ' ');
-
-        if (validMove(mainModel, textInViewModel, trie))
+        // The play was checked as its tiles were dropped.
+        Move move = pendingMove().getMove();
+        if (move != null)
         {
             statusMessage.setText("Your move has been registered.");
             statusMessage.getStyleClass().clear();
             statusMessage.getStyleClass().add("success-text");
-            makePlayerMove();
+            makePlayerMove(move);
         }
         else
         {
@@ -383,44 +550,18 @@ public class Controller implements Initializable {
 
     /**
      * Finalizes the move for the player, assuming it was valid. Propagates changes
-     * from viewmodel to model.
+     * from viewmodel to the game.
+     * @param move the play the tiles placed on the board make
      */
-    private void makePlayerMove()
+    private void makePlayerMove(Move move)
     {
-        playerConsecutiveZeroScoringTurns = 0;
-
-        List<List<Character>> textInViewModel = forEachBoardSquareAsNestedList((r, c) ->
-                viewModel.get(r).get(c).getText().length() == 1 ? viewModel.get(r).get(c).getText().charAt(0) : ' ');
+        // The game takes the placed tiles from the player's hand and refills it from the bag.
+        clearHints();
+        engine.play(move);
+        showScores();
+        showPlayerHand();
 
-        List<Pair<Integer, Integer>> changed_coordinates = getCoordinatesListForBoard().stream().filter(x -> {
-            int r = x.getKey();
-            int c = x.getValue();
-            return mainModel.get(r).get(c) != textInViewModel.get(r).get(c);
-        }).collect(Collectors.toList());
-
-        int incrementInScore = scoreMove(mainModel, textInViewModel);
-
-        int score = Integer.parseInt(playerScore.getText().split(":")[1]) + incrementInScore;
-        playerScore.setText("Player Score:" + score);
-
-        // Step 2: propagate viewModel to model
-        mainModel = forEachBoardSquareAsNestedList((r, c) ->
-                viewModel.get(r).get(c).getText().length() == 1 ? viewModel.get(r).get(c).getText().charAt(0) : ' '
-        );
-
-        // Step 3: take as many tiles from the bag as you can (up to the number removed) and give them to the player
-        forEachProvidedSquareAsList( (row, col) -> {
-            playerHand.remove((Character)viewModel.get(row).get(col).getText().charAt(0));
-            return tilesRemaining.poll();
-        }, changed_coordinates).forEach((tile) -> {
-            if (tile != null)
-            {
-                playerHand.add(tile);
-                addTileToUserHand(tile);
-            }
-        });
-
-        if (!gameOver(playerHand, playerConsecutiveZeroScoringTurns))
+        if (!engine.isOver())
         {
             makeCPUMove();
         }
@@ -431,30 +572,106 @@ public class Controller implements Initializable {
 
     }
 
+    /**
+     * Starts the CPU's turn on the background CPU thread, showing the search's progress as it goes. The result is
+     * shown on the application thread once the search is done, unless the game has been replaced by then.
+     */
     private void makeCPUMove()
     {
+        disablePlayerActions();
         statusMessage.getStyleClass().clear();
         statusMessage.getStyleClass().add("success-text");
 
-        Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>>
-                cpuPlay = API.AI.CPUMove(new Quadruple<>(mainModel, cpuHand, tilesRemaining, trie));
+        GameEngine game = engine;
+        List<List<Character>> boardBeforeCPUMove = game.getBoard();
+        SearchBudget budget = SearchBudget.ofMillis(CPU_MOVE_TIME_BUDGET_MILLIS);
+        Task<Pair<String, Integer>> task = new Task<Pair<String, Integer>>() {
+            @Override
+            protected Pair<String, Integer> call()
+            {
+                updateMessage("CPU is thinking...");
+                budget.withProgress((anchorsSearched, anchorCount, bestSoFar) -> updateMessage(
+                        "CPU is thinking: " + anchorsSearched + " of " + anchorCount + " anchors searched"
+                        + (bestSoFar == null ? "." : ", best so far " + bestSoFar.getWord()
+                                + " for " + bestSoFar.getScore() + " points.")));
+                // With the bag empty, both racks are known and the endgame can be searched exactly. With a few
+                // tiles left, every draw that could follow each candidate is looked at.
+                return game.play(input -> input.getBagSize() == 0
+                        ? AI.CPUEndgameMove(input, budget, endgameSolver)
+                        : input.getBagSize() <= PreEndgameAnalyzer.MAX_BAG_SIZE
+                        ? AI.CPUPreEndgameMove(input, PRE_ENDGAME_CANDIDATES, CPU_MOVE_TIME_BUDGET_MILLIS,
+                                preEndgameAnalyzer)
+                        : openingBook != null
+                                && openingBook.covers(input.getBoard(), input.getHand(), LeaveTable.standard())
+                        ? AI.CPUMove(input, budget, LeaveTable.standard(), openingBook)
+                        : AI.CPUMove(input, budget, LeaveTable.standard(), ponderer));
+            }
+        };
+        statusMessage.textProperty().bind(task.messageProperty());
+        task.setOnSucceeded(e -> {
+            if (cpuTask == task)
+            {
+                cpuTask = null;
+                cpuBudget = null;
+                statusMessage.textProperty().unbind();
+                showCPUMove(boardBeforeCPUMove, task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            if (cpuTask == task)
+            {
+                cpuTask = null;
+                cpuBudget = null;
+                statusMessage.textProperty().unbind();
+                statusMessage.getStyleClass().clear();
+                statusMessage.getStyleClass().add("error-text");
+                statusMessage.setText("The CPU could not move: " + task.getException());
+            }
+        });
+        cpuTask = task;
+        cpuBudget = budget;
+        cpuExecutor.execute(task);
+    }
+
+    /**
+     * Returns true while the CPU is taking its turn.
+     */
+    private boolean isCPUThinking()
+    {
+        return cpuTask != null;
+    }
+
+    /**
+     * Stops the CPU's turn in progress, if any. Its result, when the search winds down, is thrown away.
+     */
+    private void cancelCPUMove()
+    {
+        if (cpuTask != null)
+        {
+            cpuBudget.cancel();
+            cpuTask.cancel();
+            cpuTask = null;
+            cpuBudget = null;
+            statusMessage.textProperty().unbind();
+        }
+    }
+
+    /**
+     * Shows the CPU's turn, which turned boardBeforeCPUMove into the engine's board, and hands the turn back.
+     */
+    private void showCPUMove(List<List<Character>> boardBeforeCPUMove, Pair<String, Integer> cpuPlay)
+    {
+        List<List<Character>> mainModel = engine.getBoard();
 
         List<Pair<Integer, Integer>> changed_coordinates = getCoordinatesListForBoard().stream().filter(x -> {
             int r = x.getKey();
             int c = x.getValue();
-            return mainModel.get(r).get(c) != cpuPlay.getA().get(r).get(c);
+            return boardBeforeCPUMove.get(r).get(c) != mainModel.get(r).get(c);
         }).collect(Collectors.toList());
 
-        cpuHand = cpuPlay.getB();
-        tilesRemaining = cpuPlay.getC();
-        String cpuPlayedString = cpuPlay.getD().getKey();
-        int incrementInScore = cpuPlay.getD().getValue();
-
-        boolean cpuSwapped = (incrementInScore == 0 && tilesRemaining.size() >= 7);
-
         // Reset the default colors of text on the board
         forEachBoardSquareAsList((r, c) -> {
-            if (mainModel.get(r).get(c) != ' ')
+            if (boardBeforeCPUMove.get(r).get(c) != ' ')
             {
                 viewModel.get(r).get(c).getStyleClass().removeAll("bold-text");
                 viewModel.get(r).get(c).getStyleClass().add("black-text");
@@ -462,61 +679,64 @@ public class Controller implements Initializable {
             return null;
         });
 
-        if (incrementInScore != 0)
+        if (engine.getLastTurn() == GameEngine.Turn.PLAY)
         {
-            mainModel = cpuPlay.getA();
-            cpuConsecutiveZeroScoringTurns = 0;
             forEachProvidedSquareAsList((r, c) -> {
                 // Side effects on the View Model
 
                 viewModel.get(r).get(c).setText(mainModel.get(r).get(c) + "");
                 viewModel.get(r).get(c).getStyleClass().add("bold-text");
                 board_cells[r][c].getStyleClass().add("played-tile");
-                cpuHand.remove((Character)mainModel.get(r).get(c));
                 return null;
             }, changed_coordinates);
+            showScores();
+            statusMessage.setText("CPU played " + cpuPlay.getKey() + " for " + cpuPlay.getValue() + " points.");
         }
-        else if (cpuSwapped)
+        else if (engine.getLastTurn() == GameEngine.Turn.EXCHANGE)
         {
-            cpuConsecutiveZeroScoringTurns++;
             statusMessage.setText("CPU swapped some tiles.");
-            if (gameOver(cpuHand, cpuConsecutiveZeroScoringTurns))
-            {
-                cleanup();
-            }
-            return;
         }
         else
         {
-            cpuConsecutiveZeroScoringTurns++;
             statusMessage.setText("CPU passed the turn.");
-            if (gameOver(cpuHand, cpuConsecutiveZeroScoringTurns))
-            {
-                cleanup();
-            }
-            return;
         }
 
-
-        int score = Integer.parseInt(cpuScore.getText().split(":")[1]) + incrementInScore;
-        cpuScore.setText("CPU Score:" + score);
-        statusMessage.setText("CPU played " + cpuPlayedString + " for " + incrementInScore + " points.");
-        if (gameOver(cpuHand, cpuConsecutiveZeroScoringTurns))
+        if (engine.isOver())
         {
             cleanup();
         }
+        else
+        {
+            enablePlayerActions();
+            ponderCPUMove();
+        }
+    }
+
+    /**
+     * Starts searching for the CPU's reply on the current board while the player thinks about their move. Only
+     * the ordinary mid-game search is pondered; near the end of the game the CPU looks at every draw instead.
+     */
+    private void ponderCPUMove()
+    {
+        if (engine.getBagSize() > PreEndgameAnalyzer.MAX_BAG_SIZE)
+        {
+            ponderer.ponder(engine.getBoard(), engine.getHand(GameEngine.CPU), LeaveTable.standard());
+        }
+        else
+        {
+            ponderer.cancel();
+        }
     }
 
 
     public void passTurn()
     {
-        playerConsecutiveZeroScoringTurns++;
+        clearHints();
         recallTiles();
-        if (!gameOver(playerHand, playerConsecutiveZeroScoringTurns))
+        engine.pass();
+        if (!engine.isOver())
         {
-            disablePlayerActions();
             makeCPUMove();
-            enablePlayerActions();
         }
         else
         {
@@ -526,13 +746,14 @@ public class Controller implements Initializable {
 
     public void attemptSwap()
     {
-        if (tilesRemaining.size() < 7)
+        if (engine.getBagSize() < 7)
         {
             statusMessage.setText("Cannot swap when fewer than 7 tiles remaining in bag.");
             statusMessage.getStyleClass().clear();
             statusMessage.getStyleClass().add("error-text");
             return;
         }
+        clearHints();
         isSwapping = true;
         disablePlayerActions();
         recallTiles();
@@ -553,21 +774,12 @@ public class Controller implements Initializable {
             recallButton.setOnAction((e) -> recallTiles());
         });
         swapTilesButton.setOnAction((ev) -> {
-            // Add new tiles from bag to player hand, prepare to add tiles discarded from player hand back to bag.
-            List<Character> returnToBag = elementsToSwap.stream().map((s) -> {
-                playerHandHBox.getChildren().remove(s);
-                char toRemove = (Character)(((Text)s.getChildren().get(0)).getText().charAt(0));
-                playerHand.remove((Character)toRemove);
-                char toAdd = tilesRemaining.poll();
-                playerHand.add(toAdd);
-                addTileToUserHand(toAdd);
-                return toRemove;
-            }).collect(Collectors.toList());
-            tilesRemaining.addAll(returnToBag);
-            List<Character> shuffledTiles = new ArrayList<>(tilesRemaining);
-            Collections.shuffle(shuffledTiles);
-            tilesRemaining.clear();
-            tilesRemaining.addAll(shuffledTiles);
+            // Return the tiles discarded from the player hand to the bag, and draw as many new ones.
+            List<Character> returnToBag = elementsToSwap.stream()
+                    .map((s) -> ((Text)s.getChildren().get(0)).getText().charAt(0))
+                    .collect(Collectors.toList());
+            engine.exchange(returnToBag);
+            showPlayerHand();
             elementsToSwap.clear();
 
             recallButton.setText("Recall");
@@ -576,11 +788,9 @@ public class Controller implements Initializable {
             swapTilesButton.setOnAction((e) -> attemptSwap());
             recallButton.setOnAction((e) -> recallTiles());
 
-            playerConsecutiveZeroScoringTurns++;
-            if (!gameOver(playerHand, playerConsecutiveZeroScoringTurns))
+            if (!engine.isOver())
             {
                 makeCPUMove();
-                enablePlayerActions();
             }
             else
             {
@@ -594,6 +804,7 @@ public class Controller implements Initializable {
         moveButton.setDisable(true);
         passButton.setDisable(true);
         swapTilesButton.setDisable(true);
+        hintButton.setDisable(true);
         if (!isSwapping)
         {
             recallButton.setDisable(true);
@@ -606,34 +817,159 @@ public class Controller implements Initializable {
         passButton.setDisable(false);
         swapTilesButton.setDisable(false);
         recallButton.setDisable(false);
+        hintButton.setDisable(false);
     }
 
-    private boolean gameOver(List<Character> hand, int consecTurns)
-    {
-        return (hand.isEmpty()) || consecTurns == 3;
-
-    }
-
-    private void cleanup()
+    /**
+     * Searches for the player's best moves in the background, for at most HINT_TIME_BUDGET_MILLIS. The best moves
+     * found so far are listed in the hint panel after every anchor searched, and the selected one, or else the
+     * best, is previewed on the board. Moving a tile stops the search.
+     */
+    public void showHints()
     {
-        statusMessage.setText("Game over.");
-        boolean normalEnding = playerHand.isEmpty() || cpuHand.isEmpty();
-        int pScore = Integer.parseInt(this.playerScore.getText().split(":")[1]);
-        int aiScore = Integer.parseInt(this.cpuScore.getText().split(":")[1]);
-        // When the game is finished,
-        if (normalEnding)
+        if (isCPUThinking() || isSwapping || engine.isOver())
         {
-            if (playerHand.isEmpty())
+            return;
+        }
+        clearHints();
+        recallTiles();
+
+        List<List<Character>> board = engine.getBoard();
+        List<Character> hand = new ArrayList<>(engine.getHand(GameEngine.PLAYER));
+        SearchBudget budget = SearchBudget.ofMillis(HINT_TIME_BUDGET_MILLIS);
+        Task<List<Move>> task = new Task<List<Move>>() {
+            @Override
+            protected List<Move> call()
+            {
+                MoveGenerator generator = new MoveGenerator(trie);
+                generator.setBoard(board);
+                TopKHeap<Move> heap = new TopKHeap<>(HINT_COUNT);
+                boolean[] changed = new boolean[1];
+                budget.withProgress((anchorsSearched, anchorCount, bestSoFar) -> {
+                    if (changed[0])
+                    {
+                        changed[0] = false;
+                        updateValue(heap.toSortedList());
+                    }
+                    updateMessage("Searching: " + anchorsSearched + " of " + anchorCount + " anchors.");
+                });
+                generator.generate(hand, (r, c, horizontal, line, start, end, placedMask, score) -> {
+                    if (heap.accepts(score))
+                    {
+                        heap.offer(score, MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score));
+                        changed[0] = true;
+                    }
+                }, budget);
+                return heap.toSortedList();
+            }
+        };
+        task.valueProperty().addListener((observable, before, moves) -> {
+            if (hintTask == task && moves != null)
+            {
+                // Keep the player's choice selected if it is still among the best.
+                Move selected = hintList.getSelectionModel().getSelectedItem();
+                hintList.getItems().setAll(moves);
+                if (selected != null && moves.contains(selected))
+                {
+                    hintList.getSelectionModel().select(selected);
+                }
+                else
+                {
+                    showHintPreview(moves.isEmpty() ? null : moves.get(0));
+                }
+            }
+        });
+        hintStatus.textProperty().bind(task.messageProperty());
+        task.setOnSucceeded(e -> {
+            if (hintTask == task)
             {
-                pScore += 2 * cpuHand.stream().map(Tile::scoreCharacter).reduce((a, b) -> a + b).get();
+                hintTask = null;
+                hintBudget = null;
+                hintStatus.textProperty().unbind();
+                hintStatus.setText(task.getValue().isEmpty() ? "No moves found. Try swapping tiles."
+                        : budget.wasExhausted() ? "Out of time: these are the best moves found."
+                        : "These are your best moves.");
             }
-            else
+        });
+        task.setOnFailed(e -> {
+            if (hintTask == task)
             {
-                aiScore += 2 * playerHand.stream().map(Tile::scoreCharacter).reduce((a, b) -> a + b).get();
+                hintTask = null;
+                hintBudget = null;
+                hintStatus.textProperty().unbind();
+                hintStatus.setText("Could not search for hints.");
+                task.getException().printStackTrace();
             }
+        });
+        hintTask = task;
+        hintBudget = budget;
+        hintExecutor.execute(task);
+    }
+
+    /**
+     * Stops the search for hints in progress, if any, and takes the preview off the board. The hints found so
+     * far stay listed.
+     */
+    private void cancelHints()
+    {
+        if (hintTask != null)
+        {
+            hintBudget.cancel();
+            hintTask.cancel();
+            hintTask = null;
+            hintBudget = null;
+            hintStatus.textProperty().unbind();
+            hintStatus.setText("Stopped.");
         }
-        playerScore.setText("Player Score:" + pScore);
-        cpuScore.setText("CPU Score:" + aiScore);
+        showHintPreview(null);
+    }
+
+    /**
+     * Cancels any search for hints and empties the hint panel, once the hints no longer apply.
+     */
+    private void clearHints()
+    {
+        cancelHints();
+        hintList.getItems().clear();
+        hintStatus.setText("");
+    }
+
+    /**
+     * Shows the letters move would place over the squares they would fill, replacing any earlier preview, or
+     * only removes the preview if move is null.
+     */
+    private void showHintPreview(Move move)
+    {
+        hintPreview.forEach(text -> {
+            StackPane cell = (StackPane) text.getParent();
+            cell.getChildren().remove(text);
+            cell.getChildren().forEach(child -> child.setVisible(true));
+        });
+        hintPreview.clear();
+        if (move == null)
+        {
+            return;
+        }
+        List<Pair<Integer, Integer>> squares = move.getPlacedCoordinates();
+        List<Character> tiles = move.getTilesPlaced();
+        for (int i = 0; i < squares.size(); i++)
+        {
+            StackPane cell = board_cells[squares.get(i).getKey()][squares.get(i).getValue()];
+            cell.getChildren().forEach(child -> child.setVisible(false));
+            Text text = new Text(tiles.get(i) + "");
+            text.getStyleClass().add("hint-text");
+            cell.getChildren().add(text);
+            hintPreview.add(text);
+        }
+    }
+
+    private void cleanup()
+    {
+        statusMessage.setText("Game over.");
+        // The game has already awarded the bonus for going out, if either player did.
+        int pScore = engine.getScore(GameEngine.PLAYER);
+        int aiScore = engine.getScore(GameEngine.CPU);
+        showScores();
         int pointDifferential = Math.abs(pScore - aiScore);
         if (pScore > aiScore)
         {
@@ -702,6 +1038,8 @@ public class Controller implements Initializable {
 
     public void newGame()
     {
+        cancelCPUMove();
+        clearHints();
         clearBoard();
         initialize(null, null);
         swapTilesButton.setText("Swap Tiles");
@@ -0,0 +1,67 @@
+package scrabble;
+
+import API.GcgReader;
+import API.GcgRecord;
+import API.Trie;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A command-line tool that reads every game in a GCG archive and checks it against the dictionary and the
+ * rules: that every play is legal and scores what the record says, and that the totals add up. The files are
+ * read in parallel and each game is checked as it is read, so archives of any size take constant memory.
+ *
+ * Usage: GcgVerifier file-or-directory... [--threads T]
+ */
+public class GcgVerifier {
+
+    /**
+     * The number of records with problems to print in full.
+     */
+    private static final int REPORTED = 10;
+
+    public static void main(String[] args) throws Exception
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("--threads") && i + 1 < args.length)
+            {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else
+            {
+                files.addAll(GcgReader.findFiles(Paths.get(args[i])));
+            }
+        }
+        Trie trie = new Trie();
+        AtomicLong records = new AtomicLong(), turns = new AtomicLong(), bad = new AtomicLong();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        pool.submit(() -> GcgReader.records(files).forEach(record -> {
+            List<String> problems = record.verify(trie);
+            records.incrementAndGet();
+            turns.addAndGet(record.getTurns().size());
+            if (!problems.isEmpty() && bad.incrementAndGet() <= REPORTED)
+            {
+                report(record, problems);
+            }
+        })).get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        System.out.printf("%d files, %d records, %d turns on %d threads in %.1f s: %.0f records/s; %d with problems%n",
+                files.size(), records.get(), turns.get(), threads, seconds, records.get() / seconds, bad.get());
+    }
+
+    private static synchronized void report(GcgRecord record, List<String> problems)
+    {
+        System.out.println(record.getSource() + ":");
+        problems.forEach(problem -> System.out.println("  " + problem));
+    }
+}
@@ -0,0 +1,37 @@
+package scrabble;
+
+import API.OpeningBook;
+import API.Trie;
+
+import java.nio.file.Paths;
+
+/**
+ * A command-line tool that solves the first move of every rack and writes the {@link OpeningBook} for the
+ * lexicon the trie loads. It takes a few minutes on one core and scales with the number of threads.
+ *
+ * Usage: OpeningBookGenerator [--out openingbook.bin] [--threads T]
+ */
+public class OpeningBookGenerator {
+
+    public static void main(String[] args) throws Exception
+    {
+        String out = Controller.OPENING_BOOK_FILE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--out": out = args[i + 1]; break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        Trie trie = new Trie();
+        long start = System.nanoTime();
+        OpeningBook book = OpeningBook.generate(trie, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        book.write(Paths.get(out));
+        System.out.printf("%d racks on %d threads in %.1f s: %.0f racks/s, written to %s%n", OpeningBook.SIZE,
+                threads, seconds, OpeningBook.SIZE / seconds, out);
+    }
+}
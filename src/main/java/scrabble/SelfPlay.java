@@ -0,0 +1,207 @@
+package scrabble;
+
+import API.AI;
+import API.Decision;
+import API.EndgameSolver;
+import API.GameEngine;
+import API.GameState;
+import API.GcgRecord;
+import API.GcgWriter;
+import API.LeaveTable;
+import API.OpeningBook;
+import API.PlayerView;
+import API.PreEndgameAnalyzer;
+import API.SearchBudget;
+import API.Trie;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * A command-line runner that plays CPU engines against each other, with no user interface.
+ *
+ * Games are played in parallel, one per worker thread, each from a tile bag seeded by the game's number, so a
+ * run can be repeated exactly. The two engines swap seats every game. Each game's result is printed as soon as it
+ * finishes, and a summary of win rates, scores and throughput is printed at the end.
+ *
+ * Usage: SelfPlay [--games N] [--seed S] [--threads T] [--engines A,B] [--book openingbook.bin] [--gcg games.gcg]
+ * where the engines are any two of greedy, equity, twoply and full. With an opening book, the greedy, equity and
+ * full engines look up their first move on an empty board instead of searching for it. With --gcg, the record of
+ * every game is written to the file given, in the order the games finish.
+ */
+public class SelfPlay {
+
+    /**
+     * The form every CPU move function of {@link AI} takes.
+     */
+    private interface Engine extends Function<PlayerView, Decision> {
+    }
+
+    /**
+     * The time limit of the engines that search within one, in milliseconds.
+     */
+    private static final long MOVE_TIME_MILLIS = 1000;
+
+    /**
+     * The outcome of one game: the final scores and the number of turns, by engine rather than by seat.
+     */
+    private static class Result {
+        final int game, turns;
+        final int[] scores;
+        final long nanos;
+        final GameState state;
+
+        Result(int game, int[] scores, int turns, long nanos, GameState state)
+        {
+            this.game = game;
+            this.scores = scores;
+            this.turns = turns;
+            this.nanos = nanos;
+            this.state = state;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int games = 100, threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String[] names = {"greedy", "equity"};
+        OpeningBook book = null;
+        GcgWriter gcg = null;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--games": games = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--engines": names = args[i + 1].split(","); break;
+                case "--book": book = OpeningBook.load(Paths.get(args[i + 1])); break;
+                case "--gcg": gcg = new GcgWriter(Files.newBufferedWriter(Paths.get(args[i + 1]), StandardCharsets.UTF_8)); break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        if (names.length != 2)
+        {
+            throw new IllegalArgumentException("two engines are needed: " + String.join(",", names));
+        }
+        Trie trie = new Trie();
+        Engine[] engines = {engine(names[0], trie, book), engine(names[1], trie, book)};
+        LeaveTable.standard();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Result> results = new ExecutorCompletionService<>(pool);
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++)
+        {
+            int game = g;
+            long gameSeed = seed + g;
+            results.submit(() -> play(trie, engines, game, gameSeed));
+        }
+
+        int[] wins = new int[2];
+        long[] totals = new long[2], squares = new long[2];
+        int ties = 0;
+        long turns = 0;
+        for (int g = 0; g < games; g++)
+        {
+            Result result = results.take().get();
+            int[] s = result.scores;
+            System.out.printf("game %d: %s %d, %s %d, %d turns, %d ms%n", result.game, names[0], s[0], names[1], s[1],
+                    result.turns, result.nanos / 1000000);
+            if (gcg != null)
+            {
+                int first = result.game % 2;
+                gcg.write(GcgRecord.of(result.state, names[first] + (first + 1), names[1 - first] + (2 - first)));
+            }
+            if (s[0] == s[1])
+            {
+                ties++;
+            }
+            else
+            {
+                wins[s[0] > s[1] ? 0 : 1]++;
+            }
+            for (int e = 0; e < 2; e++)
+            {
+                totals[e] += s[e];
+                squares[e] += (long) s[e] * s[e];
+            }
+            turns += result.turns;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        if (gcg != null)
+        {
+            gcg.close();
+        }
+
+        System.out.printf("%d games on %d threads in %.1f s: %.2f games/s, %.1f moves/s%n", games, threads, seconds,
+                games / seconds, turns / seconds);
+        for (int e = 0; e < 2; e++)
+        {
+            double mean = (double) totals[e] / games;
+            double deviation = Math.sqrt(Math.max(0, (double) squares[e] / games - mean * mean));
+            System.out.printf("%s: %d wins (%.1f%%), mean score %.1f, standard deviation %.1f%n", names[e], wins[e],
+                    100.0 * wins[e] / games, mean, deviation);
+        }
+        System.out.printf("ties: %d%n", ties);
+    }
+
+    /**
+     * Plays one game, engine 0 moving first in even games and engine 1 in odd ones.
+     */
+    private static Result play(Trie trie, Engine[] engines, int game, long seed)
+    {
+        long start = System.nanoTime();
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(seed));
+        int first = game % 2;
+        int turns = 0;
+        while (!engine.isOver())
+        {
+            // The seat to move is engine first when it is PLAYER, else the other engine.
+            int seat = engine.getPlayerToMove();
+            engine.play(engines[seat == GameEngine.PLAYER ? first : 1 - first]);
+            turns++;
+        }
+        int[] scores = new int[2];
+        scores[first] = engine.getScore(GameEngine.PLAYER);
+        scores[1 - first] = engine.getScore(GameEngine.CPU);
+        return new Result(game, scores, turns, System.nanoTime() - start, engine.getState());
+    }
+
+    /**
+     * Returns the engine of the given name, which opens from book if it is not null.
+     */
+    private static Engine engine(String name, Trie trie, OpeningBook book)
+    {
+        switch (name)
+        {
+            case "greedy":
+                return book == null ? input -> AI.CPUMove(input, SearchBudget.unlimited())
+                        : input -> AI.CPUMove(input, SearchBudget.unlimited(), null, book);
+            case "equity":
+                return book == null ? input -> AI.CPUMove(input, SearchBudget.unlimited(), LeaveTable.standard())
+                        : input -> AI.CPUMove(input, SearchBudget.unlimited(), LeaveTable.standard(), book);
+            case "twoply":
+                return input -> AI.CPUTwoPlyMove(input, LeaveTable.standard(), 8, 16);
+            case "full":
+                // The policy the GUI plays with. Games run on several threads, so each keeps its own endgame solver;
+                // the analyzer keeps a solver per thread itself.
+                ThreadLocal<EndgameSolver> solvers = ThreadLocal.withInitial(() -> new EndgameSolver(trie));
+                PreEndgameAnalyzer analyzer = new PreEndgameAnalyzer(trie);
+                return input -> input.getBagSize() == 0
+                        ? AI.CPUEndgameMove(input, SearchBudget.ofMillis(MOVE_TIME_MILLIS), solvers.get())
+                        : input.getBagSize() <= PreEndgameAnalyzer.MAX_BAG_SIZE
+                        ? AI.CPUPreEndgameMove(input, 8, MOVE_TIME_MILLIS, analyzer)
+                        : book == null ? AI.CPUMove(input, SearchBudget.unlimited(), LeaveTable.standard())
+                        : AI.CPUMove(input, SearchBudget.unlimited(), LeaveTable.standard(), book);
+            default:
+                throw new IllegalArgumentException("unknown engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package server;
+
+import API.AI;
+import API.GameEngine;
+import API.GameState;
+import API.LeaveTable;
+import API.MoveCache;
+import API.SearchBudget;
+import API.Trie;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+/**
+ * An HTTP server hosting many independent games of a human against the CPU, each a {@link GameEngine}.
+ *
+ * Requests are handled on a pool of I/O threads that grows with the number of requests in flight. CPU moves are
+ * never computed on those threads: they are handed to a pool with one thread per processor and awaited, so a
+ * burst of CPU work queues up there instead of starving the threads that accept and answer requests. All games
+ * share one trie, one leave table and one move cache, which are safe to read from many threads at once.
+ *
+ * A game keeps the whole history of its states, so the server holds at most a fixed number of games. Games no
+ * request has touched for a while are dropped when a new game is started, and a new game is refused with 503
+ * while the server is full of games still in use.
+ *
+ * Every response is the state of the game in plain text (see {@link #state}). The routes are:
+ *   POST   /games                start a game
+ *   GET    /games/{id}           read a game
+ *   POST   /games/{id}/move      play the tiles in the body, one "row col letter" per line; the CPU replies
+ *   POST   /games/{id}/exchange  throw back the letters in the body; the CPU replies
+ *   POST   /games/{id}/pass      pass; the CPU replies
+ *   DELETE /games/{id}           end a game
+ *
+ * Usage: GameServer [--port 8080] [--max-games 1000] [--idle-timeout 1800]
+ * where the idle timeout is in seconds. A game ten turns in takes about 8 KB of heap, growing with its history,
+ * so a server for the load levels of {@link LoadClient} needs a cap of at least the largest level and a heap to
+ * match, e.g.
+ *   java server.GameServer --max-games 10000                for LoadClient --sessions 1000,10000
+ *   java -Xmx4g server.GameServer --max-games 100000        for LoadClient --sessions 1000,10000,100000
+ */
+public class GameServer {
+
+    /**
+     * The longest the CPU may spend searching for a move, in milliseconds.
+     */
+    private static final long CPU_MOVE_TIME_BUDGET_MILLIS = 1000;
+
+    /**
+     * The most games held at once, and how long a game may go untouched before it may be dropped.
+     */
+    private static final int MAX_GAMES = 1000;
+    private static final long IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    /**
+     * A game and when a request last touched it.
+     */
+    private static final class Session {
+
+        private final GameEngine game;
+
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Session(GameEngine game)
+        {
+            this.game = game;
+        }
+    }
+
+    private final Trie trie;
+
+    private final HttpServer http;
+
+    private final ExecutorService ioPool = Executors.newCachedThreadPool();
+
+    private final ExecutorService cpuPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    private final MoveCache cpuMoveCache = new MoveCache(1 << 16);
+
+    private final Map<Long, Session> games = new ConcurrentHashMap<>();
+
+    private final int maxGames;
+
+    private final long idleTimeoutNanos;
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Constructs a server listening on port, which is not started yet.
+     * @param trie the trie containing the dictionary of valid words, shared by every game
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(Trie trie, int port) throws IOException
+    {
+        this(trie, port, MAX_GAMES, IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a server listening on port, which is not started yet.
+     * @param trie the trie containing the dictionary of valid words, shared by every game
+     * @param port the port to listen on, or 0 for any free port
+     * @param maxGames the most games to hold at once
+     * @param idleTimeoutMillis how long a game may go untouched before it may be dropped, in milliseconds
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(Trie trie, int port, int maxGames, long idleTimeoutMillis) throws IOException
+    {
+        if (maxGames < 1)
+        {
+            throw new IllegalArgumentException("maxGames must be positive: " + maxGames);
+        }
+        this.trie = trie;
+        this.maxGames = maxGames;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.http = HttpServer.create(new InetSocketAddress(port), 1024);
+        http.createContext("/games", this::handle);
+        http.setExecutor(ioPool);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = 8080, maxGames = MAX_GAMES;
+        long idleTimeoutMillis = IDLE_TIMEOUT_MILLIS;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--max-games": maxGames = Integer.parseInt(args[i + 1]); break;
+                case "--idle-timeout": idleTimeoutMillis = Long.parseLong(args[i + 1]) * 1000; break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        GameServer server = new GameServer(new Trie(), port, maxGames, idleTimeoutMillis);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " for up to " + maxGames + " games");
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start()
+    {
+        LeaveTable.standard();
+        http.start();
+    }
+
+    /**
+     * Stops accepting requests and shuts down both pools.
+     */
+    public void stop()
+    {
+        http.stop(0);
+        ioPool.shutdown();
+        cpuPool.shutdown();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * @return port
+     */
+    public int getPort()
+    {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of games in progress.
+     * @return the number of games
+     */
+    public int getGameCount()
+    {
+        return games.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 2 && method.equals("POST"))
+            {
+                long id = startGame();
+                if (id < 0)
+                {
+                    respond(exchange, 503, "too many games in progress");
+                    return;
+                }
+                respond(exchange, 200, state(id, games.get(id).game.getState()));
+                return;
+            }
+            if (path.length < 3)
+            {
+                respond(exchange, 404, "no such route");
+                return;
+            }
+            long id = Long.parseLong(path[2]);
+            Session session = games.get(id);
+            if (session == null)
+            {
+                respond(exchange, 404, "no such game: " + id);
+                return;
+            }
+            session.lastUsedNanos = System.nanoTime();
+            GameEngine game = session.game;
+            if (path.length == 3 && method.equals("DELETE"))
+            {
+                games.remove(id);
+                respond(exchange, 200, "deleted " + id);
+                return;
+            }
+            if (path.length == 3 && method.equals("GET"))
+            {
+                // Reads take the last published state and never wait for a move in progress.
+                respond(exchange, 200, state(id, game.getState()));
+                return;
+            }
+            // Moves in one game are taken one at a time; different games proceed independently.
+            synchronized (game)
+            {
+                if (path.length == 4 && method.equals("POST"))
+                {
+                    List<String> body = readLines(exchange);
+                    switch (path[3])
+                    {
+                        case "move": game.play(applyPlacements(game.getBoard(), body)); break;
+                        case "exchange": game.exchange(letters(body)); break;
+                        case "pass": game.pass(); break;
+                        default: respond(exchange, 404, "no such action: " + path[3]); return;
+                    }
+                    if (!game.isOver())
+                    {
+                        playCPU(game);
+                    }
+                }
+                else
+                {
+                    respond(exchange, 404, "no such route");
+                    return;
+                }
+                respond(exchange, 200, state(id, game.getState()));
+            }
+        }
+        catch (IllegalArgumentException | IllegalStateException e)
+        {
+            respond(exchange, 400, String.valueOf(e.getMessage()));
+        }
+        catch (Exception e)
+        {
+            respond(exchange, 500, String.valueOf(e));
+        }
+    }
+
+    /**
+     * Starts a game, first dropping the games that have gone idle if the server is full.
+     * @return the id of the game, or -1 if the server is full of games still in use
+     */
+    private long startGame()
+    {
+        synchronized (games)
+        {
+            if (games.size() >= maxGames)
+            {
+                long now = System.nanoTime();
+                games.values().removeIf(session -> now - session.lastUsedNanos > idleTimeoutNanos);
+            }
+            if (games.size() >= maxGames)
+            {
+                return -1;
+            }
+            long id = nextId.incrementAndGet();
+            games.put(id, new Session(new GameEngine(trie)));
+            return id;
+        }
+    }
+
+    /**
+     * Takes the CPU's turn on the CPU pool, waiting for it on the calling I/O thread.
+     */
+    private void playCPU(GameEngine game) throws InterruptedException, ExecutionException
+    {
+        cpuPool.submit(() -> game.play(input -> AI.CPUMove(input, SearchBudget.ofMillis(CPU_MOVE_TIME_BUDGET_MILLIS),
+                LeaveTable.standard(), cpuMoveCache))).get();
+    }
+
+    /**
+     * Returns a copy of board with the tiles of lines placed, one "row col letter" per line.
+     * @throws IllegalArgumentException if a line is malformed or names a square off the board
+     */
+    private static List<List<Character>> applyPlacements(List<List<Character>> board, List<String> lines)
+    {
+        List<List<Character>> after = forEachBoardSquareAsNestedList((r, c) -> board.get(r).get(c));
+        for (String line : lines)
+        {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length != 3 || fields[2].length() != 1)
+            {
+                throw new IllegalArgumentException("expected \"row col letter\": " + line);
+            }
+            int row = Integer.parseInt(fields[0]), col = Integer.parseInt(fields[1]);
+            if (row < 0 || row >= 15 || col < 0 || col >= 15)
+            {
+                throw new IllegalArgumentException("not a square on the board: " + line);
+            }
+            after.get(row).set(col, Character.toUpperCase(fields[2].charAt(0)));
+        }
+        return after;
+    }
+
+    private static List<Character> letters(List<String> lines)
+    {
+        List<Character> letters = new ArrayList<>();
+        lines.forEach(line -> line.chars().filter(Character::isLetter).forEach(ch -> letters.add(Character.toUpperCase((char) ch))));
+        return letters;
+    }
+
+    /**
+     * Returns the state of game as seen by the human player:
+     *   game {id}
+     *   turn PLAYER|OVER
+     *   score {player} {cpu}
+     *   bag {tiles left}
+     *   hand {letters}
+     *   last {what the CPU did}
+     * followed by the 15 rows of the board, with '.' for an empty square.
+     */
+    static String state(long id, GameState game)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("game ").append(id).append('\n');
+        sb.append("turn ").append(game.isOver() ? "OVER" : game.getPlayerToMove() == GameEngine.PLAYER ? "PLAYER" : "CPU").append('\n');
+        sb.append("score ").append(game.getScore(GameEngine.PLAYER)).append(' ').append(game.getScore(GameEngine.CPU)).append('\n');
+        sb.append("bag ").append(game.getBagSize()).append('\n');
+        sb.append("hand ");
+        game.getHand(GameEngine.PLAYER).forEach(sb::append);
+        sb.append('\n');
+        sb.append("last ").append(game.getLastTurn() == null ? "NONE" : game.getLastTurn()).append('\n');
+        for (List<Character> row : game.getBoard())
+        {
+            row.forEach(ch -> sb.append(ch == ' ' ? '.' : ch));
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> readLines(HttpExchange exchange) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.trim().isEmpty())
+                {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+}
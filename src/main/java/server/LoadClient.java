@@ -0,0 +1,228 @@
+package server;
+
+import API.AI;
+import API.Move;
+import API.Trie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A load generator for {@link GameServer}.
+ *
+ * For each of a list of session counts, it opens that many games, then has a set of client threads take turns in
+ * them round robin until a given number of moves have been made, timing each move request: the player's move
+ * and the CPU's reply. The player's moves are found on the client, outside the timed request. Finished games are
+ * replaced by new ones so the session count holds. It reports the median and 99th percentile latency per level,
+ * and closes the games before the next level.
+ *
+ * Usage: LoadClient [--url http://localhost:8080] [--sessions 1000,10000,100000] [--moves M] [--threads T]
+ * The server must be started with --max-games of at least the largest level (see {@link GameServer}); a level it
+ * cannot hold fails when a game is refused with 503.
+ */
+public class LoadClient {
+
+    private final String url;
+
+    private final Trie trie;
+
+    /**
+     * The id and last known state of the game in each session slot.
+     */
+    private long[] ids;
+    private String[] states;
+
+    private LoadClient(String url, Trie trie)
+    {
+        this.url = url;
+        this.trie = trie;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String url = "http://localhost:8080";
+        String sessions = "1000,10000,100000";
+        int moves = 5000, threads = 64;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--url": url = args[i + 1]; break;
+                case "--sessions": sessions = args[i + 1]; break;
+                case "--moves": moves = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        LoadClient client = new LoadClient(url, new Trie());
+        for (String level : sessions.split(","))
+        {
+            client.run(Integer.parseInt(level), moves, threads);
+        }
+    }
+
+    /**
+     * Runs one level of the load: sessions open games and moves timed move requests on threads client threads.
+     */
+    private void run(int sessions, int moves, int threads) throws Exception
+    {
+        ids = new long[sessions];
+        states = new String[sessions];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Callable<Void>> openings = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            int thread = t;
+            openings.add(() -> {
+                for (int s = thread; s < sessions; s += threads)
+                {
+                    open(s);
+                }
+                return null;
+            });
+        }
+        invokeAll(pool, openings);
+
+        long[] latencies = new long[moves];
+        List<Callable<Void>> players = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++)
+        {
+            int thread = t;
+            players.add(() -> {
+                // Thread t makes moves t, t + threads, ... in sessions t, t + threads, ... in turn.
+                int slots = (sessions - thread + threads - 1) / threads;
+                for (int m = thread, turn = 0; m < moves; m += threads, turn++)
+                {
+                    latencies[m] = move(thread + (turn % Math.max(1, slots)) * threads);
+                }
+                return null;
+            });
+        }
+        invokeAll(pool, players);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Callable<Void>> closings = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            int thread = t;
+            closings.add(() -> {
+                for (int s = thread; s < sessions; s += threads)
+                {
+                    request("DELETE", "/games/" + ids[s], "");
+                }
+                return null;
+            });
+        }
+        invokeAll(pool, closings);
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d sessions, %d moves on %d threads: p50 %.1f ms, p99 %.1f ms, %.1f moves/s%n", sessions,
+                moves, threads, latencies[moves / 2] / 1e6, latencies[Math.min(moves - 1, moves * 99 / 100)] / 1e6,
+                moves / seconds);
+    }
+
+    /**
+     * Opens a new game in session slot s.
+     */
+    private void open(int s) throws IOException
+    {
+        String state = request("POST", "/games", "");
+        ids[s] = Long.parseLong(state.substring("game ".length(), state.indexOf('\n')));
+        states[s] = state;
+    }
+
+    /**
+     * Makes the player's best move, or a pass, in session slot s, and returns the time the request took in
+     * nanoseconds. A finished game is replaced first.
+     */
+    private long move(int s) throws IOException
+    {
+        if (states[s].contains("turn OVER"))
+        {
+            request("DELETE", "/games/" + ids[s], "");
+            open(s);
+        }
+        String[] lines = states[s].split("\n");
+        List<Character> hand = new ArrayList<>();
+        for (char ch : lines[4].substring("hand ".length()).toCharArray())
+        {
+            hand.add(ch);
+        }
+        List<List<Character>> board = new ArrayList<>();
+        for (int r = 0; r < 15; r++)
+        {
+            List<Character> row = new ArrayList<>();
+            for (char ch : lines[6 + r].toCharArray())
+            {
+                row.add(ch == '.' ? ' ' : ch);
+            }
+            board.add(row);
+        }
+        List<Move> best = AI.topMoves(board, hand, trie, 1);
+        StringBuilder body = new StringBuilder();
+        String action = "/pass";
+        if (!best.isEmpty())
+        {
+            Move move = best.get(0);
+            action = "/move";
+            for (int i = 0; i < move.getWord().length(); i++)
+            {
+                int r = move.isHorizontal() ? move.getRow() : move.getRow() + i;
+                int c = move.isHorizontal() ? move.getCol() + i : move.getCol();
+                if (board.get(r).get(c) == ' ')
+                {
+                    body.append(r).append(' ').append(c).append(' ').append(move.getWord().charAt(i)).append('\n');
+                }
+            }
+        }
+        long start = System.nanoTime();
+        states[s] = request("POST", "/games/" + ids[s] + action, body.toString());
+        return System.nanoTime() - start;
+    }
+
+    private String request(String method, String path, String body) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+        if (!body.isEmpty())
+        {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0)
+        {
+            response.write(buffer, 0, n);
+        }
+        in.close();
+        if (status >= 400)
+        {
+            throw new IOException(method + " " + path + " failed with " + status + ": " + response);
+        }
+        return response.toString("UTF-8");
+    }
+
+    private static void invokeAll(ExecutorService pool, List<Callable<Void>> tasks) throws Exception
+    {
+        for (Future<Void> future : pool.invokeAll(tasks))
+        {
+            future.get();
+        }
+    }
+}
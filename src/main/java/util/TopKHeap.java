@@ -0,0 +1,228 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded heap that retains the k elements with the highest integer priority offered to it.
+ *
+ * Priorities are kept in a primitive array ordered as a min-heap, so the cost of rejecting an element
+ * that does not make the cut is a single comparison. Among equal priorities, the element offered first wins.
+ *
+ * @param <T> the type of the retained elements
+ */
+public class TopKHeap<T> {
+
+    /**
+     * The heap keys: the priority in the upper 32 bits and the complemented offer sequence number in the lower 32.
+     */
+    private final long[] keys;
+
+    /**
+     * The elements, stored in the same slots as their keys.
+     */
+    private final Object[] elements;
+
+    /**
+     * The number of elements currently retained.
+     */
+    private int size;
+
+    /**
+     * The number of elements offered so far.
+     */
+    private int sequence;
+
+    /**
+     * Constructs an empty heap.
+     * @param capacity the number of elements to retain
+     */
+    public TopKHeap(int capacity)
+    {
+        keys = new long[Math.max(capacity, 0)];
+        elements = new Object[keys.length];
+    }
+
+    /**
+     * Returns true if an element with the provided priority offered now would be retained.
+     *
+     * @param priority the priority of the candidate element
+     * @return true if offering the element would change the contents of this heap
+     */
+    public boolean accepts(int priority)
+    {
+        return keys.length > 0 && (size < keys.length || key(priority, sequence) > keys[0]);
+    }
+
+    /**
+     * Offers an element to this heap. Call {@link #accepts(int)} first to avoid building elements that would be dropped.
+     *
+     * @param priority the priority of the element
+     * @param element the element
+     * @return true if the element was retained
+     */
+    public boolean offer(int priority, T element)
+    {
+        boolean accepted = accepts(priority);
+        long key = key(priority, sequence++);
+        if (!accepted)
+        {
+            return false;
+        }
+        if (size < keys.length)
+        {
+            int i = size++;
+            keys[i] = key;
+            elements[i] = element;
+            siftUp(i);
+        }
+        else
+        {
+            keys[0] = key;
+            elements[0] = element;
+            siftDown(0);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of elements retained.
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of elements this heap retains when full.
+     * @return capacity
+     */
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    /**
+     * Returns the lowest priority retained, or Integer.MIN_VALUE if the heap is empty.
+     * @return the priority an element must beat once the heap is full
+     */
+    public int minPriority()
+    {
+        return size == 0 ? Integer.MIN_VALUE : (int) (keys[0] >> 32);
+    }
+
+    /**
+     * Removes every element from this heap.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            elements[i] = null;
+        }
+        size = 0;
+        sequence = 0;
+    }
+
+    /**
+     * Returns the retained elements from highest to lowest priority, leaving the heap unchanged.
+     * @return a new list of the retained elements
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toSortedList()
+    {
+        long[] sortedKeys = new long[size];
+        Object[] sortedElements = new Object[size];
+        System.arraycopy(keys, 0, sortedKeys, 0, size);
+        System.arraycopy(elements, 0, sortedElements, 0, size);
+        // Heapsort the copy in place: repeatedly move the minimum to the back, which leaves it in descending order.
+        for (int end = size - 1; end > 0; end--)
+        {
+            swap(sortedKeys, sortedElements, 0, end);
+            siftDown(sortedKeys, sortedElements, 0, end);
+        }
+        List<T> result = new ArrayList<>(size);
+        for (Object element : sortedElements)
+        {
+            result.add((T) element);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the retained element of highest priority, or null if the heap is empty, without sorting or copying.
+     * @return the best element
+     */
+    @SuppressWarnings("unchecked")
+    public T best()
+    {
+        int best = -1;
+        for (int i = 0; i < size; i++)
+        {
+            if (best < 0 || keys[i] > keys[best])
+            {
+                best = i;
+            }
+        }
+        return best < 0 ? null : (T) elements[best];
+    }
+
+    private static long key(int priority, int sequence)
+    {
+        return ((long) priority << 32) | (~sequence & 0xFFFFFFFFL);
+    }
+
+    private void siftUp(int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= keys[i])
+            {
+                return;
+            }
+            swap(keys, elements, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i)
+    {
+        siftDown(keys, elements, i, size);
+    }
+
+    private static void siftDown(long[] keys, Object[] elements, int i, int size)
+    {
+        while (true)
+        {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest])
+            {
+                smallest = left;
+            }
+            if (right < size && keys[right] < keys[smallest])
+            {
+                smallest = right;
+            }
+            if (smallest == i)
+            {
+                return;
+            }
+            swap(keys, elements, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(long[] keys, Object[] elements, int i, int j)
+    {
+        long k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        Object e = elements[i];
+        elements[i] = elements[j];
+        elements[j] = e;
+    }
+}
@@ -21,6 +21,11 @@ public class TrieNode {
      */
     private boolean isWord;
 
+    /**
+     * A bitmask of the letters labelling the outgoing edges of this node, with bit 0 for 'A' through bit 25 for 'Z'.
+     */
+    private int edgeMask;
+
     /**
      * Constructs a new TrieNode
      *
@@ -41,6 +46,25 @@ public class TrieNode {
         return outgoingEdges;
     }
 
+    /**
+     * Get the bitmask of the letters 'A' to 'Z' that label an outgoing edge of this node.
+     *
+     * @return a bitmask with bit (c - 'A') set for each letter c that extends this node's prefix
+     */
+    public int getEdgeMask() {
+        return edgeMask;
+    }
+
+    /**
+     * Get the child of this node along the edge labelled c.
+     *
+     * @param c the letter to follow
+     * @return the child node for c, or null if no word continues with c from this node
+     */
+    public TrieNode getChild(char c) {
+        return outgoingEdges.get(c);
+    }
+
     /**
      * Returns true if this trienode corresponds to a terminal word, false otherwise.
      * @return isWord
@@ -63,6 +87,10 @@ public class TrieNode {
                         outgoingEdges.get(s.charAt(index)) :
                         new TrieNode(false);
                 outgoingEdges.put(s.charAt(index), child);
+                if (s.charAt(index) >= 'A' && s.charAt(index) <= 'Z')
+                {
+                    edgeMask |= 1 << (s.charAt(index) - 'A');
+                }
                 child.insertWord(s, index + 1);
         }
         else {
@@ -276,5 +276,11 @@ public class AITest {
         assertEquals("FAVES", cpuMove7.getD().getKey());
         assertEquals(expectedForBoard7, cpuMove7.getA());
         assertEquals(34, 1.0 * cpuMove7.getD().getValue(), 0.1);
+
+        // A search that may take as long as it needs plays the same move.
+        SearchBudget budget = SearchBudget.ofMillis(60000);
+        cpuMove7 = CPUMove(input7, budget);
+        assertFalse(budget.wasExhausted());
+        assertEquals(expectedForBoard7, cpuMove7.getA());
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package API;
+
+import javafx.util.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchAnalyzerTest {
+
+    @Test
+    public void testAnalyze() throws Exception {
+        Trie trie = new Trie();
+        List<Pair<List<List<Character>>, List<Character>>> positions = new ArrayList<>();
+        // Boards from the opening to the endgame, so that the workers' scratch space goes from few anchors to many.
+        List<List<List<Character>>> boards = Arrays.asList(Boards.empty(), Boards.loner(), Boards.crossword(),
+                Boards.preEndgame(), Boards.endgame());
+        String[] hands = {"CATERSA", "DOGINUV", "EEIRSTX", "AEIOUBL"};
+        for (int i = 0; i < 20; i++)
+        {
+            List<Character> hand = new ArrayList<>();
+            for (char ch : hands[i / boards.size()].toCharArray())
+            {
+                hand.add(ch);
+            }
+            positions.add(new Pair<>(boards.get(i % boards.size()), hand));
+        }
+
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(trie, null, 4))
+        {
+            // A second batch reuses the workers' scratch space, and must not see anything of the first.
+            for (int n : Arrays.asList(5, 3))
+            {
+                List<List<Move>> results = analyzer.analyze(positions, n);
+                assertEquals(positions.size(), results.size());
+                for (int i = 0; i < positions.size(); i++)
+                {
+                    Pair<List<List<Character>>, List<Character>> position = positions.get(i);
+                    assertEquals(AI.topMoves(position.getKey(), position.getValue(), trie, n), results.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class BoardStateTest {
+
+    @Test
+    public void testPlaySharesUntouchedRows() throws Exception {
+        BoardState empty = BoardState.EMPTY;
+        Move across = new Move(7, 5, true, "LONER", 0b11111 << 5, 12);
+        BoardState first = empty.play(across);
+        assertEquals(across.applyTo(Boards.empty()), first);
+        assertEquals(14, first.sharedRows(empty));
+        assertEquals(' ', empty.charAt(7, 5));
+        assertEquals('L', first.charAt(7, 5));
+
+        // A play down through the L of LONER places tiles in four rows, and shares the L's row.
+        Move down = new Move(4, 5, false, "HELLO", 0b10111 << 4, 8);
+        BoardState second = first.play(down);
+        assertEquals(down.applyTo(first), second);
+        assertEquals(11, second.sharedRows(first));
+        assertSame(first.get(7), second.get(7));
+    }
+
+    @Test
+    public void testWithSharesUnchangedRows() throws Exception {
+        BoardState first = BoardState.EMPTY.play(new Move(7, 5, true, "LONER", 0b11111 << 5, 12));
+        List<List<Character>> after = new Move(6, 6, true, "AH", 0b11 << 6, 9).applyTo(first);
+        BoardState second = first.with(after);
+        assertEquals(after, second);
+        assertEquals(14, second.sharedRows(first));
+        assertSame(first, first.with(forEachBoardSquareAsNestedList((r, c) -> first.get(r).get(c))));
+        assertSame(second, BoardState.of(second));
+    }
+
+    @Test
+    public void testLateGameBoardsShareRows() throws Exception {
+        // QIS down the B column touches the last three rows of a nearly full board, and no others.
+        BoardState before = BoardState.of(Boards.preEndgame());
+        BoardState after = before.with(Boards.endgame());
+        assertEquals(Boards.endgame(), after);
+        assertEquals(12, after.sharedRows(before));
+        assertSame(before.get(11), after.get(11));
+        assertEquals('Q', after.charAt(12, 1));
+
+        BoardState played = before.play(new Move(12, 1, false, "QIS", 0b111 << 12, 0));
+        assertEquals(after, played);
+        assertEquals(12, played.sharedRows(before));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRowsCannotBeChanged() throws Exception {
+        BoardState.EMPTY.get(7).set(7, 'A');
+    }
+}
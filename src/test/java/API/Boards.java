@@ -0,0 +1,129 @@
+package API;
+
+import java.util.List;
+
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+/**
+ * Boards shared by the tests, and the means of writing new ones down.
+ */
+final class Boards {
+
+    private Boards()
+    {
+    }
+
+    /**
+     * Returns an empty board that can be written to.
+     */
+    static List<List<Character>> empty()
+    {
+        return forEachBoardSquareAsNestedList((r, c) -> ' ');
+    }
+
+    /**
+     * Returns a board that can be written to, drawn as 15 rows of 15 squares, '.' standing for an empty square.
+     */
+    static List<List<Character>> of(String... rows)
+    {
+        if (rows.length != 15)
+        {
+            throw new IllegalArgumentException("a board has 15 rows: " + rows.length);
+        }
+        for (String row : rows)
+        {
+            if (row.length() != 15)
+            {
+                throw new IllegalArgumentException("a row has 15 squares: " + row);
+            }
+        }
+        return forEachBoardSquareAsNestedList((r, c) -> rows[r].charAt(c) == '.' ? ' ' : rows[r].charAt(c));
+    }
+
+    /**
+     * Writes word to board from (row, col), and returns board.
+     */
+    static List<List<Character>> place(List<List<Character>> board, String word, int row, int col, boolean horizontal)
+    {
+        for (int i = 0; i < word.length(); i++)
+        {
+            board.get(horizontal ? row : row + i).set(horizontal ? col + i : col, word.charAt(i));
+        }
+        return board;
+    }
+
+    /**
+     * Returns the board after the first move of most tests: LONER across the centre.
+     */
+    static List<List<Character>> loner()
+    {
+        return place(empty(), "LONER", 7, 5, true);
+    }
+
+    /**
+     * Returns a board of three words crossing near the centre, with hooks and parallel plays on every side.
+     */
+    static List<List<Character>> crossword()
+    {
+        List<List<Character>> board = place(empty(), "LONER", 5, 6, true);
+        place(board, "LOVER", 5, 6, false);
+        return place(board, "AVID", 7, 5, true);
+    }
+
+    /**
+     * Returns a board of four plays whose best move for OGCOTET by equity, OCTET down the K column, reaches the
+     * row next to the bottom edge, opening the triple word squares of the last row to the opponent.
+     */
+    static List<List<Character>> openLane()
+    {
+        return of(
+                "...............",
+                "...............",
+                "...............",
+                "...............",
+                "..........V....",
+                ".........AI....",
+                ".........RE....",
+                ".......ALOW....",
+                ".........I.....",
+                ".........D.....",
+                "...............",
+                "...............",
+                "...............",
+                "...............",
+                "...............");
+    }
+
+    /**
+     * Returns a board from a game played out by the greedy CPU, with one tile left in the bag. The player to move
+     * holds FINOQST, and the other player CDEHNOT.
+     */
+    static List<List<Character>> preEndgame()
+    {
+        return of(
+                ".G.....P.......",
+                ".U.....R.....L.",
+                ".NIPA..O.....E.",
+                ".K.U...B...DOXY",
+                ".I.G...I..JO.I.",
+                "BE.HERITAGES.C.",
+                "ER........NE.A.",
+                "A......MOWN....",
+                "U....IVY..I....",
+                "..ZARF...MEL...",
+                "..O......USED..",
+                "..O......R.ERA.",
+                "..I......A..AT.",
+                "..D......L..WE.",
+                "...LEVANTS.....");
+    }
+
+    /**
+     * Returns the board of {@link #preEndgame()} after QIS was played from it, emptying the bag. The player to
+     * move holds CDEHNOT, and the other player FNOTT.
+     */
+    static List<List<Character>> endgame()
+    {
+        return place(preEndgame(), "QIS", 12, 1, false);
+    }
+}
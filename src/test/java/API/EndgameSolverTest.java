@@ -0,0 +1,99 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EndgameSolverTest {
+
+    private Trie trie;
+
+    private List<List<Character>> board;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+        board = Boards.loner();
+    }
+
+    @Test
+    public void testPlayingOutIsSolved() throws Exception {
+        List<Character> hand = Arrays.asList('A', 'T');
+        List<Character> opponent = Arrays.asList('Q', 'V', 'U');
+        EndgameResult result = new EndgameSolver(trie, 16).solve(board, hand, opponent, SearchBudget.unlimited());
+
+        assertTrue(result.isSolved());
+        assertNotNull(result.getBestMove());
+        assertTrue(result.getNodes() > 0);
+        assertTrue(result.getNodesPerSecond() > 0);
+
+        // The solved value is at least that of the best way to go out at once.
+        int bestOut = AI.streamMoves(board, hand, trie).filter(move -> move.getTileCount() == 2)
+                .mapToInt(Move::getScore).max().getAsInt();
+        int opponentTiles = 10 + 4 + 1;
+        assertTrue(result.getValue() >= bestOut + 2 * opponentTiles);
+    }
+
+    @Test
+    public void testScorelessTurnsCarryOverIntoTheSearch() throws Exception {
+        // One solver for every case, so that its table must tell the scoreless turn counts apart.
+        EndgameSolver solver = new EndgameSolver(trie, 16);
+        List<Character> stuck = Arrays.asList('Q');
+        List<Character> hand = Arrays.asList('A', 'T', 'E', 'S');
+        assertEquals(0, AI.streamMoves(board, stuck, trie).count());
+
+        // Holding a Q that cannot be played, a pass lets the opponent go out, unless it is the third in a row.
+        EndgameResult fresh = solver.solve(board, stuck, hand, 0, 0, SearchBudget.unlimited());
+        assertTrue(fresh.getValue() < 0);
+        EndgameResult ending = solver.solve(board, stuck, hand, 2, 0, SearchBudget.unlimited());
+        assertTrue(ending.isSolved());
+        assertEquals(0, ending.getValue());
+
+        // Against a Q, a short play can be followed by another while the opponent passes. Once the opponent's
+        // forced pass ends the game, only going out at once scores the Q.
+        EndgameResult patient = solver.solve(board, hand, stuck, 0, 0, SearchBudget.unlimited());
+        assertNotEquals(hand.size(), patient.getBestMove().getTileCount());
+        EndgameResult hurried = solver.solve(board, hand, stuck, 0, 2, SearchBudget.unlimited());
+        assertTrue(hurried.isSolved());
+        assertEquals(hand.size(), hurried.getBestMove().getTileCount());
+        int bestOut = AI.streamMoves(board, hand, trie).filter(move -> move.getTileCount() == hand.size())
+                .mapToInt(Move::getScore).max().getAsInt();
+        assertEquals(bestOut + 2 * 10, hurried.getValue());
+        assertTrue(hurried.getValue() < patient.getValue());
+    }
+
+    @Test
+    public void testBudgetedSearchReturnsAMove() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        List<Character> opponent = Arrays.asList('D', 'O', 'G', 'I', 'N', 'E', 'S');
+        EndgameResult result = new EndgameSolver(trie, 16).solve(board, hand, opponent, SearchBudget.ofMillis(500));
+
+        assertNotNull(result.getBestMove());
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(result.getElapsedNanos() < 5_000_000_000L);
+    }
+
+    @Test
+    public void testEndgameFromAPlayedGame() throws Exception {
+        List<List<Character>> endgame = Boards.endgame();
+        List<Character> hand = Arrays.asList('F', 'N', 'O', 'T', 'T');
+        List<Character> opponent = Arrays.asList('C', 'D', 'E', 'H', 'N', 'O', 'T');
+        EndgameSolver solver = new EndgameSolver(trie);
+        EndgameResult result = solver.solve(endgame, hand, opponent, SearchBudget.unlimited());
+        assertTrue(result.isSolved());
+        Move best = result.getBestMove();
+        assertTrue(best.getTileCount() < hand.size());
+
+        // The value of the position is the best move's score less the value of the position it leaves.
+        List<Character> left = new ArrayList<>(hand);
+        best.getTilesPlaced().forEach(left::remove);
+        EndgameResult reply = solver.solve(best.applyTo(endgame), opponent, left, SearchBudget.unlimited());
+        assertTrue(reply.isSolved());
+        assertEquals(best.getScore() - reply.getValue(), result.getValue());
+    }
+}
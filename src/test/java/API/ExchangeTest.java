@@ -0,0 +1,118 @@
+package API;
+
+import org.junit.Test;
+import javafx.util.Pair;
+import util.Quadruple;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class ExchangeTest {
+
+    @Test
+    public void testBestExchangeKeepsTheBestLeave() throws Exception {
+        LeaveTable leaves = LeaveTable.standard();
+        List<Character> hand = Arrays.asList('Q', 'V', 'S', 'E', 'U', 'U', 'R');
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (int keep = 0; keep < (1 << hand.size()) - 1; keep++)
+        {
+            List<Character> kept = new ArrayList<>();
+            for (int i = 0; i < hand.size(); i++)
+            {
+                if ((keep & (1 << i)) != 0)
+                {
+                    kept.add(hand.get(i));
+                }
+            }
+            best = Math.max(best, leaves.valueOf(kept));
+        }
+
+        Exchange exchange = Exchange.best(hand, leaves);
+        assertEquals(best, exchange.getLeaveValue() / (double) LeaveTable.SCALE, 1e-9);
+        assertEquals(best, leaves.valueOf(exchange.getKept()), 1e-9);
+        assertFalse(exchange.getThrown().isEmpty());
+        assertEquals(hand.size(), exchange.getKept().size() + exchange.getThrown().size());
+        assertTrue(exchange.getKept().contains('S'));
+        assertFalse(exchange.getKept().contains('Q'));
+
+        assertNull(Exchange.best(new ArrayList<>(), leaves));
+    }
+
+    /**
+     * Returns the value of the best leave that throws back at least one tile of hand, found by trying them all.
+     */
+    private static double bestLeave(List<Character> hand, LeaveTable leaves)
+    {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int keep = 0; keep < (1 << hand.size()) - 1; keep++)
+        {
+            List<Character> kept = new ArrayList<>();
+            for (int i = 0; i < hand.size(); i++)
+            {
+                if ((keep & (1 << i)) != 0)
+                {
+                    kept.add(hand.get(i));
+                }
+            }
+            best = Math.max(best, leaves.valueOf(kept));
+        }
+        return best;
+    }
+
+    @Test
+    public void testKeepingTheLastTileIsConsidered() throws Exception {
+        LeaveTable leaves = LeaveTable.standard();
+        List<Character> hand = Arrays.asList('Q', 'V', 'V', 'W', 'W', 'U', 'S');
+        Exchange exchange = Exchange.best(hand, leaves);
+        assertEquals(Arrays.asList('S'), exchange.getKept());
+        assertEquals(bestLeave(hand, leaves), exchange.getLeaveValue() / (double) LeaveTable.SCALE, 1e-9);
+    }
+
+    @Test
+    public void testSomethingIsAlwaysThrownBack() throws Exception {
+        LeaveTable leaves = LeaveTable.standard();
+        for (List<Character> hand : Arrays.asList(Arrays.asList('E', 'R', 'S'), Arrays.asList('S', 'E'),
+                Arrays.asList('A', 'E', 'R', 'S'), Arrays.asList('S')))
+        {
+            // The whole hand is worth more than any part of it, and the empty leave is worth less.
+            assertTrue(leaves.valueOf(hand) > bestLeave(hand, leaves));
+            assertTrue(leaves.valueOf(new ArrayList<>()) < leaves.valueOf(hand));
+            Exchange exchange = Exchange.best(hand, leaves);
+            assertFalse(exchange.getThrown().isEmpty());
+            assertEquals(bestLeave(hand, leaves), exchange.getLeaveValue() / (double) LeaveTable.SCALE, 1e-9);
+        }
+    }
+
+    @Test
+    public void testCPUExchangesWhenItCannotPlay() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = forEachBoardSquareAsNestedList((r, c) -> ' ');
+        board.get(7).set(7, 'Q');
+        List<Character> hand = Arrays.asList('V', 'V', 'W', 'W', 'S', 'E', 'X');
+        Queue<Character> bag = new ArrayDeque<>(Arrays.asList('A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J'));
+        assertTrue(AI.topMoves(board, hand, trie, 1).isEmpty());
+
+        Quadruple<List<List<Character>>, List<Character>, Queue<Character>, Pair<String, Integer>> result =
+                AI.CPUMove(new Quadruple<>(board, hand, bag, trie), SearchBudget.unlimited(), LeaveTable.standard());
+        assertEquals("", result.getD().getKey());
+        assertEquals(7, result.getB().size());
+        assertEquals(bag.size(), result.getC().size());
+        List<Character> before = new ArrayList<>(hand);
+        before.addAll(bag);
+        List<Character> after = new ArrayList<>(result.getB());
+        after.addAll(result.getC());
+        before.sort(null);
+        after.sort(null);
+        assertEquals(before, after);
+        assertTrue(result.getB().contains('S'));
+        // The input bag is left alone.
+        assertEquals(10, bag.size());
+    }
+}
@@ -0,0 +1,208 @@
+package API;
+
+import javafx.util.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class GameEngineTest {
+
+    private Trie trie;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+    }
+
+    /**
+     * Returns the number of tiles on the board, in both hands and in the bag.
+     */
+    private static int tilesInPlay(GameEngine engine)
+    {
+        int tiles = engine.getBagSize() + engine.getHand(GameEngine.PLAYER).size() + engine.getHand(GameEngine.CPU).size();
+        for (List<Character> row : engine.getBoard())
+        {
+            for (Character ch : row)
+            {
+                if (ch != ' ')
+                {
+                    tiles++;
+                }
+            }
+        }
+        return tiles;
+    }
+
+    @Test
+    public void testSelfPlayToTheEnd() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(11));
+        int total = tilesInPlay(engine);
+        assertEquals(Tile.getTileDistribution().size(), total);
+        int turns = 0;
+        while (!engine.isOver())
+        {
+            int player = engine.getPlayerToMove();
+            List<Move> moves = AI.topMoves(engine.getBoard(), engine.getHand(player), trie, 1);
+            int before = engine.getScore(player);
+            if (moves.isEmpty())
+            {
+                engine.pass();
+                assertEquals(GameEngine.Turn.PASS, engine.getLastTurn());
+            }
+            else
+            {
+                assertEquals(moves.get(0).getScore(), engine.play(moves.get(0)));
+                assertTrue(engine.getScore(player) >= before + moves.get(0).getScore());
+            }
+            assertEquals(total, tilesInPlay(engine));
+            assertTrue(++turns < 200);
+        }
+        boolean wentOut = engine.getHand(GameEngine.PLAYER).isEmpty() || engine.getHand(GameEngine.CPU).isEmpty();
+        assertTrue(wentOut || engine.getScorelessTurns(engine.getPlayerToMove()) == GameEngine.MAX_SCORELESS_TURNS);
+        try
+        {
+            engine.pass();
+            fail("a finished game takes no more turns");
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+    }
+
+    @Test
+    public void testStatesFormHistory() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(6));
+        GameState start = engine.getState();
+        List<BoardState> boards = new ArrayList<>();
+        for (int turn = 0; turn < 6 && !engine.isOver(); turn++)
+        {
+            boards.add(engine.getBoard());
+            List<Move> moves = AI.topMoves(engine.getBoard(), engine.getHand(engine.getPlayerToMove()), trie, 1);
+            if (moves.isEmpty())
+            {
+                engine.pass();
+            }
+            else
+            {
+                engine.play(moves.get(0));
+            }
+        }
+        GameState state = engine.getState();
+        List<GameState> history = state.getHistory();
+        assertEquals(boards.size() + 1, history.size());
+        assertSame(start, history.get(0));
+        assertEquals(0, start.getTurnNumber());
+        assertNull(start.getLastTurn());
+        for (int i = 0; i < boards.size(); i++)
+        {
+            // Earlier states still hold the boards they were taken with.
+            assertSame(boards.get(i), history.get(i).getBoard());
+            assertTrue(history.get(i + 1).getBoard().sharedRows(history.get(i).getBoard()) >= 15 - 7);
+        }
+        assertEquals(engine.getScore(GameEngine.PLAYER), state.getScore(GameEngine.PLAYER));
+        assertEquals(engine.getHand(GameEngine.CPU), state.getHand(GameEngine.CPU));
+        assertEquals(engine.getBagSize(), state.getBagSize());
+        assertEquals(engine.getPlayerToMove(), state.getPlayerToMove());
+    }
+
+    @Test
+    public void testSeededGamesRepeat() throws Exception {
+        GameEngine first = new GameEngine(trie, new SplittableRandom(5));
+        GameEngine second = new GameEngine(trie, new SplittableRandom(5));
+        assertEquals(first.getHand(GameEngine.PLAYER), second.getHand(GameEngine.PLAYER));
+        assertEquals(first.getHand(GameEngine.CPU), second.getHand(GameEngine.CPU));
+    }
+
+    @Test
+    public void testExchangeAndPass() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(3));
+        List<Character> hand = new ArrayList<>(engine.getHand(GameEngine.PLAYER));
+        engine.exchange(hand.subList(0, 3));
+        assertEquals(GameEngine.Turn.EXCHANGE, engine.getLastTurn());
+        assertEquals(7, engine.getHand(GameEngine.PLAYER).size());
+        assertEquals(Tile.getTileDistribution().size() - 14, engine.getBagSize());
+        assertEquals(1, engine.getScorelessTurns(GameEngine.PLAYER));
+        assertEquals(GameEngine.CPU, engine.getPlayerToMove());
+
+        try
+        {
+            engine.exchange(Arrays.asList('?'));
+            fail("tiles not in the rack cannot be exchanged");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+
+        // Three scoreless turns in a row by one player end the game.
+        for (int i = 0; i < 4; i++)
+        {
+            engine.pass();
+        }
+        assertTrue(engine.isOver());
+        assertEquals(GameEngine.MAX_SCORELESS_TURNS, engine.getScorelessTurns(GameEngine.PLAYER));
+        assertEquals(0, engine.getScore(GameEngine.PLAYER) + engine.getScore(GameEngine.CPU));
+    }
+
+    @Test
+    public void testStrategyTurn() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(8));
+        List<Character> hand = new ArrayList<>(engine.getHand(GameEngine.PLAYER));
+        Pair<String, Integer> played = engine.play(input -> AI.CPUMove(input, SearchBudget.unlimited()));
+        if (played.getValue() > 0)
+        {
+            assertEquals(GameEngine.Turn.PLAY, engine.getLastTurn());
+            assertEquals((int) played.getValue(), engine.getScore(GameEngine.PLAYER));
+        }
+        else
+        {
+            assertNotEquals(hand, engine.getHand(GameEngine.PLAYER));
+            assertEquals(GameEngine.Turn.EXCHANGE, engine.getLastTurn());
+        }
+        assertEquals(Tile.getTileDistribution().size(), tilesInPlay(engine));
+    }
+
+    @Test
+    public void testExchangeDrawingBackTheSameLettersIsAnExchange() throws Exception {
+        // With this seed, the two tiles drawn for the first two tiles of the rack are the same two letters.
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(146));
+        List<Character> hand = new ArrayList<>(engine.getHand(GameEngine.PLAYER));
+        List<Character> thrown = new ArrayList<>(hand.subList(0, 2));
+        Pair<String, Integer> played = engine.play(input -> Decision.exchange(input.getHand().subList(0, 2)));
+        assertEquals(new Pair<>("", 0), played);
+        assertEquals(GameEngine.Turn.EXCHANGE, engine.getLastTurn());
+        assertEquals(thrown, engine.getState().getExchanged());
+        List<Character> after = new ArrayList<>(engine.getHand(GameEngine.PLAYER));
+        Collections.sort(hand);
+        Collections.sort(after);
+        assertEquals(hand, after);
+        assertEquals(GameEngine.CPU, engine.getPlayerToMove());
+    }
+
+    @Test
+    public void testStrategiesSeeOnlyTheUnseenTiles() throws Exception {
+        // With this seed the game has an exchange, which puts tiles back out of view.
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(68));
+        boolean exchanged = false;
+        int turns = 0;
+        while (!engine.isOver())
+        {
+            engine.play(input -> {
+                List<Character> hand = engine.getHand(engine.getPlayerToMove());
+                assertEquals(hand, input.getHand());
+                assertEquals(engine.getBagSize(), input.getBagSize());
+                assertEquals(Tile.getUnseenTiles(engine.getBoard(), hand), input.getUnseen().toList());
+                return AI.CPUMove(input, SearchBudget.unlimited(), LeaveTable.standard());
+            });
+            exchanged |= engine.getLastTurn() == GameEngine.Turn.EXCHANGE;
+            assertTrue(++turns < 200);
+        }
+        assertTrue(exchanged);
+    }
+}
@@ -0,0 +1,125 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class GcgRecordTest {
+
+    private Trie trie;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+    }
+
+    /**
+     * Plays a game to the end, with an exchange on the first turn, and returns its last state.
+     */
+    private GameState playGame(long seed)
+    {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(seed));
+        engine.exchange(new ArrayList<>(engine.getHand(GameEngine.PLAYER).subList(0, 3)));
+        while (!engine.isOver())
+        {
+            List<Move> moves = AI.topMoves(engine.getBoard(), engine.getHand(engine.getPlayerToMove()), trie, 1);
+            if (moves.isEmpty())
+            {
+                engine.pass();
+            }
+            else
+            {
+                engine.play(moves.get(0));
+            }
+        }
+        return engine.getState();
+    }
+
+    @Test
+    public void testParseTurns() throws Exception {
+        String[] lines = {
+                ">Joel: AEINRST 8D NASTIER +64 64",
+                ">Joel: AEINRST H4 ..ST +12 76",
+                ">Joel: AEINRST - +0 64",
+                ">Joel: AEINRST -AEI +0 64",
+                ">Joel: AEINRST -- -64 0",
+                ">Joel: AEINRST (challenge) +5 69",
+                ">Joel: AEINRST (time) -10 59",
+                ">Joel: (AEI) +6 75",
+                ">Joel: AEI (AEI) -3 72"};
+        for (String line : lines)
+        {
+            assertEquals(line, GcgTurn.parse(line).toString());
+        }
+        GcgTurn play = GcgTurn.parse(">Joel: H4 NA(S)T +12 76");
+        assertEquals(GcgTurn.Kind.PLAY, play.getKind());
+        assertEquals(3, play.getRow());
+        assertEquals(7, play.getCol());
+        assertFalse(play.isHorizontal());
+        assertEquals("NA.T", play.getTiles());
+        assertEquals("", play.getRack());
+        try
+        {
+            GcgTurn.parse(">Joel: AEINRST 8P NASTIER +64 64");
+            fail("a play off the board is not a turn");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    @Test
+    public void testRoundTripVerifies() throws Exception {
+        List<GameState> games = Arrays.asList(playGame(3), playGame(8));
+        StringWriter out = new StringWriter();
+        try (GcgWriter writer = new GcgWriter(out))
+        {
+            for (GameState game : games)
+            {
+                writer.write(GcgRecord.of(game, "Player", "CPU"));
+            }
+        }
+        try (GcgReader reader = new GcgReader(new StringReader(out.toString()), "test"))
+        {
+            for (GameState game : games)
+            {
+                GcgRecord record = reader.next();
+                assertEquals("CPU", record.getNick(GameEngine.CPU));
+                assertEquals(Arrays.asList(), record.verify(trie));
+                assertEquals(GcgTurn.Kind.EXCHANGE, record.getTurns().get(0).getKind());
+                List<BoardState> boards = record.replay();
+                assertEquals(game.getBoard(), boards.get(boards.size() - 1));
+                GcgTurn last = record.getTurns().get(record.getTurns().size() - 1);
+                assertEquals(game.getScore(Arrays.asList("Player", "CPU").indexOf(last.getNick())), last.getTotal());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testWrongScoresAreReported() throws Exception {
+        String gcg = "#player1 a A\n#player2 b B\n"
+                + ">a: AEINRST 8D NASTIER +64 64\n"
+                + ">b: AEINRST 9D ANESTRI +60 60\n"
+                + ">a: AEIOURS -AEI +0 60\n"
+                + "this line is not read\n"
+                + ">b: ABC QQ FOO +1 1\n";
+        GcgRecord record = new GcgReader(new StringReader(gcg), "test").next();
+        assertEquals(3, record.getTurns().size());
+        assertEquals(1, record.getMalformed().size());
+        List<String> problems = record.verify(trie);
+        assertEquals(4, problems.size());
+        assertTrue(problems.get(0).startsWith("line 7"));
+        assertTrue(problems.get(1).startsWith("turn 1: scores"));
+        assertTrue(problems.get(2).startsWith("turn 2: not a legal play"));
+        assertTrue(problems.get(3).startsWith("turn 3: total should be 64"));
+    }
+}
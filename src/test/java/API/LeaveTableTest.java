@@ -0,0 +1,113 @@
+package API;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaveTableTest {
+
+    @Test
+    public void testIndexIsAPerfectHash() throws Exception {
+        BitSet seen = new BitSet(LeaveTable.SIZE);
+        int leaves = enumerate(new int[26], 0, 0, seen);
+        assertEquals(LeaveTable.SIZE, leaves);
+        assertEquals(LeaveTable.SIZE, seen.cardinality());
+
+        int[] seven = new int[26];
+        seven['E' - 'A'] = 7;
+        assertEquals(-1, LeaveTable.index(seven));
+    }
+
+    private int enumerate(int[] counts, int from, int tiles, BitSet seen)
+    {
+        int index = LeaveTable.index(counts);
+        assertTrue(index >= 0 && index < LeaveTable.SIZE);
+        assertFalse(seen.get(index));
+        seen.set(index);
+        int leaves = 1;
+        for (int l = from; l < 26 && tiles < LeaveTable.MAX_LEAVE; l++)
+        {
+            counts[l]++;
+            leaves += enumerate(counts, l, tiles + 1, seen);
+            counts[l]--;
+        }
+        return leaves;
+    }
+
+    @Test
+    public void testStandardValues() throws Exception {
+        LeaveTable table = LeaveTable.standard();
+        assertTrue(table.valueOf(Arrays.asList('S')) > table.valueOf(Arrays.asList('Q')));
+        assertTrue(table.valueOf(Arrays.asList('E', 'R', 'S')) > table.valueOf(Arrays.asList('I', 'I', 'U')));
+        assertEquals(table.valueOf(Arrays.asList('R', 'E', 'S')), table.valueOf(Arrays.asList('S', 'E', 'R')), 0);
+    }
+
+    @Test
+    public void testLoadingLeaveFiles() throws Exception {
+        LeaveTable text = LeaveTable.fromText(new StringReader("# leave,value\nS,8.1\nERS 12.5\n?S,25\n\n"));
+        assertEquals(8.1, text.valueOf(Arrays.asList('S')), 1e-9);
+        assertEquals(12.5, text.valueOf(Arrays.asList('S', 'R', 'E')), 1e-9);
+        assertEquals(0, text.valueOf(Arrays.asList('Q')), 0);
+
+        Path file = Files.createTempFile("leaves", ".bin");
+        try
+        {
+            text.write(file);
+            LeaveTable mapped = LeaveTable.load(file);
+            assertEquals(12.5, mapped.valueOf(Arrays.asList('E', 'R', 'S')), 1e-9);
+            assertNotEquals(text.getVersion(), mapped.getVersion());
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEquitySearch() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.loner();
+        List<Character> hand = Arrays.asList('S', 'Q', 'U', 'I', 'R', 'T', 'E');
+        LeaveTable table = LeaveTable.standard();
+
+        int bestEquity = Integer.MIN_VALUE;
+        for (Move move : AI.streamMoves(board, hand, trie).toArray(Move[]::new))
+        {
+            List<Character> leave = new ArrayList<>(hand);
+            move.getTilesPlaced().forEach(leave::remove);
+            bestEquity = Math.max(bestEquity,
+                    move.getScore() * LeaveTable.SCALE + (int) Math.round(table.valueOf(leave) * LeaveTable.SCALE));
+        }
+
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        Move best = generator.search(hand, 1, SearchBudget.unlimited(), table).getBestMove();
+        List<Character> leave = new ArrayList<>(hand);
+        best.getTilesPlaced().forEach(leave::remove);
+        assertEquals(bestEquity, best.getScore() * LeaveTable.SCALE + (int) Math.round(table.valueOf(leave) * LeaveTable.SCALE));
+    }
+
+    @Test
+    public void testEquityGivesUpPointsForTheLeave() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.crossword();
+        List<Character> hand = Arrays.asList('A', 'E', 'I', 'O', 'U', 'B', 'L');
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+
+        // OBELIA scores more, but ABOULIA keeps the better leave.
+        Move byScore = generator.search(hand, 1, SearchBudget.unlimited()).getBestMove();
+        Move byEquity = generator.search(hand, 1, SearchBudget.unlimited(), LeaveTable.standard()).getBestMove();
+        assertEquals("OBELIA", byScore.getWord());
+        assertEquals("ABOULIA", byEquity.getWord());
+        assertTrue(byEquity.getScore() < byScore.getScore());
+    }
+}
@@ -0,0 +1,82 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MoveCacheTest {
+
+    private Trie trie;
+
+    private List<List<Character>> board;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+        board = Boards.loner();
+    }
+
+    @Test
+    public void testRepeatedPositionsAreAnsweredFromCache() throws Exception {
+        MoveCache cache = new MoveCache(2);
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        Move best = AI.topMoves(board, hand, trie, 1).get(0);
+
+        assertEquals(best, cache.bestMove(board, hand, trie, SearchBudget.unlimited()));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // The order of the rack does not matter.
+        List<Character> shuffled = Arrays.asList('S', 'A', 'R', 'E', 'T', 'A', 'C');
+        assertEquals(best, cache.bestMove(board, shuffled, trie, SearchBudget.unlimited()));
+        assertEquals(1, cache.getHits());
+        assertEquals(MoveCache.rackKey(hand), MoveCache.rackKey(shuffled));
+
+        // A different board misses.
+        List<List<Character>> after = best.applyTo(board);
+        assertNotEquals(MoveCache.boardHash(board), MoveCache.boardHash(after));
+        cache.bestMove(after, hand, trie, SearchBudget.unlimited());
+        assertEquals(2, cache.getMisses());
+
+        // A changed lexicon misses.
+        trie.addWord("ZZZZ");
+        assertEquals(best.getScore(), cache.bestMove(board, hand, trie, SearchBudget.unlimited()).getScore());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCutShortSearchesAreNotCached() throws Exception {
+        MoveCache cache = new MoveCache(8);
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        cache.bestMove(board, hand, trie, SearchBudget.ofNodes(10));
+        assertEquals(0, cache.size());
+
+        // Having no move is remembered too.
+        assertNull(cache.bestMove(board, Arrays.asList(), trie, SearchBudget.unlimited()));
+        assertNull(cache.bestMove(board, Arrays.asList(), trie, SearchBudget.unlimited()));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLeaveTableIsPartOfTheKey() throws Exception {
+        // On the crossword board AEIOUBL scores most with OBELIA, but keeps a better leave with ABOULIA.
+        List<List<Character>> crossword = Boards.crossword();
+        List<Character> hand = Arrays.asList('A', 'E', 'I', 'O', 'U', 'B', 'L');
+        MoveCache cache = new MoveCache(8);
+        Move byScore = cache.bestMove(crossword, hand, trie, SearchBudget.unlimited());
+        Move byEquity = cache.bestMove(crossword, hand, trie, SearchBudget.unlimited(), LeaveTable.standard());
+        assertEquals(2, cache.getMisses());
+        assertEquals("OBELIA", byScore.getWord());
+        assertEquals("ABOULIA", byEquity.getWord());
+
+        assertEquals(byScore, cache.bestMove(crossword, hand, trie, SearchBudget.unlimited()));
+        assertEquals(byEquity, cache.bestMove(crossword, hand, trie, SearchBudget.unlimited(), LeaveTable.standard()));
+        assertEquals(2, cache.getHits());
+    }
+}
@@ -0,0 +1,228 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Quadruple;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MoveGeneratorTest {
+
+    private Trie trie;
+
+    private List<List<Character>> board;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+        board = Boards.crossword();
+    }
+
+    @Test
+    public void testGeneratedMovesAreValidAndScoredCorrectly() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        List<Move> moves = new ArrayList<>();
+        AI.generateMoves(board, hand, trie, (r, c, horizontal, line, start, end, placedMask, score) ->
+                moves.add(MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score)));
+
+        assertTrue(moves.size() > 500);
+        moves.stream().limit(300).forEach(move -> {
+            List<List<Character>> after = move.applyTo(board);
+            assertTrue(move.toString(), Board.validMove(board, after, trie));
+            assertEquals(move.toString(), Board.scoreMove(board, after), move.getScore());
+        });
+    }
+
+    @Test
+    public void testTopMoves() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        List<Integer> allScores = new ArrayList<>();
+        AI.generateMoves(board, hand, trie, (r, c, horizontal, line, start, end, placedMask, score) -> allScores.add(score));
+        allScores.sort((x, y) -> y - x);
+
+        List<Move> top = AI.topMoves(board, hand, trie, 25);
+        assertEquals(25, top.size());
+        for (int i = 0; i < top.size(); i++)
+        {
+            assertEquals((int) allScores.get(i), top.get(i).getScore());
+        }
+
+        // The best move is the one the CPU plays.
+        Move best = top.get(0);
+        assertEquals(best.applyTo(board),
+                AI.CPUMove(new Quadruple<>(board, hand, new ArrayDeque<>(), trie)).getA());
+        assertEquals(best.getTilesPlaced().size(), best.getTileCount());
+
+        assertTrue(AI.topMoves(board, hand, trie, 0).isEmpty());
+        assertTrue(AI.topMoves(board, new ArrayList<>(), trie, 5).isEmpty());
+    }
+
+    @Test
+    public void testStreamMoves() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        List<Move> generated = new ArrayList<>();
+        AI.generateMoves(board, hand, trie, (r, c, horizontal, line, start, end, placedMask, score) ->
+                generated.add(MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score)));
+
+        // The lazy stream yields the same moves in the same order.
+        assertEquals(generated, AI.streamMoves(board, hand, trie).collect(Collectors.toList()));
+
+        // Splitting by anchor yields the same moves.
+        List<Move> parallel = AI.streamMoves(board, hand, trie).parallel().collect(Collectors.toList());
+        assertEquals(generated.size(), parallel.size());
+        assertEquals(new HashSet<>(generated), new HashSet<>(parallel));
+
+        // A paused search resumes where it left off, and splitting part way does not disturb either half.
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        Spliterator<Move> spliterator = generator.spliterator(hand);
+        List<Move> pulled = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(spliterator.tryAdvance(pulled::add));
+        }
+        Spliterator<Move> suffix = spliterator.trySplit();
+        assertNotNull(suffix);
+        spliterator.forEachRemaining(pulled::add);
+        suffix.forEachRemaining(pulled::add);
+        assertEquals(generated, pulled);
+
+        // Short-circuiting questions.
+        assertTrue(AI.streamMoves(board, hand, trie).anyMatch(move -> move.getTileCount() == 7));
+        assertTrue(AI.streamMoves(board, hand, trie).anyMatch(move -> move.getScore() > 30));
+        assertFalse(AI.streamMoves(board, new ArrayList<>(), trie).findAny().isPresent());
+    }
+
+    @Test
+    public void testEachPlacementIsGeneratedOnce() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        List<Move> moves = new ArrayList<>();
+        generator.generate(hand, (r, c, horizontal, line, start, end, placedMask, score) ->
+                moves.add(MoveGenerator.toMove(r, c, horizontal, line, start, end, placedMask, score)));
+
+        Set<List<List<Character>>> placements = moves.stream().map(move -> move.applyTo(board)).collect(Collectors.toSet());
+        assertEquals(moves.size(), placements.size());
+        assertEquals(moves.size(), generator.getMovesGenerated());
+        // One-tile plays forming a word both ways were found down as well as across, and dropped there.
+        assertTrue(generator.getDuplicatesSkipped() > 0);
+        assertTrue(generator.getNodesVisited() > generator.getMovesGenerated());
+
+        generator.resetStatistics();
+        assertEquals(0, generator.getMovesGenerated());
+        assertEquals(placements.size(), generator.stream(hand).count());
+    }
+
+    @Test
+    public void testBudgetedSearch() throws Exception {
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        List<Move> exact = generator.topMoves(hand, 5);
+
+        SearchResult unlimited = generator.search(hand, 5, SearchBudget.unlimited());
+        assertTrue(unlimited.isCompleted());
+        assertEquals(exact, unlimited.getMoves());
+
+        // A generous budget searches the anchors in a different order, but still finds the same best scores.
+        SearchResult generous = generator.search(hand, 5, SearchBudget.of(60000, unlimited.getNodesVisited() + 1));
+        assertTrue(generous.isCompleted());
+        assertEquals(exact.get(0).getScore(), generous.getBestMove().getScore());
+
+        // A tight node budget stops the search early with the best move found so far.
+        SearchBudget tight = SearchBudget.ofNodes(unlimited.getNodesVisited() / 4);
+        SearchResult partial = generator.search(hand, 5, tight);
+        assertFalse(partial.isCompleted());
+        assertTrue(tight.wasExhausted());
+        assertTrue(partial.getNodesVisited() <= unlimited.getNodesVisited() / 4);
+        assertFalse(partial.getMoves().isEmpty());
+        assertTrue(partial.getBestMove().getScore() <= exact.get(0).getScore());
+
+        // The generator is left in a usable state after a search is cut short.
+        assertEquals(exact, generator.topMoves(hand, 5));
+    }
+
+    @Test
+    public void testPlayMatchesRebuiltTables() throws Exception {
+        MoveGenerator root = new MoveGenerator(trie);
+        root.setBoard(board);
+        MoveGenerator played = new MoveGenerator(trie), rebuilt = new MoveGenerator(trie);
+        for (Move move : root.topMoves(Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A'), 40))
+        {
+            played.copyBoard(root);
+            played.play(move);
+            rebuilt.setBoard(move.applyTo(board));
+            for (int o = MoveGenerator.ACROSS; o <= MoveGenerator.DOWN; o++)
+            {
+                assertTrue(move.toString(), Arrays.deepEquals(rebuilt.lines[o], played.lines[o]));
+                assertTrue(move.toString(), Arrays.deepEquals(rebuilt.crossChecks[o], played.crossChecks[o]));
+                assertTrue(move.toString(), Arrays.deepEquals(rebuilt.crossScores[o], played.crossScores[o]));
+            }
+            assertTrue(move.toString(), Arrays.deepEquals(rebuilt.anchors, played.anchors));
+        }
+    }
+
+    @Test
+    public void testUpdateMatchesSetBoard() throws Exception {
+        MoveGenerator root = new MoveGenerator(trie);
+        root.setBoard(board);
+        MoveGenerator updated = new MoveGenerator(trie), rebuilt = new MoveGenerator(trie);
+        for (Move move : root.topMoves(Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A'), 40))
+        {
+            List<List<Character>> after = move.applyTo(board);
+            updated.copyBoard(root);
+            updated.update(after);
+            rebuilt.setBoard(after);
+            assertEquals(move.toString(), 0, updated.dirtyLines(rebuilt));
+            assertTrue(move.toString(), Arrays.deepEquals(rebuilt.anchors, updated.anchors));
+            // Only lines the move touched or borders can have changed.
+            long dirty = updated.dirtyLines(root);
+            assertNotEquals(move.toString(), 0, dirty & MoveGenerator.lineBit(move));
+            assertTrue(move.toString(), Long.bitCount(dirty) < 30);
+        }
+    }
+
+    @Test
+    public void testProgressAndCancel() throws Exception {
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        Move best = generator.search(hand, 1, SearchBudget.unlimited()).getBestMove();
+
+        List<Integer> searched = new ArrayList<>();
+        int[] anchors = new int[1];
+        Move[] lastBest = new Move[1];
+        generator.search(hand, 1, SearchBudget.unlimited().withProgress((anchorsSearched, anchorCount, bestSoFar) -> {
+            searched.add(anchorsSearched);
+            anchors[0] = anchorCount;
+            lastBest[0] = bestSoFar;
+        }));
+        assertEquals(anchors[0], searched.size());
+        assertEquals(anchors[0], (int) searched.get(searched.size() - 1));
+        assertEquals(best, lastBest[0]);
+
+        // A cancelled budget stops the search at once, however much time it had left.
+        searched.clear();
+        SearchBudget budget = SearchBudget.ofMillis(60000);
+        budget.withProgress((anchorsSearched, anchorCount, bestSoFar) -> {
+            searched.add(anchorsSearched);
+            if (anchorsSearched == 2)
+            {
+                budget.cancel();
+            }
+        });
+        assertFalse(generator.search(hand, 1, budget).isCompleted());
+        assertTrue(budget.isCancelled());
+        assertEquals(Arrays.asList(1, 2), searched);
+    }
+}
@@ -0,0 +1,84 @@
+package API;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class OpeningBookTest {
+
+    @Test
+    public void testIndexIsAPerfectHash() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++)
+        {
+            int slot = random.nextInt(OpeningBook.SIZE);
+            int[] counts = new int[26];
+            char[] rack = OpeningBook.rack(slot);
+            for (char tile : rack)
+            {
+                counts[tile - 'A']++;
+            }
+            assertEquals(slot, OpeningBook.index(counts));
+        }
+        int[] counts = new int[26];
+        counts[0] = 7;
+        assertEquals(0, OpeningBook.index(counts));
+        counts[0] = 0;
+        counts[25] = 7;
+        assertEquals(OpeningBook.SIZE - 1, OpeningBook.index(counts));
+    }
+
+    @Test
+    public void testBestMoveMatchesSearch() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = forEachBoardSquareAsNestedList((r, c) -> ' ');
+        List<Character> hand = Arrays.asList('S', 'A', 'T', 'I', 'R', 'E', 'Q');
+        int[] counts = new int[26];
+        hand.forEach(tile -> counts[tile - 'A']++);
+        int slot = OpeningBook.index(counts);
+        OpeningBook book = OpeningBook.generate(trie, 2, slot - 50, slot + 50);
+        assertTrue(book.covers(board, hand, null));
+        assertTrue(book.covers(board, hand, LeaveTable.standard()));
+
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        for (LeaveTable leaves : Arrays.asList(null, LeaveTable.standard()))
+        {
+            Move searched = generator.search(hand, 1, SearchBudget.unlimited(), leaves).getBestMove();
+            Move looked = book.bestMove(hand, leaves);
+            assertEquals(equity(searched, hand, leaves), equity(looked, hand, leaves));
+            // The move read back is a real play from the rack.
+            assertTrue(Board.validMove(board, looked.applyTo(board), trie));
+            assertEquals(Board.scoreMove(board, looked.applyTo(board)), looked.getScore());
+        }
+
+        // A book is only good for the empty board and whole racks.
+        List<List<Character>> played = book.bestMove(hand, null).applyTo(board);
+        assertFalse(book.covers(played, hand, null));
+        assertFalse(book.covers(board, hand.subList(0, 6), null));
+
+        File file = File.createTempFile("openingbook", ".bin");
+        file.deleteOnExit();
+        book.write(file.toPath());
+        OpeningBook loaded = OpeningBook.load(file.toPath());
+        assertEquals(book.bestMove(hand, LeaveTable.standard()), loaded.bestMove(hand, LeaveTable.standard()));
+    }
+
+    private static int equity(Move move, List<Character> hand, LeaveTable leaves)
+    {
+        if (leaves == null)
+        {
+            return move.getScore();
+        }
+        int[] leave = new int[26];
+        hand.forEach(tile -> leave[tile - 'A']++);
+        move.getTilesPlaced().forEach(tile -> leave[tile - 'A']--);
+        return move.getScore() * LeaveTable.SCALE + leaves.value(leave);
+    }
+}
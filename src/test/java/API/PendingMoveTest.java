@@ -0,0 +1,106 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class PendingMoveTest {
+
+    @Test
+    public void testFirstMove() throws Exception {
+        Trie trie = new Trie();
+        PendingMove pending = new PendingMove(new MoveGenerator(trie));
+        pending.place(7, 6, 'C');
+        assertFalse(pending.isValid());
+        pending.place(7, 7, 'A');
+        assertFalse(pending.isValid());
+        pending.place(7, 8, 'T');
+        assertTrue(pending.isValid());
+        assertEquals("CAT", pending.getMove().getWord());
+        // C, A and T are worth 3, 1 and 1, doubled by the centre square.
+        assertEquals(10, pending.getMove().getScore());
+        pending.place(7, 10, 'S');
+        assertFalse(pending.isValid());
+        pending.remove(7, 10);
+        assertTrue(pending.isValid());
+        pending.clear();
+        assertEquals(0, pending.getTileCount());
+        assertFalse(pending.isValid());
+    }
+
+    @Test
+    public void testAgreesWithBoard() throws Exception {
+        Trie trie = new Trie();
+        Random random = new Random(3);
+        GameEngine game = new GameEngine(trie, new SplittableRandom(5));
+        MoveGenerator generator = new MoveGenerator(trie);
+        int checked = 0, valid = 0;
+        for (int turn = 0; turn < 12 && !game.isOver(); turn++)
+        {
+            List<List<Character>> board = game.getBoard();
+            List<Character> hand = new ArrayList<>(game.getHand(game.getPlayerToMove()));
+            generator.update(board);
+            PendingMove pending = new PendingMove(generator);
+
+            // Every move generated is legal, and scores the same.
+            for (Move move : generator.topMoves(hand, 20))
+            {
+                pending.clear();
+                for (int i = 0; i < move.getTilesPlaced().size(); i++)
+                {
+                    pending.place(move.getPlacedCoordinates().get(i).getKey(),
+                            move.getPlacedCoordinates().get(i).getValue(), move.getTilesPlaced().get(i));
+                }
+                assertEquals(move.toString(), move, pending.getMove());
+            }
+
+            // Random placements near the tiles on the board are judged as Board judges them.
+            for (int attempt = 0; attempt < 150; attempt++)
+            {
+                pending.clear();
+                List<List<Character>> after = forEachBoardSquareAsNestedList((r, c) -> board.get(r).get(c));
+                boolean horizontal = random.nextBoolean();
+                int line = 4 + random.nextInt(7), pos = 3 + random.nextInt(6);
+                int tiles = 1 + random.nextInt(Math.min(4, hand.size()));
+                List<Character> rack = new ArrayList<>(hand);
+                for (int t = 0; t < tiles && pos < 15; pos++)
+                {
+                    int r = horizontal ? line : pos, c = horizontal ? pos : line;
+                    if (board.get(r).get(c) == ' ')
+                    {
+                        char letter = rack.remove(random.nextInt(rack.size()));
+                        pending.place(r, c, letter);
+                        after.get(r).set(c, letter);
+                        t++;
+                    }
+                }
+                boolean legal = Board.validMove(board, after, trie);
+                assertEquals(after.toString(), legal, pending.isValid());
+                if (legal)
+                {
+                    assertEquals(Board.scoreMove(board, after), pending.getMove().getScore());
+                    assertEquals(after, pending.getMove().applyTo(board));
+                    valid++;
+                }
+                checked++;
+            }
+            Move best = generator.topMoves(hand, 1).stream().findFirst().orElse(null);
+            if (best == null)
+            {
+                game.pass();
+            }
+            else
+            {
+                game.play(best);
+            }
+        }
+        assertTrue(checked > 1000);
+        assertTrue(valid > 10);
+    }
+}
@@ -0,0 +1,119 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PondererTest {
+
+    private Trie trie;
+
+    private List<List<Character>> board;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+        board = Boards.loner();
+    }
+
+    @Test
+    public void testBestMovesMatchFullSearch() throws Exception {
+        List<Character> cpuHand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        LeaveTable leaves = LeaveTable.standard();
+        Ponderer ponderer = new Ponderer(trie);
+        ponderer.ponder(board, cpuHand, leaves);
+
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        for (Move humanMove : generator.topMoves(Arrays.asList('D', 'I', 'N', 'G', 'O', 'E', 'S'), 10))
+        {
+            List<List<Character>> after = humanMove.applyTo(board);
+            SearchResult pondered = ponderer.bestMoves(after, cpuHand, 5, SearchBudget.unlimited(), leaves);
+            MoveGenerator full = new MoveGenerator(trie);
+            full.setBoard(after);
+            SearchResult searched = full.search(cpuHand, 5, SearchBudget.unlimited(), leaves);
+            assertTrue(pondered.isCompleted());
+            assertEquals(humanMove.toString(), equities(searched.getMoves(), cpuHand, leaves),
+                    equities(pondered.getMoves(), cpuHand, leaves));
+            // Only the lines the human's move disturbed were searched again.
+            assertTrue(pondered.getNodesVisited() < searched.getNodesVisited());
+        }
+    }
+
+    @Test
+    public void testDifferentRackSearchesInFull() throws Exception {
+        Ponderer ponderer = new Ponderer(trie);
+        ponderer.ponder(board, Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A'), null);
+        List<Character> hand = Arrays.asList('Q', 'U', 'I', 'Z', 'E', 'S', 'T');
+        Move best = ponderer.bestMove(board, hand, SearchBudget.unlimited(), null);
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        assertEquals(generator.topMoves(hand, 1).get(0).getScore(), best.getScore());
+
+        // Nothing is reused once pondering is cancelled.
+        ponderer.cancel();
+        assertEquals(best.getScore(), ponderer.bestMove(board, hand, SearchBudget.unlimited(), null).getScore());
+    }
+
+    @Test
+    public void testMoveOverTheBestMoveIsSearchedAgain() throws Exception {
+        List<List<Character>> crossword = Boards.crossword();
+        List<Character> cpuHand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        Ponderer ponderer = new Ponderer(trie);
+        ponderer.ponder(crossword, cpuHand, null);
+
+        // The human takes a square the CPU's best move needed, so its line must be searched again.
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(crossword);
+        Move planned = generator.topMoves(cpuHand, 1).get(0);
+        Move human = generator.topMoves(Arrays.asList('D', 'I', 'N', 'G', 'O', 'E', 'S'), 200).stream()
+                .filter(move -> !Collections.disjoint(squares(move), squares(planned))).findFirst().get();
+        List<List<Character>> after = human.applyTo(crossword);
+
+        Move best = ponderer.bestMove(after, cpuHand, SearchBudget.unlimited(), null);
+        MoveGenerator full = new MoveGenerator(trie);
+        full.setBoard(after);
+        assertEquals(full.topMoves(cpuHand, 1).get(0).getScore(), best.getScore());
+        assertNotEquals(planned, best);
+        assertTrue(Board.validMove(after, best.applyTo(after), trie));
+    }
+
+    /**
+     * Returns the squares move places tiles on, as row * 15 + column.
+     */
+    private static Set<Integer> squares(Move move)
+    {
+        Set<Integer> squares = new HashSet<>();
+        int start = move.isHorizontal() ? move.getCol() : move.getRow();
+        for (int i = 0; i < move.getWord().length(); i++)
+        {
+            if ((move.getPlacedMask() & (1 << (start + i))) != 0)
+            {
+                squares.add(move.isHorizontal() ? move.getRow() * 15 + move.getCol() + i
+                        : (move.getRow() + i) * 15 + move.getCol());
+            }
+        }
+        return squares;
+    }
+
+    private static List<Integer> equities(List<Move> moves, List<Character> hand, LeaveTable leaves)
+    {
+        List<Integer> equities = new ArrayList<>();
+        for (Move move : moves)
+        {
+            int[] leave = new int[26];
+            hand.forEach(tile -> leave[tile - 'A']++);
+            move.getTilesPlaced().forEach(tile -> leave[tile - 'A']--);
+            equities.add(move.getScore() * LeaveTable.SCALE + leaves.value(leave));
+        }
+        return equities;
+    }
+}
@@ -0,0 +1,161 @@
+package API;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class PositionTest {
+
+    private Trie trie;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new Trie();
+    }
+
+    @Test
+    public void testMakeUnmakeRoundTrip() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(9));
+        Position position = engine.toPosition();
+        SplittableRandom random = new SplittableRandom(2);
+        List<Snapshot> before = new ArrayList<>();
+        while (!position.isOver())
+        {
+            before.add(new Snapshot(position));
+            List<Move> moves = position.getGenerator().topMoves(position.getHand(position.getPlayerToMove()), 5);
+            if (moves.isEmpty())
+            {
+                position.makePass();
+            }
+            else
+            {
+                position.make(moves.get(random.nextInt(moves.size())));
+            }
+            // The hash kept up move by move is the hash of the position.
+            assertEquals(position.computeHash(), position.getHash());
+        }
+        assertEquals(before.size(), position.getDepth());
+        for (int i = before.size() - 1; i >= 0; i--)
+        {
+            position.unmake();
+            before.get(i).check(position);
+        }
+        assertEquals(0, position.getDepth());
+    }
+
+    @Test
+    public void testMatchesGameEngine() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(4));
+        Position position = engine.toPosition();
+        Move move = position.getGenerator().topMoves(engine.getHand(GameEngine.PLAYER), 1).get(0);
+        position.make(move);
+        engine.play(move);
+        assertEquals(engine.getBoard(), position.getBoard());
+        assertEquals(engine.getScore(GameEngine.PLAYER), position.getScore(GameEngine.PLAYER));
+        assertEquals(engine.getPlayerToMove(), position.getPlayerToMove());
+        assertEquals(engine.getBagSize(), position.getBagSize());
+    }
+
+    @Test
+    public void testScorelessTurnsCarryOver() throws Exception {
+        GameEngine engine = new GameEngine(trie, new SplittableRandom(4));
+        for (int i = 0; i < 4; i++)
+        {
+            engine.pass();
+        }
+        Position position = engine.toPosition();
+        assertEquals(2, position.getScorelessTurns(GameEngine.PLAYER));
+        assertEquals(2, position.getScorelessTurns(GameEngine.CPU));
+
+        // A third pass in a row by either player ends the game in the position as in the engine.
+        position.makePass();
+        assertTrue(position.isOver());
+        position.unmake();
+        assertFalse(position.isOver());
+        assertEquals(2, position.getScorelessTurns(GameEngine.PLAYER));
+
+        Move move = position.getGenerator().topMoves(engine.getHand(GameEngine.PLAYER), 1).get(0);
+        position.make(move);
+        engine.play(move);
+        assertEquals(0, position.getScorelessTurns(GameEngine.PLAYER));
+        position.makePass();
+        engine.pass();
+        assertTrue(engine.isOver());
+        assertTrue(position.isOver());
+        assertEquals(engine.getScorelessTurns(GameEngine.CPU), position.getScorelessTurns(GameEngine.CPU));
+    }
+
+    @Test
+    public void testRejectsMoveNotOnRack() throws Exception {
+        List<List<Character>> hands = Arrays.asList(Arrays.asList('C', 'A', 'T'), Arrays.asList('D', 'O', 'G'));
+        Position position = new Position(trie, forEachBoardSquareAsNestedList((r, c) -> ' '),
+                hands, new TileBag(new ArrayList<>(), new SplittableRandom(1)), GameEngine.PLAYER);
+        long hash = position.getHash();
+        try
+        {
+            position.make(new Move(7, 6, true, "DOG", 0b111 << 6, 10));
+            fail("DOG is not on the rack");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals(hash, position.getHash());
+            assertEquals(Arrays.asList('A', 'C', 'T'), position.getHand(GameEngine.PLAYER));
+        }
+        position.make(new Move(7, 6, true, "CAT", 0b111 << 6, 10));
+        assertTrue(position.isOver());
+        // Going out with the bag empty scores twice the other rack: D 2, O 1, G 2.
+        assertEquals(10 + 2 * 5, position.getScore(GameEngine.PLAYER));
+        position.unmake();
+        assertEquals(0, position.getScore(GameEngine.PLAYER));
+        assertEquals(hash, position.getHash());
+    }
+
+    /**
+     * Everything about a position that unmake must restore.
+     */
+    private static class Snapshot {
+        final List<List<Character>> board;
+        final List<Character> playerHand, cpuHand;
+        final int playerScore, cpuScore, bagSize, playerToMove;
+        final long hash;
+        final MoveGenerator tables;
+
+        Snapshot(Position position)
+        {
+            board = position.getBoard();
+            playerHand = position.getHand(GameEngine.PLAYER);
+            cpuHand = position.getHand(GameEngine.CPU);
+            playerScore = position.getScore(GameEngine.PLAYER);
+            cpuScore = position.getScore(GameEngine.CPU);
+            bagSize = position.getBagSize();
+            playerToMove = position.getPlayerToMove();
+            hash = position.getHash();
+            tables = new MoveGenerator(position.getGenerator());
+        }
+
+        void check(Position position)
+        {
+            assertEquals(board, position.getBoard());
+            assertEquals(playerHand, position.getHand(GameEngine.PLAYER));
+            assertEquals(cpuHand, position.getHand(GameEngine.CPU));
+            assertEquals(playerScore, position.getScore(GameEngine.PLAYER));
+            assertEquals(cpuScore, position.getScore(GameEngine.CPU));
+            assertEquals(bagSize, position.getBagSize());
+            assertEquals(playerToMove, position.getPlayerToMove());
+            assertEquals(hash, position.getHash());
+            assertFalse(position.isOver());
+            // The anchors and cross-checks taken back match those of the position before the move.
+            assertEquals(0, position.getGenerator().dirtyLines(tables));
+            MoveGenerator fresh = new MoveGenerator(tables.getTrie());
+            fresh.setBoard(board);
+            assertEquals(0, position.getGenerator().dirtyLines(fresh));
+        }
+    }
+}
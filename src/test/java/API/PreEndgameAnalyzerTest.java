@@ -0,0 +1,65 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PreEndgameAnalyzerTest {
+
+    @Test
+    public void testAnalyze() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.loner();
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E');
+        // Two tiles in the bag and a five tile opponent rack.
+        List<Character> unseen = new ArrayList<>(Arrays.asList('D', 'O', 'G', 'S', 'I', 'X', 'U'));
+
+        List<SimulatedMove> analysis = new PreEndgameAnalyzer(trie).analyze(board, hand, unseen, 2, 4, 3000, 7);
+        assertEquals(4, analysis.size());
+        for (int i = 1; i < analysis.size(); i++)
+        {
+            assertTrue(analysis.get(i - 1).getMeanSpread() >= analysis.get(i).getMeanSpread());
+        }
+        for (SimulatedMove move : analysis)
+        {
+            // Every draw of one or two of the seven unseen tiles fits within the limit, so none are sampled.
+            assertTrue(move.toString(), move.getIterations() > 0 && move.getIterations() <= 7 * 6 / 2 + 7);
+        }
+
+        try
+        {
+            new PreEndgameAnalyzer(trie).analyze(board, hand, unseen, 0, 4, 100, 7);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEveryLastTileIsTried() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.preEndgame();
+        List<Character> hand = Arrays.asList('F', 'I', 'N', 'O', 'Q', 'S', 'T');
+        // The other player's seven tiles and the one left in the bag.
+        List<Character> unseen = Tile.getUnseenTiles(board, hand);
+        assertEquals(8, unseen.size());
+
+        List<SimulatedMove> analysis = new PreEndgameAnalyzer(trie).analyze(board, hand, unseen, 1, 3, 5000, 7);
+        assertEquals(3, analysis.size());
+        for (SimulatedMove move : analysis)
+        {
+            // Each candidate is followed by each of the eight tiles that could be the last one drawn, and no more.
+            assertTrue(move.toString(), move.getIterations() > 0 && move.getIterations() <= unseen.size());
+        }
+        for (int i = 1; i < analysis.size(); i++)
+        {
+            assertTrue(analysis.get(i - 1).getMeanSpread() >= analysis.get(i).getMeanSpread());
+        }
+    }
+}
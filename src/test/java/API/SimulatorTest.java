@@ -0,0 +1,57 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SimulatorTest {
+
+    @Test
+    public void testSimulate() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.loner();
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        List<Character> unseen = Tile.getUnseenTiles(board, hand);
+        assertEquals(Tile.getTileBagForGame().size() - "LONER".length() - hand.size(), unseen.size());
+
+        Simulator simulator = new Simulator(trie, LeaveTable.standard());
+        List<SimulatedMove> first = simulator.simulate(board, hand, unseen, 4, 96, 42);
+        assertEquals(4, first.size());
+        for (int i = 1; i < first.size(); i++)
+        {
+            assertTrue(first.get(i - 1).getMeanSpread() >= first.get(i).getMeanSpread());
+        }
+        int iterations = first.get(0).getIterations();
+        assertTrue(iterations >= 64 && iterations <= 96);
+
+        // The same seed replays the same racks, whatever threads the iterations ran on.
+        List<SimulatedMove> second = simulator.simulate(board, hand, unseen, 4, 96, 42);
+        for (int i = 0; i < first.size(); i++)
+        {
+            assertEquals(first.get(i).getMove(), second.get(i).getMove());
+            assertEquals(first.get(i).getMeanSpread(), second.get(i).getMeanSpread(), 1e-9);
+        }
+
+        assertTrue(simulator.simulate(board, Arrays.asList(), unseen, 4, 96, 42).isEmpty());
+    }
+
+    @Test
+    public void testOpeningAPremiumLaneCosts() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.openLane();
+        List<Character> hand = Arrays.asList('O', 'G', 'C', 'O', 'T', 'E', 'T');
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        Move opening = generator.search(hand, 1, SearchBudget.unlimited(), LeaveTable.standard()).getBestMove();
+        assertEquals("OCTET", opening.getWord());
+
+        // Simulated out to the opponent's reply and the draw after, OCTET falls below a move that scores less.
+        List<SimulatedMove> ranked = new Simulator(trie, LeaveTable.standard())
+                .simulate(board, hand, UnseenTiles.of(board, hand), 6, 96, 42);
+        assertNotEquals(opening, ranked.get(0).getMove());
+        assertTrue(ranked.get(0).getMove().getScore() < opening.getScore());
+    }
+}
@@ -0,0 +1,83 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class TileBagTest {
+
+    @Test
+    public void testDrawsEveryTile() throws Exception {
+        TileBag bag = new TileBag(new SplittableRandom(1));
+        int[] expected = new int[26];
+        Tile.getTileDistribution().forEach(tile -> expected[tile - 'A']++);
+        int[] drawn = new int[26];
+        assertEquals(98, bag.size());
+        assertEquals(98, bag.drawRack(100, drawn));
+        assertArrayEquals(expected, drawn);
+        assertTrue(bag.isEmpty());
+        assertNull(bag.draw());
+        assertEquals(-1, bag.draw(drawn));
+    }
+
+    @Test
+    public void testSeededBagsRepeat() throws Exception {
+        TileBag first = new TileBag(new SplittableRandom(7)), second = new TileBag(new SplittableRandom(7));
+        assertEquals(new ArrayList<>(first.toQueue()), new ArrayList<>(second.toQueue()));
+        for (int i = 0; i < 98; i++)
+        {
+            assertEquals(first.draw(), second.draw());
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependent() throws Exception {
+        TileBag bag = new TileBag(Arrays.asList('A', 'B', 'B', 'C'), new SplittableRandom(3));
+        TileBag copy = bag.copy();
+        int[] rack = new int[26];
+        copy.drawRack(3, rack);
+        assertEquals(1, copy.size());
+        assertEquals(4, bag.size());
+        assertEquals(2, bag.count('B'));
+        copy.returnRack(rack);
+        assertEquals(4, copy.size());
+        assertEquals(2, copy.count('B'));
+    }
+
+    @Test
+    public void testCopiesLeaveTheDrawsAlone() throws Exception {
+        TileBag bag = new TileBag(new SplittableRandom(5)), untouched = new TileBag(new SplittableRandom(5));
+        for (int i = 0; i < 98; i++)
+        {
+            TileBag copy = bag.copy();
+            copy.draw();
+            bag.toQueue();
+            assertEquals(untouched.draw(), bag.draw());
+        }
+
+        // Each copy deals its own order, and copies of bags seeded alike deal alike.
+        TileBag other = new TileBag(new SplittableRandom(5));
+        bag = new TileBag(new SplittableRandom(5));
+        List<Character> first = new ArrayList<>(bag.toQueue()), second = new ArrayList<>(bag.toQueue());
+        assertNotEquals(first, second);
+        assertEquals(first, new ArrayList<>(other.toQueue()));
+        assertEquals(second, new ArrayList<>(other.toQueue()));
+    }
+
+    @Test
+    public void testRefillAndThrowBack() throws Exception {
+        TileBag bag = new TileBag(new SplittableRandom(4));
+        List<Character> hand = new ArrayList<>(Arrays.asList('Q', 'Z'));
+        bag.refill(hand, 7);
+        assertEquals(7, hand.size());
+        assertEquals(93, bag.size());
+        bag.addAll(hand.subList(0, 2));
+        assertEquals(95, bag.size());
+        assertEquals(1 + (hand.subList(2, 7).contains('Q') ? 0 : 1), bag.count('Q'));
+    }
+}
@@ -0,0 +1,63 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TwoPlySearchTest {
+
+    @Test
+    public void testSearch() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.loner();
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        UnseenTiles unseen = UnseenTiles.of(board, hand);
+
+        TwoPlySearch search = new TwoPlySearch(trie, LeaveTable.standard());
+        List<SimulatedMove> first = search.search(board, hand, unseen, 6, 12, 42);
+        assertEquals(6, first.size());
+        for (int i = 0; i < first.size(); i++)
+        {
+            SimulatedMove move = first.get(i);
+            assertEquals(12, move.getIterations());
+            // No reply scores below zero, so no candidate can do better than its own score.
+            assertTrue(move.getMeanSpread() <= move.getMove().getScore());
+            if (i > 0)
+            {
+                assertTrue(first.get(i - 1).getMeanSpread() >= move.getMeanSpread());
+            }
+        }
+
+        // The same seed deals the same racks, whatever threads the candidates ran on.
+        List<SimulatedMove> second = search.search(board, hand, unseen, 6, 12, 42);
+        for (int i = 0; i < first.size(); i++)
+        {
+            assertEquals(first.get(i).getMove(), second.get(i).getMove());
+            assertEquals(first.get(i).getMeanSpread(), second.get(i).getMeanSpread(), 0);
+        }
+    }
+
+    @Test
+    public void testOpeningAPremiumLaneCosts() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = Boards.openLane();
+        List<Character> hand = Arrays.asList('O', 'G', 'C', 'O', 'T', 'E', 'T');
+        MoveGenerator generator = new MoveGenerator(trie);
+        generator.setBoard(board);
+        Move opening = generator.search(hand, 1, SearchBudget.unlimited(), LeaveTable.standard()).getBestMove();
+        assertEquals("OCTET", opening.getWord());
+        assertEquals(13, opening.getRow() + opening.getWord().length() - 1);
+
+        List<SimulatedMove> ranked = new TwoPlySearch(trie, LeaveTable.standard())
+                .search(board, hand, UnseenTiles.of(board, hand), 6, 48, 42);
+        SimulatedMove chosen = ranked.get(0);
+        SimulatedMove opened = ranked.stream().filter(move -> move.getMove().equals(opening)).findFirst().get();
+        assertNotEquals(opening, chosen.getMove());
+        // The replies to OCTET score more on average than the replies to the move chosen instead.
+        assertTrue(opening.getScore() - opened.getMeanSpread()
+                > chosen.getMove().getScore() - chosen.getMeanSpread());
+    }
+}
@@ -0,0 +1,71 @@
+package API;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+import static util.FunctionHelper.forEachBoardSquareAsNestedList;
+
+public class UnseenTilesTest {
+
+    @Test
+    public void testOf() throws Exception {
+        List<List<Character>> board = forEachBoardSquareAsNestedList((r, c) -> ' ');
+        board.get(7).set(7, 'Q');
+        List<Character> hand = Arrays.asList('Z', 'E', 'E');
+        UnseenTiles unseen = UnseenTiles.of(board, hand);
+        assertEquals(Tile.getTileBagForGame().size() - 4, unseen.size());
+        assertEquals(0, unseen.count('Q'));
+        assertEquals(0, unseen.count('Z'));
+        assertEquals(Tile.getTileDistribution().stream().filter(ch -> ch == 'E').count() - 2, unseen.count('E'));
+        assertEquals(unseen.size(), unseen.toList().size());
+
+        unseen.addAll(Arrays.asList('Z'));
+        assertEquals(1, unseen.count('Z'));
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        UnseenTiles unseen = new UnseenTiles(Arrays.asList('A', 'A', 'B', 'C'));
+        SplittableRandom random = new SplittableRandom(7);
+        for (int s = 0; s < 100; s++)
+        {
+            int[] taken = new int[26];
+            taken['A' - 'A'] = 1;
+            assertEquals(3, unseen.sample(random, 5, taken));
+            // Only the tiles not yet taken are drawn, so the sample takes exactly what is left.
+            assertEquals(2, taken['A' - 'A']);
+            assertEquals(1, taken['B' - 'A']);
+            assertEquals(1, taken['C' - 'A']);
+            assertEquals(-1, unseen.draw(random, taken));
+        }
+    }
+
+    @Test
+    public void testInferLeave() throws Exception {
+        Trie trie = new Trie();
+        List<List<Character>> board = forEachBoardSquareAsNestedList((r, c) -> ' ');
+        List<Character> hand = Arrays.asList('C', 'A', 'T', 'E', 'R', 'S', 'A');
+        UnseenTiles unseen = UnseenTiles.of(board, hand);
+        Move played = AI.topMoves(board, Arrays.asList('D', 'O', 'G', 'I', 'N', 'U', 'V'), trie, 1).get(0);
+        unseen.removeAll(played.getTilesPlaced());
+        unseen.inferLeave(board, played, trie, LeaveTable.standard(), 32, new SplittableRandom(1));
+
+        SplittableRandom random = new SplittableRandom(2);
+        for (int s = 0; s < 100; s++)
+        {
+            int[] rack = new int[26];
+            unseen.sampleRack(random, 7, rack);
+            int size = 0;
+            for (int l = 0; l < 26; l++)
+            {
+                assertTrue(rack[l] <= unseen.count((char) ('A' + l)));
+                size += rack[l];
+            }
+            assertEquals(7, size);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package server;
+
+import API.Trie;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    private static String request(int port, String method, String path) throws Exception
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        assertEquals(200, connection.getResponseCode());
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream())
+        {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0)
+            {
+                response.write(buffer, 0, n);
+            }
+        }
+        return response.toString("UTF-8");
+    }
+
+    /**
+     * Sends a request, with body unless it is null, and returns the status of the response.
+     */
+    private static int status(int port, String method, String path, String body) throws Exception
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null)
+        {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return connection.getResponseCode();
+    }
+
+    @Test
+    public void testSessions() throws Exception {
+        GameServer server = new GameServer(new Trie(), 0);
+        server.start();
+        try
+        {
+            int port = server.getPort();
+            String first = request(port, "POST", "/games");
+            String second = request(port, "POST", "/games");
+            assertTrue(first, first.startsWith("game 1\nturn PLAYER\nscore 0 0\nbag 84\n"));
+            assertTrue(second.startsWith("game 2\n"));
+            assertEquals(2, server.getGameCount());
+
+            // Passing hands the turn to the CPU, which has taken it by the time the response comes back.
+            String passed = request(port, "POST", "/games/1/pass");
+            assertTrue(passed, passed.contains("turn PLAYER\n"));
+            assertTrue(passed, passed.contains("last PLAY\n") || passed.contains("last EXCHANGE\n"));
+            assertEquals(second, request(port, "GET", "/games/2"));
+
+            request(port, "DELETE", "/games/1");
+            assertEquals(1, server.getGameCount());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testSquaresOffTheBoardAreBadRequests() throws Exception {
+        GameServer server = new GameServer(new Trie(), 0);
+        server.start();
+        try
+        {
+            int port = server.getPort();
+            request(port, "POST", "/games");
+            assertEquals(400, status(port, "POST", "/games/1/move", "7 15 A\n"));
+            assertEquals(400, status(port, "POST", "/games/1/move", "-1 7 A\n"));
+            assertEquals(400, status(port, "POST", "/games/1/move", "seven 7 A\n"));
+            assertTrue(request(port, "GET", "/games/1").contains("turn PLAYER\nscore 0 0\n"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testIdleGamesMakeRoomForNewOnes() throws Exception {
+        GameServer server = new GameServer(new Trie(), 0, 2, 1000);
+        server.start();
+        try
+        {
+            int port = server.getPort();
+            request(port, "POST", "/games");
+            request(port, "POST", "/games");
+            assertEquals(503, status(port, "POST", "/games", null));
+            assertEquals(2, server.getGameCount());
+
+            // Once the first game has gone idle and the second has not, the first makes room for a third.
+            Thread.sleep(700);
+            request(port, "GET", "/games/2");
+            Thread.sleep(500);
+            assertTrue(request(port, "POST", "/games").startsWith("game 3\n"));
+            assertEquals(2, server.getGameCount());
+            assertEquals(404, status(port, "GET", "/games/1", null));
+            request(port, "GET", "/games/2");
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+}